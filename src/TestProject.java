@@ -1,12 +1,31 @@
 
 import model.characters.*;
+import model.characters.Character;
 import model.items.*;
 import model.exceptions.*;
+import model.economy.EconomyEvent;
 import game.*;
 import utils.GameUtils;
+import utils.ItemQuery;
+import utils.KeySort;
+import utils.TopK;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * מחלקת בדיקות לפרויקט.
@@ -32,9 +51,29 @@ public class TestProject {
         testInventoryManagement();
         testEquipment();
         testBattleSystem();
+        testBulkDamage();
+        testAreaDamage();
         testShop();
+        testConcurrentShop();
+        testCheckout();
+        testTradeResults();
+        testPricingEngine();
+        testMarketplace();
+        testEconomyJournal();
+        testRestock();
+        testPriceIndex();
+        testItemRegistry();
+        testItemCatalog();
         testDungeonMap();
+        testChunkedDungeonMap();
+        testMultiplayerMap();
+        testMapFile();
+        testSaveGame();
         testSortingAndFiltering();
+        testKeySort();
+        testItemQuery();
+        testTopK();
+        testItemColumns();
 
         // סיכום
         System.out.println("\n=================================");
@@ -141,6 +180,28 @@ public class TestProject {
             testNotImplemented("Character heal/takeDamage");
         }
 
+        // takeDamage מחסיר את הנזק אחרי השריון: חזה 50 הגנה = 20% הפחתה
+        try {
+            Warrior guard = new Warrior("Armored Guard");
+            Armor vest = new Armor("Guard Vest", "", 5, 30, Item.ItemRarity.COMMON, 50,
+                    Armor.ArmorSlot.CHEST);
+            guard.addItem(vest);
+            guard.equipArmor(vest);
+            guard.takeDamage(100);
+            test("takeDamage subtracts reduced damage",
+                    guard.getCurrentHealth() == guard.getMaxHealth() - 80);
+            // שריון חדש מחליף את המכפילים השמורים: קסדה 100 הגנה = 15% נוספים
+            Armor helm = new Armor("Guard Helm", "", 2, 20, Item.ItemRarity.COMMON, 100,
+                    Armor.ArmorSlot.HEAD);
+            guard.addItem(helm);
+            guard.equipArmor(helm);
+            guard.takeDamage(100);
+            test("armor change refreshes mitigation",
+                    guard.getCurrentHealth() == guard.getMaxHealth() - 80 - 68);
+        } catch (Exception e) {
+            test("takeDamage armor exception: " + e.getMessage(), false);
+        }
+
         // Test experience and leveling
         try {
             int startLevel = warrior.getLevel();
@@ -298,6 +359,127 @@ public class TestProject {
         }
     }
 
+    private static void testBulkDamage() {
+        System.out.println("\n--- Testing Bulk Damage ---");
+
+        Weapon bow = new Weapon("Bulk Bow", "", 3, 10, Item.ItemRarity.COMMON, 4, 9,
+                Weapon.WeaponType.BOW);
+        int[] rolls = new int[50_000];
+        bow.rollDamage(rolls, 0, rolls.length, new SplittableRandom(1));
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        long sum = 0;
+        for (int roll : rolls) {
+            min = Math.min(min, roll);
+            max = Math.max(max, roll);
+            sum += roll;
+        }
+        test("weapon bulk roll range", min == 4 && max == 9
+                && Math.abs(sum / (double) rolls.length - bow.getAverageDamage()) < 0.05);
+
+        // אותה התפלגות כמו הקריאה הבודדת, כולל קריטיים
+        Archer archer = new Archer("Bulk Archer");
+        try {
+            archer.addItem(bow);
+            archer.equipWeapon(bow);
+        } catch (Exception e) {
+            test("bulk archer setup", false);
+        }
+        int n = 200_000;
+        int[] bulk = new int[n];
+        archer.rollAttackDamage(bulk, 0, n, new SplittableRandom(2));
+        int[] single = new int[64];
+        int[] bulkHistogram = new int[64];
+        for (int i = 0; i < n; i++) {
+            single[archer.calculateAttackDamage()]++;
+            bulkHistogram[bulk[i]]++;
+        }
+        boolean close = true;
+        for (int damage = 0; damage < 64; damage++) {
+            if (Math.abs(single[damage] - bulkHistogram[damage]) > 0.01 * n) {
+                close = false;
+            }
+        }
+        test("archer bulk roll matches single rolls", close
+                && bulkHistogram[16] > 0 && bulkHistogram[42] > 0 && bulkHistogram[15] == 0);
+
+        Warrior warrior = new Warrior("Bulk Warrior");
+        for (int i = 0; i < 3; i++) {
+            warrior.takeDamage(1); // 30 זעם = בונוס 3
+        }
+        int[] unarmed = warrior.rollAttackDamage(5);
+        test("warrior bulk roll includes rage",
+                Arrays.stream(unarmed).allMatch(damage -> damage == 15 + 3));
+    }
+
+    private static void testAreaDamage() {
+        System.out.println("\n--- Testing Area Damage ---");
+
+        // אותה תוצאה כמו takeDamage, עם שריון ועם זעם
+        ArrayList<Character> batch = new ArrayList<>();
+        ArrayList<Character> single = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Character a = i % 3 == 0 ? new Warrior("W" + i) : new Mage("M" + i);
+            Character b = i % 3 == 0 ? new Warrior("W" + i) : new Mage("M" + i);
+            if (i % 2 == 0) {
+                Armor plate = new Armor("AoE Plate", "", 10, 50, Item.ItemRarity.COMMON, 60,
+                        Armor.ArmorSlot.CHEST);
+                Armor boots = new Armor("AoE Boots", "", 2, 20, Item.ItemRarity.COMMON, 40,
+                        Armor.ArmorSlot.BOOTS);
+                for (Character c : List.of(a, b)) {
+                    try {
+                        Armor p = new Armor(plate.getDefinition());
+                        Armor q = new Armor(boots.getDefinition());
+                        c.addItem(p);
+                        c.equipArmor(p);
+                        c.addItem(q);
+                        c.equipArmor(q);
+                    } catch (Exception e) {
+                        test("aoe armor setup", false);
+                    }
+                }
+            }
+            batch.add(a);
+            single.add(b);
+        }
+        int[] damage = new int[300];
+        for (int i = 0; i < damage.length; i++) {
+            damage[i] = 7 + (i * 37) % 120;
+        }
+        AreaDamage.apply(batch, damage.clone());
+        boolean same = true;
+        for (int i = 0; i < single.size(); i++) {
+            single.get(i).takeDamage(damage[i]);
+            Character a = batch.get(i);
+            Character b = single.get(i);
+            if (a.getCurrentHealth() != b.getCurrentHealth()
+                    || (a instanceof Warrior && ((Warrior) a).getRage() != ((Warrior) b).getRage())) {
+                same = false;
+            }
+        }
+        test("area damage matches takeDamage", same);
+
+        Mage mage = new Mage("AoE Mage");
+        ArrayList<Character> crowd = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            crowd.add(new Archer("Target " + i));
+        }
+        test("fireball hits everyone", mage.useAreaAbility(crowd)
+                && crowd.stream().allMatch(c -> c.getCurrentHealth() == 100 - 24)
+                && mage.getCurrentMana() == 150 - 40);
+
+        Archer archer = new Archer("AoE Archer");
+        test("volley costs arrows", archer.volley(crowd) && archer.getArrows() == 25
+                && crowd.stream().allMatch(c -> c.getCurrentHealth() < 76));
+
+        Warrior warrior = new Warrior("AoE Warrior");
+        test("cleave needs rage", !warrior.cleave(crowd));
+        for (int i = 0; i < 3; i++) {
+            warrior.takeDamage(1);
+        }
+        test("cleave spends rage", warrior.cleave(crowd) && warrior.getRage() == 0);
+    }
+
     // ============================================================
     // בדיקות חנות
     // ============================================================
@@ -346,6 +528,713 @@ public class TestProject {
                 test("buyItem exception: " + e.getMessage(), false);
             }
         }
+
+        // Test catalog: same SKU merges, category index, sell leaves shop stock
+        shop.addItemToShop(new Weapon("Shop Sword", "For sale", 5, 100,
+                Item.ItemRarity.COMMON, 10, 20, Weapon.WeaponType.SWORD), 2);
+        test("Catalog merges same SKU",
+                shop.getUniqueItemCount() == 2 && shop.getItemStock("Shop Sword") == 6);
+        test("Catalog by category",
+                shop.getItemsByCategory("potion").size() == 1
+                        && shop.getItemsByCategory(Item.ItemCategory.WEAPON).size() == 1
+                        && shop.getItemsByCategory("scroll").isEmpty());
+        try {
+            int gold = shop.sellItem(buyer, "Shop Sword");
+            test("sellItem by name", gold > 0 && shop.getItemStock("Shop Sword") == 6);
+        } catch (Exception e) {
+            test("sellItem exception: " + e.getMessage(), false);
+        }
+    }
+
+    private static void testConcurrentShop() {
+        System.out.println("\n--- Testing Concurrent Shop ---");
+
+        Shop shop = new Shop("Busy Shop");
+        shop.addItemToShop(new Potion("Rush Potion", "For sale", 10,
+                Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 25, 1), 100);
+
+        // 400 לקוחות מתחרים על 100 יחידות - אסור למכור יותר מהמלאי
+        Warrior[] customers = new Warrior[400];
+        for (int i = 0; i < customers.length; i++) {
+            customers[i] = new Warrior("Customer" + i);
+            customers[i].addGold(100);
+        }
+        AtomicInteger sold = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = offset; i < customers.length; i += threads.length) {
+                    try {
+                        shop.buyItem(customers[i], "Rush Potion");
+                        sold.incrementAndGet();
+                    } catch (Exception e) {
+                        // אזל המלאי
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            test("concurrent buy interrupted", false);
+        }
+        test("concurrent buy never oversells",
+                sold.get() == 100 && shop.getItemStock("Rush Potion") == 0);
+
+        // מלאי מלא - העסקה מתבטלת בלי לגעת בזהב או במלאי החנות
+        shop.addItemToShop(new Potion("Rush Potion", "For sale", 10,
+                Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 25, 1), 1);
+        Warrior hoarder = new Warrior("Hoarder");
+        hoarder.addGold(100);
+        try {
+            while (hoarder.getInventorySize() < hoarder.getMaxInventorySize()) {
+                hoarder.addItem(new Potion("Filler", "", 1,
+                        Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 1, 1));
+            }
+            shop.buyItem(hoarder, "Rush Potion");
+            test("buyItem full inventory rollback", false);
+        } catch (InventoryFullException e) {
+            test("buyItem full inventory rollback",
+                    hoarder.getGold() == 100 && shop.getItemStock("Rush Potion") == 1);
+        } catch (Exception e) {
+            test("rollback exception: " + e.getMessage(), false);
+        }
+    }
+
+    private static void testCheckout() {
+        System.out.println("\n--- Testing Cart Checkout ---");
+
+        Shop shop = new Shop("Cart Shop");
+        shop.addItemToShop(new Potion("Cart Potion", "For sale", 20,
+                Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 25, 1), 10);
+        shop.addItemToShop(new Weapon("Cart Sword", "For sale", 5, 100,
+                Item.ItemRarity.COMMON, 10, 20, Weapon.WeaponType.SWORD), 1);
+
+        Warrior buyer = new Warrior("Cart Buyer");
+        buyer.addGold(250);
+
+        // קנייה מוצלחת של כמה שורות
+        CheckoutResult ok = shop.checkout(buyer,
+                new ShoppingCart().add("Cart Potion", 5).add("Cart Sword", 1));
+        test("checkout success", ok.isSuccess() && ok.getItems().size() == 6
+                && buyer.getInventorySize() == 6
+                && buyer.getGold() == 250 - ok.getTotalCost()
+                && shop.getItemStock("Cart Potion") == 5);
+
+        // כל יחידה היא פריט נפרד: שימוש באחת לא מכלה את השנייה
+        Potion first = (Potion) ok.getItems().get(4);
+        Potion second = (Potion) ok.getItems().get(3);
+        buyer.takeDamage(50);
+        test("checkout units are independent", first != second
+                && first.use(buyer) && first.getRemainingUses() == 0
+                && second.getRemainingUses() == 1 && second.isSellable());
+
+        // שורה אחת בלי מלאי - שום דבר לא משתנה
+        int goldBefore = buyer.getGold();
+        CheckoutResult noStock = shop.checkout(buyer,
+                new ShoppingCart().add("Cart Potion", 2).add("Cart Sword", 1));
+        test("checkout all-or-nothing (stock)", !noStock.isSuccess()
+                && shop.getItemStock("Cart Potion") == 5
+                && buyer.getGold() == goldBefore && buyer.getInventorySize() == 6);
+
+        // אין מספיק זהב - המלאי השמור משתחרר
+        CheckoutResult noGold = shop.checkout(buyer, new ShoppingCart().add("Cart Potion", 5));
+        test("checkout all-or-nothing (gold)", !noGold.isSuccess()
+                && shop.getItemStock("Cart Potion") == 5);
+
+        // סכום שחורג מ-int נדחה ולא מתגלגל למספר שלילי
+        CheckoutResult overflow = shop.checkout(buyer,
+                new ShoppingCart().add("Cart Potion", Integer.MAX_VALUE / 2));
+        test("checkout rejects overflowing total", !overflow.isSuccess()
+                && overflow.getFailureReason().startsWith("Cart total too large")
+                && buyer.getGold() == goldBefore && shop.getItemStock("Cart Potion") == 5);
+
+        // מכירה מרובה
+        try {
+            int gold = shop.sellItems(buyer, List.of("Cart Potion", "Cart Potion"));
+            test("sellItems", gold > 0 && buyer.getInventorySize() == 4
+                    && shop.getItemStock("Cart Potion") == 5);
+        } catch (Exception e) {
+            test("sellItems exception: " + e.getMessage(), false);
+        }
+        try {
+            shop.sellItems(buyer, List.of("Cart Sword", "Missing Item"));
+            test("sellItems all-or-nothing", false);
+        } catch (ItemNotFoundException e) {
+            test("sellItems all-or-nothing", buyer.getInventorySize() == 4);
+        } catch (Exception e) {
+            test("sellItems exception: " + e.getMessage(), false);
+        }
+    }
+
+    private static void testTradeResults() {
+        System.out.println("\n--- Testing Trade Results ---");
+
+        Shop shop = new Shop("Result Shop");
+        shop.addItemToShop(new Potion("Result Potion", "For sale", 20,
+                Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 25, 1), 1);
+        Warrior buyer = new Warrior("Result Buyer");
+
+        test("tryBuyItem insufficient gold",
+                shop.tryBuyItem(buyer, "Result Potion").getStatus()
+                        == TradeResult.Status.INSUFFICIENT_GOLD
+                        && shop.getItemStock("Result Potion") == 1);
+        test("tryBuyItem unknown item",
+                shop.tryBuyItem(buyer, "Nothing").getStatus() == TradeResult.Status.ITEM_NOT_FOUND);
+
+        buyer.addGold(100);
+        TradeResult bought = shop.tryBuyItem(buyer, "Result Potion");
+        test("tryBuyItem success", bought.isSuccess() && bought.getGold() == 20
+                && buyer.getGold() == 80);
+        test("tryBuyItem out of stock",
+                shop.tryBuyItem(buyer, "Result Potion").getStatus() == TradeResult.Status.OUT_OF_STOCK);
+
+        // שם שנבנה בזמן ריצה (לא אותו מופע String)
+        String builtName = new StringBuilder("Result ").append("Potion").toString();
+        TradeResult sold = shop.trySellItem(buyer, builtName);
+        test("trySellItem by equal name", sold.isSuccess() && buyer.getInventorySize() == 0);
+        test("tryRemoveItem missing",
+                buyer.tryRemoveItem("Result Potion") == InventoryResult.ITEM_NOT_FOUND);
+
+        shop.restock("Result Potion", 1);
+        try {
+            shop.buyItem(new Warrior("Poor"), "Result Potion");
+            test("InsufficientGoldException details", false);
+        } catch (InsufficientGoldException e) {
+            test("InsufficientGoldException details",
+                    e.getRequired() == 20 && e.getAvailable() == 0 && e.getStackTrace().length == 0);
+        } catch (Exception e) {
+            test("buyItem exception: " + e.getMessage(), false);
+        }
+
+        // שני לקוחות מקבלים שיקויים נפרדים - שימוש של אחד לא נוגע בשני
+        shop.restock("Result Potion", 1);
+        Warrior first = new Warrior("First Customer");
+        Warrior second = new Warrior("Second Customer");
+        first.addGold(100);
+        second.addGold(100);
+        Potion firstPotion = (Potion) shop.tryBuyItem(first, "Result Potion").getItem();
+        Potion secondPotion = (Potion) shop.tryBuyItem(second, "Result Potion").getItem();
+        first.takeDamage(50);
+        test("customers get independent items", firstPotion != secondPotion
+                && firstPotion.use(first) && firstPotion.getRemainingUses() == 0
+                && secondPotion.getRemainingUses() == 1 && secondPotion.isSellable()
+                && shop.trySellItem(second, "Result Potion").isSuccess());
+    }
+
+    private static void testPricingEngine() {
+        System.out.println("\n--- Testing Pricing Engine ---");
+
+        Shop shop = new Shop("Market");
+        shop.addItemToShop(new Potion("Hot Potion", "For sale", 100,
+                Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 25, 1), 10);
+        shop.addItemToShop(new Potion("Cold Potion", "For sale", 100,
+                Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 25, 1), 10);
+        PricingEngine pricing = shop.getPricingEngine();
+        test("base price before reprice", shop.getEntry("Hot Potion").getPrice() == 100);
+
+        Warrior buyer = new Warrior("Trader");
+        buyer.addGold(10_000);
+        long version = pricing.getVersion();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 3; i++) {
+                shop.tryBuyItem(buyer, "Hot Potion");
+            }
+            pricing.reprice();
+        }
+        ShopEntry hot = shop.getEntry("Hot Potion");
+        ShopEntry cold = shop.getEntry("Cold Potion");
+        test("reprice publishes new table", pricing.getVersion() == version + 3);
+        test("demand raises price", hot.getPrice() > 100);
+        test("no demand lowers price", cold.getPrice() < 100
+                && cold.getPrice() >= 100 * PricingEngine.MIN_FACTOR);
+        test("sell price follows table", hot.getSellPrice() == (int) Math.ceil(hot.getPrice() * 0.5));
+
+        int gold = buyer.getGold();
+        TradeResult bought = shop.tryBuyItem(buyer, "Hot Potion");
+        test("buy uses current price", bought.getGold() == hot.getPrice()
+                && buyer.getGold() == gold - hot.getPrice());
+
+        // טעינה באצווה: טבלת מחירים אחת לכל הפריטים החדשים
+        ArrayList<Item> bulk = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            bulk.add(new Potion("Bulk Potion " + i, "For sale", 10 + i,
+                    Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 25, 1));
+        }
+        long beforeBulk = pricing.getVersion();
+        shop.addItemsToShop(bulk, 2);
+        test("bulk register publishes once", pricing.getVersion() == beforeBulk + 1
+                && shop.getUniqueItemCount() == 1002
+                && shop.getEntry("Bulk Potion 999").getPrice() == 1009
+                && shop.getItemStock("Bulk Potion 999") == 2
+                && hot.getPrice() == bought.getGold());
+
+        // סיכומים רצים מול חישוב מלא
+        int expectedValue = 0;
+        int expectedCount = 0;
+        for (Item item : shop.getAvailableItems()) {
+            ShopEntry entry = shop.getEntry(item.getName());
+            expectedValue += entry.getPrice() * entry.getStock();
+            expectedCount += entry.getStock();
+        }
+        test("running totals match", shop.getTotalValue() == expectedValue
+                && shop.getTotalItemCount() == expectedCount);
+
+        // דוחות שמורים לפי גרסה
+        Map<String, String> report = shop.getInventoryReport();
+        test("report cached while unchanged", shop.getInventoryReport() == report);
+        shop.tryBuyItem(buyer, "Cold Potion");
+        Map<String, String> updated = shop.getInventoryReport();
+        test("report rebuilt after change", updated != report
+                && updated.get("Cold Potion").endsWith("Stock: 9"));
+        try {
+            updated.put("x", "y");
+            test("report is read-only", false);
+        } catch (UnsupportedOperationException e) {
+            test("report is read-only", true);
+        }
+
+        // הוספת פריטים במקביל לתמחור מחדש - בלי קיפאון בין הנעילות
+        Thread adder = new Thread(() -> {
+            for (int i = 0; i < 500; i++) {
+                shop.addItemToShop(new Potion("Race Potion " + i, "For sale", 10,
+                        Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 25, 1), 1);
+            }
+        });
+        Thread repricer = new Thread(() -> {
+            for (int i = 0; i < 500; i++) {
+                pricing.reprice();
+            }
+        });
+        adder.setDaemon(true);
+        repricer.setDaemon(true);
+        adder.start();
+        repricer.start();
+        try {
+            adder.join(10_000);
+            repricer.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        test("add and reprice do not deadlock", !adder.isAlive() && !repricer.isAlive()
+                && shop.getUniqueItemCount() == 1502
+                && shop.getEntry("Race Potion 499").getPrice() > 0);
+
+        // מוצר שאזל מהמלאי לא מוזל - אין מכירות כי אין מה למכור
+        Shop soldOut = new Shop("Sold Out Shop");
+        soldOut.addItemToShop(new Potion("Gone Potion", "Sold out", 100,
+                Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 25, 1), 0);
+        for (int round = 0; round < 3; round++) {
+            soldOut.getPricingEngine().reprice();
+        }
+        test("out of stock price does not fall", soldOut.getEntry("Gone Potion").getPrice() == 100);
+    }
+
+    private static void testMarketplace() {
+        System.out.println("\n--- Testing Marketplace ---");
+
+        Marketplace market = new Marketplace();
+        Item gem = new Armor("Gem Ring", "Shiny", 1, 50,
+                Item.ItemRarity.RARE, 2, Armor.ArmorSlot.HEAD);
+        Warrior a = new Warrior("SellerA");
+        Warrior b = new Warrior("SellerB");
+        Warrior c = new Warrior("SellerC");
+        Warrior d = new Warrior("BuyerD");
+        d.addGold(100);
+        try {
+            for (int i = 0; i < 2; i++) {
+                a.addItem(new Armor("Gem Ring", "Shiny", 1, 50,
+                        Item.ItemRarity.RARE, 2, Armor.ArmorSlot.HEAD));
+            }
+            b.addItem(new Armor("Gem Ring", "Shiny", 1, 50,
+                    Item.ItemRarity.RARE, 2, Armor.ArmorSlot.HEAD));
+            c.addItem(new Armor("Gem Ring", "Shiny", 1, 50,
+                    Item.ItemRarity.RARE, 2, Armor.ArmorSlot.HEAD));
+
+            market.placeSellOrder(a, gem, 2, 12);
+            market.placeSellOrder(b, gem, 1, 10);
+            market.placeSellOrder(c, gem, 1, 10);
+            test("sell orders escrow items", a.getInventorySize() == 0
+                    && market.getBestAsk(gem) == 10 && market.getDepth(gem, MarketOrder.Side.SELL, 10) == 2);
+
+            // קנייה של 3 ב-11: מתבצעת מול B ואז C במחיר 10, והשאר נח בספר
+            MarketOrder buy = market.placeBuyOrder(d, gem, 3, 11);
+            test("price-time priority fills", buy.getFilledQuantity() == 2
+                    && b.getGold() == 10 && c.getGold() == 10 && a.getGold() == 0);
+            test("buyer pays resting price", d.getGold() == 100 - 33 + 2
+                    && d.getInventorySize() == 2 && market.getLastTradePrice(gem) == 10);
+            test("book after match", market.getBestBid(gem) == 11 && market.getBestAsk(gem) == 12);
+
+            test("cancel refunds escrow", market.cancelOrder(buy.getId())
+                    && d.getGold() == 80 && market.getBestBid(gem) == -1
+                    && !market.cancelOrder(buy.getId()));
+
+            // שיקוי מרוקן במלאי נדחה גם כשהפריט שנשלח להזמנה חדש - וכל ההזמנה נדחית
+            Potion tonic = new Potion("Market Tonic", "Fresh", 10,
+                    Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 25, 1);
+            Potion drained = new Potion("Market Tonic", "Used", 10,
+                    Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 25, 1);
+            Warrior e = new Warrior("SellerE");
+            e.addItem(tonic);
+            e.addItem(drained);
+            e.takeDamage(50);
+            drained.use(e);
+            try {
+                market.placeSellOrder(e, tonic, 2, 5);
+                test("sell order rejects depleted escrow", false);
+            } catch (InvalidActionException rejected) {
+                test("sell order rejects depleted escrow", e.getInventorySize() == 2
+                        && market.getBestAsk(tonic) == -1);
+            }
+        } catch (Exception e) {
+            test("marketplace exception: " + e.getMessage(), false);
+        }
+    }
+
+    private static void testEconomyJournal() {
+        System.out.println("\n--- Testing Economy Journal ---");
+
+        try {
+            File file = File.createTempFile("economy", ".journal");
+            file.deleteOnExit();
+            file.delete();
+
+            Shop shop = new Shop("Journal Shop");
+            Warrior hero = new Warrior("Journal Hero");
+            try (EconomyJournal journal = EconomyJournal.open(file)) {
+                shop.setEconomyListener(journal);
+                hero.setEconomyListener(journal);
+                shop.addItemToShop(new Potion("Log Potion", "For sale", 10,
+                        Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 25, 1), 5);
+                hero.addGold(100);
+                shop.tryBuyItem(hero, "Log Potion");
+                shop.tryBuyItem(hero, "Log Potion");
+                shop.trySellItem(hero, "Log Potion");
+                journal.sync();
+                test("journal group commit", journal.getDurableCount() == journal.getRecordCount());
+            }
+
+            // שחזור מלאי החנות ויתרת הזהב מהיומן
+            HashMap<String, Integer> stock = new HashMap<>();
+            long[] heroGold = {0};
+            long events = EconomyJournal.replay(file, event -> {
+                if (event.getType() == EconomyEvent.Type.STOCK_CHANGED) {
+                    stock.merge(event.getItemName(), event.getAmount(), Integer::sum);
+                } else if (event.getActor().equals("Journal Hero")
+                        && event.getItemName() == null) {
+                    heroGold[0] = event.getValue();
+                }
+            });
+            test("journal replay events", events == 10);
+            test("journal rebuilds shop stock",
+                    stock.get("Log Potion") == shop.getItemStock("Log Potion"));
+            test("journal tracks gold balance", heroGold[0] == hero.getGold());
+
+            // קריסה באמצע כתיבה: הרשומה האחרונה פגומה
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                long last = EconomyJournal.HEADER_SIZE + (long) (10 + 3 - 1) * EconomyJournal.RECORD_SIZE;
+                raf.seek(last + 20);
+                raf.writeInt(12345);
+            }
+            try (EconomyJournal journal = EconomyJournal.open(file)) {
+                long recovered = journal.getRecordCount();
+                journal.append(EconomyEvent.Type.GOLD_ADDED, "Journal Hero", null, 1, 1);
+                test("journal recovery drops torn record", recovered == 12
+                        && journal.getRecordCount() == 13);
+            }
+            test("journal replay after recovery",
+                    EconomyJournal.replay(file, event -> { }) == 10);
+
+            // שם ארוך בעברית ממשיך בכמה רשומות ולא נחתך באמצע תו
+            String longName = "סוחר הזהב הגדול של העיר העתיקה";
+            try (EconomyJournal journal = EconomyJournal.open(file)) {
+                journal.append(EconomyEvent.Type.GOLD_ADDED, longName, null, 5, 5);
+            }
+            String[] lastActor = {null};
+            EconomyJournal.replay(file, event -> lastActor[0] = event.getActor());
+            test("journal keeps long multi-byte names", longName.equals(lastActor[0]));
+
+            // כתיבה שנכשלת במאזין לא מפילה עסקה שכבר בוצעה - השגיאה עולה ב-sync/close
+            File failing = File.createTempFile("economy-fail", ".journal");
+            failing.deleteOnExit();
+            failing.delete();
+            EconomyJournal journal = EconomyJournal.open(failing);
+            while (journal.getRecordCount() < 16 * 1024) { // ממלא את המיפוי הראשון
+                journal.append(EconomyEvent.Type.GOLD_ADDED, "Filler", null, 1, 1);
+            }
+            journal.close(); // ההגדלה הבאה תיכשל
+            Shop failShop = new Shop("Fail Shop");
+            failShop.addItemToShop(new Potion("Fail Potion", "For sale", 10,
+                    Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 25, 1), 1);
+            failShop.setEconomyListener(journal);
+            Warrior failHero = new Warrior("Fail Hero");
+            failHero.addGold(100);
+            TradeResult committed = failShop.tryBuyItem(failHero, "Fail Potion");
+            boolean syncFailed = false;
+            try {
+                journal.sync();
+            } catch (UncheckedIOException e) {
+                syncFailed = true;
+            }
+            boolean closeFailed = false;
+            try {
+                journal.close();
+            } catch (IOException e) {
+                closeFailed = true;
+            }
+            test("journal failure does not undo trade", committed.isSuccess()
+                    && failHero.getInventorySize() == 1 && failShop.getItemStock("Fail Potion") == 0);
+            test("journal failure surfaces on sync and close", syncFailed && closeFailed);
+        } catch (IOException e) {
+            test("journal exception: " + e.getMessage(), false);
+        }
+    }
+
+    private static void testRestock() {
+        System.out.println("\n--- Testing Restock ---");
+
+        Shop shop = new Shop("Restock Shop");
+        shop.addItemToShop(new Potion("Fresh Potion", "For sale", 10,
+                Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 25, 1), 2);
+        shop.addItemToShop(new Weapon("Relic Blade", "For sale", 5, 100,
+                Item.ItemRarity.LEGENDARY, 10, 20, Weapon.WeaponType.SWORD), 0);
+
+        RestockScheduler scheduler = new RestockScheduler(1);
+        try {
+            // תקופה ארוכה - מריצים ידנית
+            scheduler.scheduleShop(shop, RestockPolicy.capped(RestockPolicy.fixed(3), 4), 1, TimeUnit.HOURS);
+            RestockScheduler.Registration expiry =
+                    scheduler.schedule(shop, "Fresh Potion", RestockPolicy.expire(1), 1, TimeUnit.HOURS);
+            scheduler.runNow();
+            test("restock capped then expiry", shop.getItemStock("Fresh Potion") == 3
+                    && shop.getItemStock("Relic Blade") == 3);
+            expiry.cancel();
+            scheduler.runNow();
+            test("cancelled registration", shop.getItemStock("Fresh Potion") == 4
+                    && scheduler.getRegistrationCount() == 1);
+
+            // ביטול הרישום האחרון בתקופה מבטל גם את המשימה שלה
+            RestockScheduler.Registration lone =
+                    scheduler.schedule(shop, "Fresh Potion", RestockPolicy.fixed(1), 2, TimeUnit.HOURS);
+            int tasks = scheduler.getScheduledTaskCount();
+            lone.cancel();
+            test("empty period cancels its task", scheduler.getScheduledTaskCount() == tasks - 1);
+
+            // חידוש שנכשל מדווח למאזין
+            ArrayList<String> failures = new ArrayList<>();
+            scheduler.setFailureListener((registration, e) -> failures.add(registration.getItemName()));
+            RestockScheduler.Registration broken = scheduler.schedule(shop, "Fresh Potion",
+                    (entry, r) -> { throw new IllegalStateException("boom"); }, 1, TimeUnit.HOURS);
+            scheduler.runNow();
+            test("restock failure reported", failures.equals(List.of("Fresh Potion"))
+                    && shop.getItemStock("Relic Blade") == 4);
+            broken.cancel();
+            test("expiry never below zero", shop.removeStock("Relic Blade", 10) == 4
+                    && shop.getItemStock("Relic Blade") == 0);
+
+            // נדירות מורידה את הסיכוי
+            RestockPolicy drops = RestockPolicy.rarityWeighted(0.5, 1);
+            Random random = new Random(42);
+            int commonDrops = 0;
+            int legendaryDrops = 0;
+            for (int i = 0; i < 1000; i++) {
+                commonDrops += drops.restockAmount(shop.getEntry("Fresh Potion"), random);
+                legendaryDrops += drops.restockAmount(shop.getEntry("Relic Blade"), random);
+            }
+            test("rarity-weighted drops", commonDrops > 400 && legendaryDrops < 100);
+
+            // תזמון אמיתי על ה-executor המשותף
+            CountDownLatch ticked = new CountDownLatch(3);
+            scheduler.schedule(shop, "Relic Blade", (entry, r) -> {
+                ticked.countDown();
+                return 1;
+            }, 10, TimeUnit.MILLISECONDS);
+            test("scheduled restock runs", ticked.await(2, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            test("restock interrupted", false);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    private static void testPriceIndex() {
+        System.out.println("\n--- Testing Price Index ---");
+
+        ArrayList<Item> items = new ArrayList<>();
+        for (int price = 100; price >= 10; price -= 10) {
+            items.add(new Potion("Potion " + price, "", price,
+                    Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 10, 1));
+        }
+        PriceIndex index = new PriceIndex(items);
+        test("PriceIndex atMost", index.atMost(35).size() == 3
+                && index.atMost(35).get(0).getBuyPrice() == 10);
+        test("PriceIndex inRange", index.inRange(30, 60).size() == 4
+                && index.inRange(60, 30).isEmpty());
+        test("PriceIndex page", index.page(100, 8, 5).size() == 2
+                && index.page(100, 20, 5).isEmpty());
+        test("filterAffordableItems via index",
+                GameUtils.filterAffordableItems(index, 50).size()
+                        == GameUtils.filterAffordableItems(items, 50).size());
+
+        // אינדקס המלאי נבנה מחדש רק אחרי שינוי
+        Warrior owner = new Warrior("Indexer");
+        try {
+            owner.addItem(items.get(0));
+            PriceIndex first = owner.getInventoryPriceIndex();
+            test("inventory index cached", owner.getInventoryPriceIndex() == first);
+            owner.addItem(items.get(9));
+            test("inventory index refreshed", owner.getInventoryPriceIndex() != first
+                    && owner.getInventoryPriceIndex().atMost(10).size() == 1);
+        } catch (InventoryFullException e) {
+            test("inventory index exception", false);
+        }
+
+        // חנות: רק פריטים זמינים, מהזול ליקר
+        Shop shop = new Shop("Indexed Shop");
+        for (Item item : items) {
+            shop.addItemToShop(item, 1);
+        }
+        shop.removeStock("Potion 20", 1);
+        ArrayList<Item> affordable = shop.getAffordableItems(40);
+        test("shop affordable skips sold out", affordable.size() == 3
+                && affordable.get(1).getName().equals("Potion 30"));
+        test("shop price range page",
+                shop.getAffordableItems(100, 2, 3).get(0).getName().equals("Potion 40")
+                        && shop.getItemsInPriceRange(90, 100).size() == 2);
+    }
+
+    private static void testItemRegistry() {
+        System.out.println("\n--- Testing Item Registry ---");
+
+        Potion first = new Potion("Registry Potion", "Heals", 30, Item.ItemRarity.RARE,
+                Potion.PotionType.HEALTH, 20, 3);
+        Potion second = new Potion("Registry Potion", "Heals", 30, Item.ItemRarity.RARE,
+                Potion.PotionType.HEALTH, 20, 3);
+        test("definition interned", first.getDefinition() == second.getDefinition());
+        test("registry lookup by id",
+                ItemRegistry.get(first.getDefinition().getId()) == first.getDefinition());
+
+        // הגדרה שונה עם אותו שם ונדירות - אותו keyId, אז הפריטים שווים
+        Potion stronger = new Potion("Registry Potion", "Heals more", 30, Item.ItemRarity.RARE,
+                Potion.PotionType.HEALTH, 40, 3);
+        test("different definition, same key", stronger.getDefinition() != first.getDefinition()
+                && stronger.equals(first) && stronger.hashCode() == first.hashCode());
+        Potion common = new Potion("Registry Potion", "Heals", 30, Item.ItemRarity.COMMON,
+                Potion.PotionType.HEALTH, 20, 3);
+        test("rarity changes key", !common.equals(first));
+        test("dense definition ids", stronger.getDefinition().getId()
+                == first.getDefinition().getId() + 1
+                && ItemRegistry.size() > stronger.getDefinition().getId());
+
+        // מצב משתנה נשאר במופע
+        Warrior drinker = new Warrior("Drinker");
+        drinker.takeDamage(50);
+        first.use(drinker);
+        test("remaining uses per instance", first.getRemainingUses() == 2
+                && second.getRemainingUses() == 3 && !first.isSellable() && second.isSellable());
+
+        Weapon fromDefinition = new Weapon(ItemRegistry.weapon("Registry Blade", "", 5, 40,
+                Item.ItemRarity.COMMON, 4, 8, Weapon.WeaponType.SWORD));
+        test("construct from definition", fromDefinition.getMaxDamage() == 8
+                && fromDefinition.getBuyPrice() == 40);
+        boolean rejected = false;
+        try {
+            new Armor(fromDefinition.getDefinition());
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        test("definition category checked", rejected);
+    }
+
+    private static void testItemCatalog() {
+        System.out.println("\n--- Testing Item Catalog ---");
+
+        String text = "# test catalog\n"
+                + "WEAPON|Catalog Sword|sharp|5|10|COMMON|2|5|SWORD\n"
+                + "\n"
+                + "ARMOR|Catalog Helm|shiny|3|40|rare|8|HEAD\n"
+                + "POTION|Catalog Tonic|heals|20|COMMON|HEALTH|30|2\n";
+        try {
+            ItemCatalog catalog = ItemCatalog.parse(new StringReader(text));
+            test("catalog parses all lines", catalog.size() == 3
+                    && catalog.getDefinitions().get(1).getName().equals("Catalog Helm"));
+            Item sword = catalog.newItem("Catalog Sword");
+            test("catalog weapon stats", sword instanceof Weapon
+                    && ((Weapon) sword).getMaxDamage() == 5 && sword.getWeight() == 5);
+            test("catalog enum case-insensitive",
+                    catalog.get("Catalog Helm").getRarity() == Item.ItemRarity.RARE);
+            test("catalog shares registry definitions", sword.getDefinition()
+                    == new Weapon("Catalog Sword", "sharp", 5, 10, Item.ItemRarity.COMMON,
+                    2, 5, Weapon.WeaponType.SWORD).getDefinition());
+            Potion tonic = (Potion) catalog.newItem("Catalog Tonic");
+            test("catalog new instances", tonic != catalog.newItem("Catalog Tonic")
+                    && tonic.getRemainingUses() == 2);
+        } catch (IOException e) {
+            test("catalog parse: " + e.getMessage(), false);
+        }
+
+        String message = null;
+        try {
+            ItemCatalog.parse(new StringReader("WEAPON|Bad|x|5|ten|COMMON|1|2|SWORD\n"));
+        } catch (IOException e) {
+            message = e.getMessage();
+        }
+        test("catalog error reports line", message != null && message.contains("line 1"));
+
+        // טווח נזק הפוך נדחה עם מספר השורה
+        message = null;
+        try {
+            ItemCatalog.parse(new StringReader("# weapons\nWEAPON|Backwards|x|5|10|COMMON|9|2|SWORD\n"));
+        } catch (IOException e) {
+            message = e.getMessage();
+        }
+        test("catalog rejects min > max damage", message != null && message.contains("line 2")
+                && message.contains("damage range"));
+
+        try {
+            // קובץ מקומפל עם 100k פריטים
+            StringBuilder big = new StringBuilder();
+            for (int i = 0; i < 100_000; i++) {
+                big.append("POTION|Bulk Potion ").append(i).append("|bulk|")
+                        .append(10 + i % 50).append("|COMMON|MANA|").append(i % 40).append("|1\n");
+            }
+            ItemCatalog bulk = ItemCatalog.parse(new StringReader(big.toString()));
+            File compiled = File.createTempFile("items", ".catalog");
+            compiled.deleteOnExit();
+            bulk.writeCompiled(compiled);
+            long start = System.nanoTime();
+            ItemCatalog loaded = ItemCatalog.load(compiled);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("  (compiled 100k catalog loaded in " + millis + " ms)");
+            test("compiled catalog round trip", loaded.size() == 100_000
+                    && loaded.get("Bulk Potion 777").getPotency() == 777 % 40
+                    && loaded.get("Bulk Potion 777") == bulk.get("Bulk Potion 777"));
+
+            // טעינה מחדש כשהקובץ משתנה
+            File source = File.createTempFile("items", ".txt");
+            source.deleteOnExit();
+            Files.writeString(source.toPath(), "WEAPON|Reload Blade|v1|5|10|COMMON|1|2|DAGGER\n");
+            CatalogReloader reloader = new CatalogReloader(source);
+            AtomicInteger reloads = new AtomicInteger();
+            reloader.setReloadListener(catalog -> reloads.incrementAndGet());
+            test("reload skips unchanged file", !reloader.reloadIfChanged());
+            Files.writeString(source.toPath(), "WEAPON|Reload Blade|v2|5|10|COMMON|3|9|DAGGER\n"
+                    + "ARMOR|Reload Boots|new|2|15|COMMON|4|BOOTS\n");
+            source.setLastModified(source.lastModified() + 2000);
+            test("reload picks up changes", reloader.reloadIfChanged() && reloads.get() == 1
+                    && reloader.getCatalog().size() == 2
+                    && reloader.getCatalog().get("Reload Blade").getMaxDamage() == 9);
+            Files.writeString(source.toPath(), "WEAPON|Broken|x\n");
+            source.setLastModified(source.lastModified() + 4000);
+            test("failed reload keeps catalog", !reloader.reloadIfChanged()
+                    && reloader.getLastError() != null && reloader.getCatalog().size() == 2);
+        } catch (IOException e) {
+            test("catalog file: " + e.getMessage(), false);
+        }
     }
 
     // ============================================================
@@ -412,6 +1301,351 @@ public class TestProject {
         } catch (UnsupportedOperationException e) {
             testNotImplemented("DungeonMap getExplorationProgress");
         }
+
+        // Test danger-level index
+        try {
+            test("getLocationsByDangerLevel",
+                    map.getLocationsByDangerLevel().get(2).size() == 1);
+            test("getLocationsInDangerRange",
+                    map.getLocationsInDangerRange(2, 3).size() == 2);
+            ArrayList<GameLocation> nearby =
+                    map.getLocationsInDangerRange("entrance", 2, 3, 1);
+            test("getLocationsInDangerRange within hops",
+                    nearby.size() == 1 && nearby.get(0).getId().equals("hall"));
+        } catch (InvalidActionException e) {
+            test("getLocationsInDangerRange (invalid)", false);
+        }
+
+        // Test connectivity
+        try {
+            map.addLocation(new GameLocation("island", "Island", "Unreachable", 1));
+            test("isReachable", map.isReachable("entrance", "treasure")
+                    && !map.isReachable("entrance", "island"));
+            test("getComponentCount", map.getComponentCount() == 2);
+            test("getLocationIdsWithinHops",
+                    map.getLocationIdsWithinHops("entrance", 1).size() == 2
+                            && map.getLocationIdsWithinHops("entrance", 2).contains("treasure"));
+        } catch (InvalidActionException e) {
+            test("getLocationIdsWithinHops (invalid)", false);
+        }
+
+        // Test loot index
+        treasure.addLoot(new Weapon("Rare Blade", "Test", 4, 100,
+                Item.ItemRarity.RARE, 10, 20, Weapon.WeaponType.SWORD));
+        GameLocation nearest = map.findNearestLoot(Item.ItemCategory.WEAPON, Item.ItemRarity.RARE);
+        test("findNearestLoot", nearest != null && nearest.getId().equals("treasure"));
+        test("findNearestLoot rarity filter",
+                map.findNearestLoot(Item.ItemCategory.WEAPON, Item.ItemRarity.EPIC) == null);
+        treasure.collectAllLoot();
+        test("loot index updated on collect",
+                map.getLootIndex().countLoot(null, Item.ItemRarity.COMMON) == 0);
+    }
+
+    private static void testChunkedDungeonMap() {
+        System.out.println("\n--- Testing Chunked Dungeon Map ---");
+
+        DungeonMap map = new DungeonMap();
+        for (int i = 0; i < 6; i++) {
+            map.addLocation(new GameLocation("room" + i, "Room " + i, "Corridor room", i % 3));
+        }
+        try {
+            for (int i = 0; i < 5; i++) {
+                map.connectLocations("room" + i, "room" + (i + 1));
+            }
+            map.getLocation("room4").addLoot(new Potion("Chunk Potion", "Test", 10,
+                    Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 10, 1));
+
+            File file = File.createTempFile("dungeon", ".chunks");
+            file.deleteOnExit();
+            map.saveChunked(file, 1);
+
+            try (DungeonMap chunked = DungeonMap.openChunked(file, 1)) {
+                test("openChunked total locations", chunked.getTotalLocations() == 6);
+                test("openChunked lazy", chunked.getResidentChunkCount() == 0);
+                for (int i = 1; i < 6; i++) {
+                    chunked.moveTo("room" + i);
+                }
+                test("chunked moveTo evicts", chunked.getResidentChunkCount() == 1);
+                test("chunked state survives eviction",
+                        chunked.getLocation("room2").isVisited()
+                                && chunked.getLocation("room4").hasLoot());
+                test("chunked exploration progress", chunked.getExplorationProgress() == 1.0);
+                test("chunked danger index",
+                        chunked.getLocationsWithDangerLevel(2).size() == 2);
+                test("chunked components", chunked.isReachable("room0", "room5"));
+                test("chunked loot index",
+                        chunked.getLootIndex().hasLoot("room4", null, Item.ItemRarity.COMMON));
+            }
+
+            // סריקת BFS על כל המפה לא טוענת את כולה - התקציב נאכף גם באמצע הפעולה
+            DungeonMap corridor = new DungeonMap();
+            for (int i = 0; i < 20; i++) {
+                corridor.addLocation(new GameLocation("hall" + i, "Hall " + i, "Long hall", 1));
+                if (i > 0) {
+                    corridor.connectLocations("hall" + (i - 1), "hall" + i);
+                }
+            }
+            File corridorFile = File.createTempFile("corridor", ".chunks");
+            corridorFile.deleteOnExit();
+            corridor.saveChunked(corridorFile, 1);
+            long wholeMap;
+            try (DungeonMap unbounded = DungeonMap.openChunked(corridorFile, Long.MAX_VALUE)) {
+                unbounded.getLocationIdsWithinHops("hall0", 19);
+                wholeMap = unbounded.getResidentBytes();
+            }
+            try (DungeonMap bounded = DungeonMap.openChunked(corridorFile, 1)) {
+                test("chunked BFS sees whole map",
+                        bounded.getLocationIdsWithinHops("hall0", 19).size() == 20);
+                test("chunked BFS respects budget mid-scan",
+                        bounded.getPeakResidentBytes() < wholeMap / 2);
+            }
+
+            // ביקור בכל האזורים משנה את כולם - השינויים נכתבים לקובץ ולא נצברים בזיכרון
+            try (DungeonMap visited = DungeonMap.openChunked(corridorFile, 1)) {
+                for (int i = 1; i < 20; i++) {
+                    visited.moveTo("hall" + i);
+                }
+                test("chunked changes spill to disk", visited.getSpilledChunkCount() >= 18
+                        && visited.getPeakResidentBytes() < wholeMap / 2
+                        && visited.getResidentChunkCount() == 1);
+                test("chunked spilled state reloads", visited.getLocation("hall3").isVisited()
+                        && visited.getExplorationProgress() == 1.0);
+            }
+        } catch (Exception e) {
+            test("chunked map exception: " + e.getMessage(), false);
+        }
+    }
+
+    private static void testMapFile() {
+        System.out.println("\n--- Testing Map File ---");
+
+        DungeonMap map = new DungeonMap();
+        map.addLocation(new GameLocation("start", "Start", "Test", 1));
+        map.addLocation(new GameLocation("middle", "Middle", "Test", 2));
+        map.addLocation(new GameLocation("boss", "Boss", "Test", 5));
+        try {
+            map.connectLocations("start", "middle");
+            map.connectLocations("middle", "boss");
+            map.setBossLocation("boss");
+            map.getLocation("middle").addLoot(new Armor("File Helmet", "Test", 2, 40,
+                    Item.ItemRarity.UNCOMMON, 5, Armor.ArmorSlot.HEAD));
+
+            File file = File.createTempFile("dungeon", ".map");
+            file.deleteOnExit();
+            map.save(file);
+            DungeonMap loaded = DungeonMap.load(file);
+            test("MapFile round trip", loaded.getTotalLocations() == 3
+                    && loaded.getBossLocationId().equals("boss")
+                    && loaded.getLocation("boss").hasMaster()
+                    && loaded.getLocation("middle").hasLoot()
+                    && !loaded.getLocation("middle").isVisited());
+            test("MapFile connections", loaded.isReachable("start", "boss"));
+
+            // היסט פגום בטבלת המחרוזות נדחה כ-IOException ולא כחריגת זמן ריצה
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.seek(48 + 4);
+                raf.writeInt(Integer.MAX_VALUE);
+            }
+            boolean corruptRejected = false;
+            try {
+                DungeonMap.load(file);
+            } catch (IOException e) {
+                corruptRejected = true;
+            }
+            test("MapFile rejects corrupt offsets", corruptRejected);
+
+            // מפה שהבוס בה לא נגיש לא נטענת
+            map.addLocation(new GameLocation("boss", "Boss", "Test", 5));
+            map.save(file);
+            boolean rejected = false;
+            try {
+                DungeonMap.load(file);
+            } catch (IOException e) {
+                rejected = true;
+            }
+            test("MapFile validation", rejected);
+        } catch (Exception e) {
+            test("map file exception: " + e.getMessage(), false);
+        }
+    }
+
+    private static DungeonMap buildSaveTestMap() throws InvalidActionException {
+        DungeonMap map = new DungeonMap();
+        map.addLocation(new GameLocation("start", "Start", "Test", 0));
+        map.addLocation(new GameLocation("middle", "Middle", "Test", 2));
+        map.addLocation(new GameLocation("boss", "Boss", "Test", 5));
+        map.connectLocations("start", "middle");
+        map.connectLocations("middle", "boss");
+        map.setBossLocation("boss");
+        map.getLocation("middle").addLoot(new Potion("Save Potion", "Test", 10,
+                Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 20, 2));
+        return map;
+    }
+
+    private static Shop buildSaveTestShop() {
+        Shop shop = new Shop("Save Shop");
+        shop.addItemToShop(new Weapon("Save Sword", "Test", 5, 10, Item.ItemRarity.COMMON,
+                2, 5, Weapon.WeaponType.SWORD), 6);
+        shop.addItemToShop(new Armor("Save Helmet", "Test", 2, 40, Item.ItemRarity.UNCOMMON,
+                5, Armor.ArmorSlot.HEAD), 3);
+        return shop;
+    }
+
+    private static void testSaveGame() {
+        System.out.println("\n--- Testing Save Game ---");
+
+        try {
+            DungeonMap map = buildSaveTestMap();
+            Shop shop = buildSaveTestShop();
+            Warrior player = new Warrior("Saver");
+            Weapon axe = new Weapon("Save Axe", "Test", 4, 30, Item.ItemRarity.RARE,
+                    3, 8, Weapon.WeaponType.AXE);
+            Armor helmet = new Armor("Save Helmet", "Test", 2, 40, Item.ItemRarity.UNCOMMON,
+                    5, Armor.ArmorSlot.HEAD);
+            player.addItem(axe);
+            player.addItem(helmet);
+            player.equipWeapon(axe);
+            player.equipArmor(helmet);
+            player.addItem(new Potion("Save Potion", "Test", 10,
+                    Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 20, 2));
+            player.addGold(75);
+            player.gainExperience(130);
+            player.takeDamage(20);
+
+            File file = File.createTempFile("savegame", ".dat");
+            file.deleteOnExit();
+            SaveGame saveGame = new SaveGame(file);
+            saveGame.begin(map, shop);
+            saveGame.save(player, map, shop);
+            // עולם שלא השתנה - רק הדמות ומצב המפה
+            test("Full save writes only player and map state", saveGame.getLastRecordCount() == 2);
+
+            // שינויים: תנועה, איסוף שלל, מכירה מהחנות
+            map.moveTo("middle");
+            ArrayList<Item> collected = map.getCurrentLocation().collectAllLoot();
+            shop.removeStock("Save Sword", 2);
+            test("Autosave writes only changed records",
+                    saveGame.autosave(player, map, shop) == 3);
+            test("Autosave with no changes writes nothing",
+                    saveGame.autosave(player, map, shop) == 0);
+            player.addItem(collected.get(0));
+            test("Autosave after player change writes one record",
+                    saveGame.autosave(player, map, shop) == 1);
+
+            DungeonMap loadedMap = buildSaveTestMap();
+            Shop loadedShop = buildSaveTestShop();
+            Character loaded = new SaveGame(file).load(loadedMap, loadedShop);
+            test("Save round trip: character", loaded instanceof Warrior
+                    && loaded.getName().equals("Saver")
+                    && loaded.getLevel() == player.getLevel()
+                    && loaded.getExperience() == player.getExperience()
+                    && loaded.getGold() == 75
+                    && loaded.getCurrentHealth() == player.getCurrentHealth()
+                    && ((Warrior) loaded).getRage() == player.getRage());
+            test("Save round trip: equipment and inventory",
+                    loaded.getEquippedWeapon() != null
+                    && loaded.getEquippedWeapon().getName().equals("Save Axe")
+                    && loaded.getEquippedArmor().containsKey(Armor.ArmorSlot.HEAD)
+                    && loaded.getInventorySize() == 2);
+            test("Save round trip: map", loadedMap.getCurrentLocationId().equals("middle")
+                    && loadedMap.getLocation("middle").isVisited()
+                    && !loadedMap.getLocation("middle").hasLoot()
+                    && loadedMap.isReachable("start", "boss"));
+            test("Save round trip: shop", loadedShop.getItemStock("Save Sword") == 4
+                    && loadedShop.getItemStock("Save Helmet") == 3);
+
+            // רשומה שנקטעה באמצע נחתכת, והשמירה הקודמת נשארת
+            long length = file.length();
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.seek(length);
+                raf.write(new byte[] {0, 0, 0, 40, 1, 2, 3});
+            }
+            SaveGame recovered = new SaveGame(file);
+            DungeonMap recoveredMap = buildSaveTestMap();
+            Shop recoveredShop = buildSaveTestShop();
+            Character afterCrash = recovered.load(recoveredMap, recoveredShop);
+            test("Save torn tail recovery", afterCrash.getGold() == 75
+                    && file.length() == length);
+
+            // שמירה מצטברת אחרי טעינה ממשיכה מאותו קובץ
+            afterCrash.addGold(5);
+            test("Autosave after load appends",
+                    recovered.autosave(afterCrash, recoveredMap, recoveredShop) == 1
+                    && new SaveGame(file).load(buildSaveTestMap(), buildSaveTestShop()).getGold() == 80);
+
+            Files.write(file.toPath(), new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+            boolean rejected = false;
+            try {
+                new SaveGame(file).load(buildSaveTestMap(), buildSaveTestShop());
+            } catch (IOException e) {
+                rejected = true;
+            }
+            test("Save file validation", rejected);
+        } catch (Exception e) {
+            test("save game exception: " + e.getMessage(), false);
+        }
+    }
+
+    private static void testMultiplayerMap() {
+        System.out.println("\n--- Testing Multiplayer Map ---");
+
+        DungeonMap map = new DungeonMap();
+        map.addLocation(new GameLocation("a", "Room A", "Test", 1));
+        map.addLocation(new GameLocation("b", "Room B", "Test", 1));
+        try {
+            map.connectLocations("a", "b");
+            int players = 200;
+            for (int i = 0; i < players; i++) {
+                map.placePlayer("p" + i, "a");
+            }
+            test("placePlayer occupancy", map.getOccupancy("a") == players);
+
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                final int offset = t;
+                threads[t] = new Thread(() -> {
+                    try {
+                        for (int round = 0; round < 50; round++) {
+                            for (int i = offset; i < players; i += threads.length) {
+                                String target = round % 2 == 0 ? "b" : "a";
+                                map.moveTo("p" + i, target);
+                            }
+                        }
+                    } catch (InvalidActionException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            test("concurrent moveTo occupancy",
+                    map.getOccupancy("a") == players && map.getOccupancy("b") == 0);
+            test("getPlayersAt", map.getPlayersAt("a").contains("p7"));
+
+            // אותו שחקן מוזז מכמה threads במקביל - בסוף הוא בחדר אחד בלבד
+            Thread[] racers = new Thread[4];
+            for (int t = 0; t < racers.length; t++) {
+                racers[t] = new Thread(() -> {
+                    for (int round = 0; round < 500; round++) {
+                        try {
+                            map.moveTo("p0", round % 2 == 0 ? "b" : "a");
+                        } catch (InvalidActionException e) {
+                            // thread אחר כבר הזיז אותו ליעד
+                        }
+                    }
+                });
+                racers[t].start();
+            }
+            for (Thread racer : racers) {
+                racer.join();
+            }
+            test("same-player moveTo keeps one room",
+                    map.getOccupancy("a") + map.getOccupancy("b") == players);
+        } catch (Exception e) {
+            test("multiplayer exception: " + e.getMessage(), false);
+        }
     }
 
     // ============================================================
@@ -479,6 +1713,201 @@ public class TestProject {
         }
     }
 
+    private static void testKeySort() {
+        System.out.println("\n--- Testing Key Sort ---");
+
+        // מפתחות קיצוניים - השוואה בחיסור הייתה גולשת כאן
+        ArrayList<Integer> extremes = new ArrayList<>(List.of(
+                Integer.MAX_VALUE, -5, Integer.MIN_VALUE, 0, Integer.MAX_VALUE - 1));
+        KeySort.sortByKey(extremes, value -> value);
+        test("key sort no overflow", extremes.equals(List.of(
+                Integer.MIN_VALUE, -5, 0, Integer.MAX_VALUE - 1, Integer.MAX_VALUE)));
+        KeySort.sortByKeyDescending(extremes, value -> value);
+        test("key sort descending", extremes.get(0) == Integer.MAX_VALUE
+                && extremes.get(4) == Integer.MIN_VALUE);
+
+        Random random = new Random(42);
+        ArrayList<Item> pool = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            pool.add(new Potion("Sorted Potion " + i, "", 1 + random.nextInt(500),
+                    Item.ItemRarity.values()[random.nextInt(5)], Potion.PotionType.MANA, 5, 1));
+        }
+        ArrayList<Item> items = new ArrayList<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            items.add(pool.get(random.nextInt(pool.size())));
+        }
+        ArrayList<Item> expected = new ArrayList<>(items);
+
+        long start = System.nanoTime();
+        expected.sort(Comparator.comparingInt(Item::getBuyPrice));
+        long listSort = System.nanoTime() - start;
+        start = System.nanoTime();
+        GameUtils.sortItemsByPrice(items);
+        long keySort = System.nanoTime() - start;
+        System.out.printf("  (1M items: List.sort %d ms, key sort %d ms)%n",
+                listSort / 1_000_000, keySort / 1_000_000);
+        test("key sort matches stable List.sort", items.equals(expected));
+
+        ArrayList<Item> byRarity = new ArrayList<>(pool);
+        ArrayList<Item> rarityExpected = new ArrayList<>(pool);
+        rarityExpected.sort(Comparator.comparingInt(item -> item.getRarity().ordinal()));
+        GameUtils.sortItemsByRarity(byRarity);
+        test("rarity counting sort stable", byRarity.equals(rarityExpected));
+
+        ArrayList<Character> party = new ArrayList<>();
+        Warrior veteran = new Warrior("Veteran");
+        veteran.gainExperience(500);
+        party.add(new Mage("Novice"));
+        party.add(veteran);
+        GameUtils.sortCharactersByLevel(party);
+        test("sortCharactersByLevel high to low", party.get(0) == veteran);
+    }
+
+    private static void testItemQuery() {
+        System.out.println("\n--- Testing Item Query ---");
+
+        Random random = new Random(7);
+        ArrayList<Item> pool = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            pool.add(new Weapon("Query Blade " + i, "", 1 + random.nextInt(10), 1 + random.nextInt(300),
+                    Item.ItemRarity.values()[random.nextInt(5)], 1, 2, Weapon.WeaponType.DAGGER));
+        }
+        ArrayList<Item> small = new ArrayList<>(pool);
+        ArrayList<Item> large = new ArrayList<>();
+        for (int i = 0; i < ItemQuery.PARALLEL_THRESHOLD * 3; i++) {
+            large.add(pool.get(random.nextInt(pool.size())));
+        }
+
+        for (ArrayList<Item> items : List.of(small, large)) {
+            String size = items == small ? " (sequential)" : " (parallel)";
+            ArrayList<Item> chained = GameUtils.filterAffordableItems(GameUtils.filterLightItems(
+                    GameUtils.filterByRarity(items, Item.ItemRarity.UNCOMMON), 5), 150);
+            ItemQuery query = GameUtils.query(items)
+                    .where(GameUtils.rarityAtLeast(Item.ItemRarity.UNCOMMON))
+                    .where(GameUtils.maxWeight(5))
+                    .where(GameUtils.affordable(150));
+            test("query matches chained filters" + size, query.toList().equals(chained));
+            test("query count" + size, query.count() == chained.size());
+            test("query limit" + size, query.limit(3).equals(chained.subList(0, 3)));
+
+            ArrayList<Item> sorted = new ArrayList<>(chained);
+            sorted.sort(Comparator.comparingInt(Item::getBuyPrice).reversed());
+            ArrayList<Item> top = query.topK(4, Comparator.comparingInt(Item::getBuyPrice));
+            test("query topK" + size, top.size() == 4
+                    && top.get(0).getBuyPrice() == sorted.get(0).getBuyPrice()
+                    && top.get(3).getBuyPrice() == sorted.get(3).getBuyPrice());
+        }
+        AtomicInteger checked = new AtomicInteger();
+        ArrayList<Item> firstTwo = GameUtils.query(large).where(item -> {
+            checked.incrementAndGet();
+            return true;
+        }).limit(2);
+        test("query limit stops early", firstTwo.size() == 2 && checked.get() == 2
+                && GameUtils.query(small).first() == small.get(0));
+    }
+
+    private static void testTopK() {
+        System.out.println("\n--- Testing Top-K ---");
+
+        // שלל שמגיע אחד-אחד
+        TopK<Integer> drops = TopK.of(3, Comparator.naturalOrder());
+        int[] incoming = {5, 1, 9, 3, 9, 7, 2};
+        for (int value : incoming) {
+            drops.offer(value);
+        }
+        test("topK incremental", drops.toSortedList().equals(List.of(9, 9, 7))
+                && drops.peekWorst() == 7 && !drops.offer(6));
+        TopK<Integer> other = TopK.<Integer>of(3, Comparator.naturalOrder()).offerAll(List.of(8, 10));
+        test("topK merge", drops.merge(other).toSortedList().equals(List.of(10, 9, 9)));
+
+        ArrayList<Item> items = new ArrayList<>();
+        items.add(new Weapon("Heavy Club", "", 20, 100, Item.ItemRarity.COMMON, 1, 2,
+                Weapon.WeaponType.AXE));
+        items.add(new Weapon("Gem Dagger", "", 1, 60, Item.ItemRarity.COMMON, 1, 2,
+                Weapon.WeaponType.DAGGER));
+        items.add(new Armor("Silk Gloves", "", 2, 50, Item.ItemRarity.COMMON, 1,
+                Armor.ArmorSlot.GLOVES));
+        items.add(new Armor("Iron Plate", "", 10, 80, Item.ItemRarity.COMMON, 5,
+                Armor.ArmorSlot.CHEST));
+        ArrayList<Item> valuable = GameUtils.findTopItemsByScore(items, 2,
+                item -> (double) item.getBuyPrice() / item.getWeight());
+        test("top items by price-to-weight", valuable.size() == 2
+                && valuable.get(0).getName().equals("Gem Dagger")
+                && valuable.get(1).getName().equals("Silk Gloves"));
+        test("top items by comparator", GameUtils.findTopItems(items, 10,
+                Comparator.comparingInt(Item::getBuyPrice)).get(0).getName().equals("Heavy Club"));
+
+        ArrayList<Character> party = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Warrior member = new Warrior("Member " + i);
+            member.takeDamage(i * 10);
+            party.add(member);
+        }
+        ArrayList<Character> healthiest = GameUtils.findTopCharacters(party, 2,
+                Comparator.comparingInt(Character::getCurrentHealth));
+        test("top characters", healthiest.size() == 2
+                && healthiest.get(0) == party.get(0) && healthiest.get(1) == party.get(1));
+    }
+
+    private static void testItemColumns() {
+        System.out.println("\n--- Testing Item Columns ---");
+
+        Random random = new Random(11);
+        ArrayList<Item> pool = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            pool.add(new Armor("Column Armor " + i, "", 1 + random.nextInt(20), 1 + random.nextInt(400),
+                    Item.ItemRarity.values()[random.nextInt(5)], 1, Armor.ArmorSlot.BOOTS));
+        }
+        ArrayList<Item> items = new ArrayList<>();
+        for (int i = 0; i < 100_003; i++) {
+            items.add(pool.get(random.nextInt(pool.size())));
+        }
+        ItemColumns columns = new ItemColumns(items);
+
+        long weight = 0;
+        long value = 0;
+        long rareValue = 0;
+        long rareWeight = 0;
+        int affordable = 0;
+        int[] histogram = new int[5];
+        for (Item item : items) {
+            weight += item.getWeight();
+            value += item.getBuyPrice();
+            histogram[item.getRarity().ordinal()]++;
+            if (item.getBuyPrice() <= 250) {
+                affordable++;
+            }
+            if (item.getRarity().ordinal() >= Item.ItemRarity.RARE.ordinal()) {
+                rareValue += item.getBuyPrice();
+                rareWeight += item.getWeight();
+            }
+        }
+        test("columns totals", columns.size() == items.size()
+                && GameUtils.calculateTotalWeight(columns) == weight
+                && GameUtils.calculateTotalValue(columns) == value);
+        test("columns rarity histogram", Arrays.equals(columns.rarityHistogram(), histogram));
+        test("columns affordable count", columns.countAffordable(250) == affordable
+                && columns.countAffordable(Integer.MAX_VALUE) == items.size()
+                && columns.countAffordable(-1) == 0);
+        test("columns filtered sums", columns.totalValue(Item.ItemRarity.RARE) == rareValue
+                && columns.totalWeight(Item.ItemRarity.RARE) == rareWeight
+                && columns.totalValue(Item.ItemRarity.COMMON) == value);
+        test("columns row access", columns.getDefinition(7) == items.get(7).getDefinition()
+                && columns.getRarity(7) == items.get(7).getRarity());
+
+        Warrior owner = new Warrior("Column Owner");
+        try {
+            owner.addItem(pool.get(0));
+            ItemColumns first = owner.getInventoryColumns();
+            owner.addItem(pool.get(1));
+            test("inventory columns refreshed", owner.getInventoryColumns() != first
+                    && owner.getInventoryColumns().totalWeight()
+                    == GameUtils.calculateTotalWeight(owner.getInventory()));
+        } catch (InventoryFullException e) {
+            test("inventory columns exception", false);
+        }
+    }
+
     // ============================================================
     // Utility Methods
     // ============================================================
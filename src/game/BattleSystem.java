@@ -266,13 +266,7 @@ public class BattleSystem {
             throws ItemNotFoundException {
         
         // 1. חפש את הפריט במלאי
-        Item currentItem;
-        try {
-            currentItem = actor.removeItem(itemName);
-        }catch (Exception e)
-        {
-            throw new ItemNotFoundException(itemName);
-        }
+        Item currentItem = actor.removeItem(itemName);
         // 2. אם זה Potion, השתמש בו
 
         if (currentItem instanceof Potion)
@@ -0,0 +1,116 @@
+package game;
+
+import model.items.ItemCatalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * מחזיק את קטלוג הפריטים הנוכחי וטוען אותו מחדש כשהקובץ משתנה, בלי לעצור את המשחק.
+ *
+ * הקטלוג מתפרסם דרך שדה volatile, כך שקוראים תמיד רואים קטלוג שלם (הישן או החדש).
+ * פריטים שכבר נוצרו שומרים על ההגדרות שלהם; רק פריטים חדשים מקבלים את הנתונים החדשים.
+ * טעינה שנכשלה משאירה את הקטלוג הקודם.
+ */
+public class CatalogReloader {
+
+    private final File file;
+    private volatile ItemCatalog catalog;
+    private volatile Consumer<ItemCatalog> listener;
+    private volatile String lastError;
+
+    // זיהוי שינוי בקובץ (נגיש רק בתוך reloadIfChanged)
+    private long loadedModified;
+    private long loadedLength;
+
+    /**
+     * טוען את הקטלוג בפעם הראשונה.
+     *
+     * @param file קובץ הקטלוג (טקסט או מקומפל)
+     * @throws IOException אם הטעינה הראשונה נכשלה
+     */
+    public CatalogReloader(File file) throws IOException {
+        this.file = file;
+        this.loadedModified = file.lastModified();
+        this.loadedLength = file.length();
+        this.catalog = ItemCatalog.load(file);
+    }
+
+    /**
+     * @return הקטלוג הנוכחי
+     */
+    public ItemCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * @param listener נקרא אחרי כל טעינה מחדש מוצלחת, עם הקטלוג החדש
+     */
+    public void setReloadListener(Consumer<ItemCatalog> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * טוען מחדש אם זמן השינוי או הגודל של הקובץ השתנו מאז הטעינה האחרונה.
+     *
+     * @return true אם נטען קטלוג חדש
+     */
+    public synchronized boolean reloadIfChanged() {
+        long modified = file.lastModified();
+        long length = file.length();
+        if (modified == loadedModified && length == loadedLength) {
+            return false;
+        }
+        return reload(modified, length);
+    }
+
+    /**
+     * טוען מחדש בלי לבדוק אם הקובץ השתנה.
+     *
+     * @return true אם הטעינה הצליחה
+     */
+    public synchronized boolean reload() {
+        return reload(file.lastModified(), file.length());
+    }
+
+    private boolean reload(long modified, long length) {
+        // 1. גם כשהטעינה נכשלת זוכרים את הגרסה, כדי לא לנסות שוב עד השינוי הבא
+        loadedModified = modified;
+        loadedLength = length;
+        ItemCatalog loaded;
+        try {
+            loaded = ItemCatalog.load(file);
+        } catch (IOException e) {
+            lastError = e.getMessage();
+            return false;
+        }
+        // 2. פרסם והודע
+        lastError = null;
+        catalog = loaded;
+        Consumer<ItemCatalog> current = listener;
+        if (current != null) {
+            current.accept(loaded);
+        }
+        return true;
+    }
+
+    /**
+     * @return הודעת השגיאה של הטעינה האחרונה, או null אם הצליחה
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * מתזמן בדיקה תקופתית של הקובץ על executor קיים.
+     *
+     * @return המשימה המתוזמנת (לביטול)
+     */
+    public ScheduledFuture<?> schedule(ScheduledExecutorService executor, long period, TimeUnit unit) {
+        return executor.scheduleWithFixedDelay(this::reloadIfChanged, period, period, unit);
+    }
+}
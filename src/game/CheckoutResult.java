@@ -0,0 +1,62 @@
+package game;
+
+import model.items.Item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * תוצאה של קניית עגלה: הצלחה עם הפריטים והמחיר הכולל,
+ * או כישלון עם הסיבה (ואז שום דבר לא השתנה).
+ */
+public class CheckoutResult {
+
+    private final boolean success;
+    private final List<Item> items;
+    private final int totalCost;
+    private final String failureReason;
+
+    private CheckoutResult(boolean success, List<Item> items, int totalCost, String failureReason) {
+        this.success = success;
+        this.items = items;
+        this.totalCost = totalCost;
+        this.failureReason = failureReason;
+    }
+
+    static CheckoutResult success(ArrayList<Item> items, int totalCost) {
+        return new CheckoutResult(true, Collections.unmodifiableList(items), totalCost, null);
+    }
+
+    static CheckoutResult failure(String reason) {
+        return new CheckoutResult(false, Collections.emptyList(), 0, reason);
+    }
+
+    // Getters
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public int getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * @return סיבת הכישלון, או null אם הקנייה הצליחה
+     */
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    @Override
+    public String toString() {
+        if (success) {
+            return String.format("Checkout OK: %d items for %d gold", items.size(), totalCost);
+        }
+        return "Checkout failed: " + failureReason;
+    }
+}
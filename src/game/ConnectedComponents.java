@@ -0,0 +1,104 @@
+package game;
+
+import java.util.HashMap;
+
+/**
+ * רכיבי קשירות של המפה (Union-Find).
+ * כל חיבור בין מיקומים מאחד את הרכיבים שלהם, כך ש"האם אפשר להגיע מ-X ל-Y"
+ * נענה כמעט ב-O(1) בלי לסרוק את המפה.
+ */
+public class ConnectedComponents {
+
+    private final HashMap<String, String> parent;
+    private final HashMap<String, Integer> size; // רק לשורשים
+    private int componentCount;
+
+    public ConnectedComponents() {
+        this.parent = new HashMap<>();
+        this.size = new HashMap<>();
+        this.componentCount = 0;
+    }
+
+    /**
+     * מוסיף מיקום כרכיב בודד (אם עוד לא קיים).
+     *
+     * @param locationId מזהה המיקום
+     */
+    public void add(String locationId) {
+        if (parent.putIfAbsent(locationId, locationId) == null) {
+            size.put(locationId, 1);
+            componentCount++;
+        }
+    }
+
+    /**
+     * מאחד את הרכיבים של שני מיקומים (איחוד לפי גודל).
+     *
+     * @param locationId1 מיקום ראשון
+     * @param locationId2 מיקום שני
+     */
+    public void union(String locationId1, String locationId2) {
+        add(locationId1);
+        add(locationId2);
+        String root1 = find(locationId1);
+        String root2 = find(locationId2);
+        if (root1.equals(root2)) {
+            return;
+        }
+        int size1 = size.get(root1);
+        int size2 = size.get(root2);
+        if (size1 < size2) {
+            String tmp = root1;
+            root1 = root2;
+            root2 = tmp;
+        }
+        parent.put(root2, root1);
+        size.put(root1, size1 + size2);
+        size.remove(root2);
+        componentCount--;
+    }
+
+    /**
+     * מחזיר את נציג הרכיב של מיקום (עם כיווץ מסלולים).
+     *
+     * @param locationId מזהה המיקום
+     * @return מזהה הנציג, או null אם המיקום לא ידוע
+     */
+    public String find(String locationId) {
+        if (!parent.containsKey(locationId)) {
+            return null;
+        }
+        String root = locationId;
+        while (!root.equals(parent.get(root))) {
+            root = parent.get(root);
+        }
+        // כיווץ מסלולים
+        String current = locationId;
+        while (!current.equals(root)) {
+            String next = parent.get(current);
+            parent.put(current, root);
+            current = next;
+        }
+        return root;
+    }
+
+    /**
+     * @return true אם שני המיקומים באותו רכיב
+     */
+    public boolean isConnected(String locationId1, String locationId2) {
+        String root1 = find(locationId1);
+        return root1 != null && root1.equals(find(locationId2));
+    }
+
+    /**
+     * @return גודל הרכיב של המיקום (0 אם המיקום לא ידוע)
+     */
+    public int getComponentSize(String locationId) {
+        String root = find(locationId);
+        return root == null ? 0 : size.get(root);
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+}
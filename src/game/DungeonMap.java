@@ -1,26 +1,214 @@
 package game;
 
 import model.exceptions.InvalidActionException;
+import model.items.Item;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * מחלקה המייצגת את מפת המבוך.
  * משתמשת ב-HashMap למיפוי מזהי מיקום לאובייקטי GameLocation.
+ *
+ * מפה יכולה לעבוד גם במצב הזרמה (openChunked): המיקומים נשמרים בקובץ
+ * מחולק לאזורים, ורק האזורים שבשימוש נטענים לזיכרון. אזורים ישנים נפלטים
+ * לפי LRU כשהזיכרון עובר את התקציב. אזור שהשתנה נכתב בפליטה לקובץ
+ * זמני (spill), כך שגם שינויים לא נשארים בזיכרון.
+ *
+ * בנוסף לשחקן הראשי (currentLocationId), המפה מחזיקה מיקומים של שחקנים
+ * נוספים בעולם משותף. תנועה של שחקנים מרובים בטוחה לקריאה מכמה threads,
+ * בתנאי שמבנה המפה (addLocation / connectLocations) לא משתנה באותו זמן.
  */
-public class DungeonMap {
+public class DungeonMap implements Closeable {
 
-    // HashMap ממזהה מיקום לאובייקט המיקום
+    // HashMap ממזהה מיקום לאובייקט המיקום (במצב הזרמה - רק המיקומים שבזיכרון)
     private HashMap<String, GameLocation> locations;
+    // אינדקס רמות סכנה - מתעדכן בכל addLocation, ממוין לשאילתות טווח
+    private TreeMap<Integer, ArrayList<String>> locationIdsByDanger;
+    // אינדקס השלל של כל העולם - מתעדכן ב-addLoot וב-collectAllLoot
+    private LootIndex lootIndex;
+    // רכיבי קשירות - מתעדכנים ב-connectLocations
+    private ConnectedComponents components;
+    // מטמון שכונות k צעדים (LRU, מוגבל במספר המזהים השמורים)
+    private LinkedHashMap<String, Set<String>> neighborhoodCache;
+    private int neighborhoodCacheLimit;
+    private int neighborhoodCacheEntries;
     private String currentLocationId;
+    // מיקומי שחקנים בעולם משותף ותפוסת חדרים (בלי נעילה גלובלית)
+    private ConcurrentHashMap<String, String> playerPositions;
+    private ConcurrentHashMap<String, Set<String>> occupants;
     private String startLocationId;
     private String bossLocationId;
+    // מיקומים שהשתנו מאז השמירה האחרונה (נשארים כאן גם אם האזור שלהם נפלט)
+    private LinkedHashSet<String> dirtyLocationIds;
+
+    // מצב הזרמה (null במפה רגילה)
+    private MapChunkFile chunkFile;
+    private HashMap<String, Integer> chunkOfLocation;
+    private LinkedHashMap<Integer, ResidentChunk> residentChunks; // סדר גישה = LRU
+    // אזורים שנפלטו אחרי שינוי: רק המיקום שלהם בקובץ הזמני נשאר בזיכרון
+    private HashMap<Integer, SpilledChunk> modifiedChunks;
+    private File spillPath;
+    private FileChannel spillFile; // נפתח בפליטה הראשונה של אזור ששונה
+    private long memoryBudgetBytes;
+    private long residentBytes;
+    private long peakResidentBytes;
+    private int residentChunkLocations;
+    // אזורים שפעולה שרצה כרגע מחזיקה בהם מיקומים - לא נפלטים עד סוף הפעולה
+    private HashMap<Integer, Integer> pinCounts;
+    private ThreadLocal<ArrayList<Integer>> ownPins;
+
+    private static final int DEFAULT_NEIGHBORHOOD_CACHE_LIMIT = 100_000;
 
     public DungeonMap() {
         this.locations = new HashMap<>();
+        this.locationIdsByDanger = new TreeMap<>();
+        this.lootIndex = new LootIndex();
+        this.components = new ConnectedComponents();
+        this.neighborhoodCache = new LinkedHashMap<>(16, 0.75f, true);
+        this.neighborhoodCacheLimit = DEFAULT_NEIGHBORHOOD_CACHE_LIMIT;
+        this.neighborhoodCacheEntries = 0;
+        this.playerPositions = new ConcurrentHashMap<>();
+        this.occupants = new ConcurrentHashMap<>();
         this.currentLocationId = null;
         this.startLocationId = null;
         this.bossLocationId = null;
+        this.dirtyLocationIds = new LinkedHashSet<>();
+    }
+
+    // ============================================================
+    //  מצב הזרמה (אזורים בקובץ ממופה לזיכרון)
+    // ============================================================
+
+    /**
+     * פותח מפה השמורה בקובץ אזורים.
+     * בפתיחה נטענת רק הכותרת; אזורים נטענים כשהשחקן מגיע אליהם.
+     *
+     * @param file קובץ שנכתב ב-saveChunked
+     * @param memoryBudgetBytes תקציב הזיכרון לאזורים טעונים (לפי גודל מקודד)
+     * @return מפה במצב הזרמה
+     * @throws IOException אם הקובץ לא קריא
+     */
+    public static DungeonMap openChunked(File file, long memoryBudgetBytes) throws IOException {
+        MapChunkFile chunkFile = MapChunkFile.open(file);
+        DungeonMap map = new DungeonMap();
+        map.chunkFile = chunkFile;
+        map.chunkOfLocation = new HashMap<>();
+        map.residentChunks = new LinkedHashMap<>(16, 0.75f, true);
+        map.modifiedChunks = new HashMap<>();
+        map.memoryBudgetBytes = memoryBudgetBytes;
+        map.pinCounts = new HashMap<>();
+        map.ownPins = ThreadLocal.withInitial(ArrayList::new);
+
+        for (int i = 0; i < chunkFile.getLocationCount(); i++) {
+            String id = chunkFile.getLocationId(i);
+            map.chunkOfLocation.put(id, chunkFile.getChunkOf(i));
+            map.addToDangerIndex(id, chunkFile.getDangerLevel(i));
+            map.components.union(id, chunkFile.getLocationId(chunkFile.getComponentOf(i)));
+        }
+        chunkFile.registerLoot(map.lootIndex);
+        map.startLocationId = chunkFile.getStartLocationId();
+        map.bossLocationId = chunkFile.getBossLocationId();
+        map.currentLocationId = chunkFile.getCurrentLocationId() != null
+                ? chunkFile.getCurrentLocationId() : chunkFile.getStartLocationId();
+        return map;
+    }
+
+    /**
+     * שומר את המפה לקובץ אזורים.
+     *
+     * @param file קובץ היעד
+     * @param locationsPerChunk מספר מיקומים בכל אזור
+     * @throws IOException אם הכתיבה נכשלה
+     */
+    public void saveChunked(File file, int locationsPerChunk) throws IOException {
+        MapChunkFile.write(this, file, locationsPerChunk);
+    }
+
+    /**
+     * שומר את כל המפה לקובץ בינארי קומפקטי (MapFile).
+     *
+     * @param file קובץ היעד
+     * @throws IOException אם הכתיבה נכשלה
+     */
+    public void save(File file) throws IOException {
+        MapFile.write(this, file);
+    }
+
+    /**
+     * טוען מפה שלמה מקובץ בינארי (MapFile), כולל בדיקת תקינות.
+     *
+     * @param file הקובץ
+     * @return המפה שנטענה
+     * @throws IOException אם הקובץ פגום או לא תקין
+     */
+    public static DungeonMap load(File file) throws IOException {
+        return MapFile.read(file);
+    }
+
+    /**
+     * @return true אם המפה במצב הזרמה
+     */
+    public boolean isChunked() {
+        return chunkFile != null;
+    }
+
+    /**
+     * @return מספר האזורים הטעונים כרגע (0 במפה רגילה)
+     */
+    public int getResidentChunkCount() {
+        return residentChunks == null ? 0 : residentChunks.size();
+    }
+
+    /**
+     * @return גודל האזורים הטעונים כרגע בבתים (0 במפה רגילה)
+     */
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * @return הגודל המקסימלי של האזורים הטעונים מאז הפתיחה, גם באמצע פעולה
+     */
+    public long getPeakResidentBytes() {
+        return peakResidentBytes;
+    }
+
+    /**
+     * @return מספר האזורים ששונו ונכתבו לקובץ הזמני (0 במפה רגילה)
+     */
+    public synchronized int getSpilledChunkCount() {
+        return modifiedChunks == null ? 0 : modifiedChunks.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (chunkFile != null) {
+            chunkFile.close();
+        }
+        if (spillFile != null) {
+            spillFile.close();
+            spillPath.delete();
+        }
     }
 
     // ============================================================
@@ -30,17 +218,43 @@ public class DungeonMap {
     /**
      * מוסיף מיקום חדש למפה.
      * אם זה המיקום הראשון, מגדיר אותו כנקודת ההתחלה.
+     * במצב הזרמה מיקום שנוסף כך נשאר בזיכרון תמיד.
      *
      * @param location המיקום להוספה
      */
     public void addLocation(GameLocation location) {
+        GameLocation previous = lookup(location.getId());
+
+        // עדכן את אינדקס הסכנה (מיקום שהוחלף יוצא מהדלי הישן שלו)
+        if (previous != null) {
+            removeFromDangerIndex(previous.getId(), previous.getDangerLevel());
+            lootIndex.removeAll(previous.getId(), previous.getLootView());
+            previous.attach(null, null);
+            detachFromChunk(previous.getId());
+        }
         locations.put(location.getId(), location);
+        addToDangerIndex(location.getId(), location.getDangerLevel());
+        for (Item item : location.getLootView()) {
+            lootIndex.add(location.getId(), item);
+        }
+        location.attach(lootIndex, dirtyLocationIds);
+        dirtyLocationIds.add(location.getId());
+
+        // חיבורים שכבר קיימים על המיקום מאחדים רכיבים
+        components.add(location.getId());
+        for (String id : location.getConnectionsView()) {
+            if (containsLocation(id)) {
+                components.union(location.getId(), id);
+            }
+        }
+        clearNeighborhoodCache();
 
         if (startLocationId == null) {
             startLocationId = location.getId();
             currentLocationId = startLocationId;
             location.markAsVisited();
         }
+        trimToBudget();
     }
 
     /**
@@ -54,14 +268,19 @@ public class DungeonMap {
             throws InvalidActionException {
 
         // 1. בדוק שני המיקומים קיימים
-        GameLocation loc1 = locations.get(locationId1);
-        GameLocation loc2 = locations.get(locationId2);
+        GameLocation loc1 = lookup(locationId1);
+        GameLocation loc2 = lookup(locationId2);
         if (loc1 == null || loc2 == null) {
+            trimToBudget();
             throw new InvalidActionException("connectLocations", "one or both of them is null");
         }
         // 2. הוסף חיבור דו-כיווני
         loc1.addConnection(locationId2);
         loc2.addConnection(locationId1);
+        // 3. עדכן רכיבי קשירות ובטל שכונות שמורות
+        components.union(locationId1, locationId2);
+        clearNeighborhoodCache();
+        trimToBudget();
     }
 
     /**
@@ -71,7 +290,9 @@ public class DungeonMap {
      * @return המיקום, או null אם לא קיים
      */
     public GameLocation getLocation(String locationId) {
-        return locations.get(locationId);
+        GameLocation location = lookup(locationId);
+        trimToBudget();
+        return location;
     }
 
     /**
@@ -83,32 +304,37 @@ public class DungeonMap {
         if (currentLocationId == null) {
             return null;
         }
-        return locations.get(currentLocationId);
+        GameLocation location = lookup(currentLocationId);
+        trimToBudget();
+        return location;
     }
 
     /**
      * מזיז את השחקן למיקום אחר.
      * ניתן לזוז רק למיקום מחובר!
+     * במצב הזרמה האזור של היעד נטען לפי הצורך.
      *
      * @param locationId מזהה המיקום החדש
      * @throws InvalidActionException אם המיקום לא קיים או לא מחובר
      */
     public void moveTo(String locationId) throws InvalidActionException {
-        GameLocation current = getCurrentLocation();
-        GameLocation target = locations.get(locationId);
+        GameLocation current = lookup(currentLocationId);
+        GameLocation target = lookup(locationId);
         // 1. בדוק שהמיקום קיים
         if (target == null) {
+            trimToBudget();
             throw new InvalidActionException("moveTo"," target doesnt exits");
         }
         // 2. בדוק שהמיקום הנוכחי מחובר למיקום החדש
-        if (!current.getConnectedLocationIds().contains(locationId)) {
+        if (!current.isConnectedTo(locationId)) {
+            trimToBudget();
             throw new InvalidActionException("moveTo","the locations doesnt connected");
         }
         // 3. עדכן את currentLocationId
         currentLocationId = locationId;
         // 4. סמן את המיקום החדש כמבוקר
         target.markAsVisited();
-
+        trimToBudget();
     }
 
     /**
@@ -120,17 +346,18 @@ public class DungeonMap {
         // עבור על כל ה-connectedLocationIds של המיקום הנוכחי
         // והחזר רשימה של האובייקטים המתאימים
         ArrayList<GameLocation> result = new ArrayList<>();
-        GameLocation current = getCurrentLocation();
+        GameLocation current = currentLocationId == null ? null : lookup(currentLocationId);
         if (current == null) {
             return result;
         }
 
-        for (String id : current.getConnectedLocationIds()) {
-            GameLocation loc = locations.get(id);
+        for (String id : current.getConnectionsView()) {
+            GameLocation loc = lookupTransient(id);
             if (loc != null) {
                 result.add(loc);
             }
         }
+        trimToBudget();
         return result;
     }
 
@@ -141,11 +368,11 @@ public class DungeonMap {
     public ArrayList<GameLocation> getVisitedLocations() {
 
         ArrayList<GameLocation> result = new ArrayList<>();
-        for (GameLocation gameLocation: locations.values()) {
+        forEachLocation(gameLocation -> {
             if (gameLocation.isVisited()) {
                 result.add(gameLocation);
             }
-        }
+        });
         return result;
     }
 
@@ -157,30 +384,448 @@ public class DungeonMap {
     public ArrayList<GameLocation> getUnvisitedLocations() {
 
         ArrayList<GameLocation> result = new ArrayList<>();
-        for (GameLocation gameLocation: locations.values()) {
+        forEachLocation(gameLocation -> {
             if (!gameLocation.isVisited()) {
                 result.add(gameLocation);
             }
-        }
+        });
         return result;
     }
 
     /**
      * מחזיר HashMap שממפה רמת סכנה לרשימת מיקומים.
+     * הנתונים מגיעים מהאינדקס המתוחזק, בלי לעבור שוב על כל המפה.
      *
      * @return HashMap של (Integer -> ArrayList של GameLocation)
      */
     public HashMap<Integer, ArrayList<GameLocation>> getLocationsByDangerLevel() {
 
         HashMap<Integer, ArrayList<GameLocation>> map = new HashMap<>();
-        for (GameLocation location : locations.values()) {
-            int danger = location.getDangerLevel();
+        for (Map.Entry<Integer, ArrayList<String>> entry : locationIdsByDanger.entrySet()) {
+            map.put(entry.getKey(), resolve(entry.getValue()));
+        }
+        trimToBudget();
+        return map;
+    }
 
-            map.putIfAbsent(danger, new ArrayList<>());
-            map.get(danger).add(location);
+    /**
+     * מחזיר את כל המיקומים ברמת סכנה מסוימת.
+     *
+     * @param dangerLevel רמת הסכנה
+     * @return רשימת מיקומים (ריקה אם אין)
+     */
+    public ArrayList<GameLocation> getLocationsWithDangerLevel(int dangerLevel) {
+        ArrayList<String> bucket = locationIdsByDanger.get(dangerLevel);
+        if (bucket == null) {
+            return new ArrayList<>();
         }
+        ArrayList<GameLocation> result = resolve(bucket);
+        trimToBudget();
+        return result;
+    }
 
-        return map;
+    /**
+     * מחזיר את כל המיקומים שרמת הסכנה שלהם בטווח (כולל שני הקצוות).
+     * עובר רק על הדליים שבטווח.
+     *
+     * @param minDanger רמת סכנה מינימלית
+     * @param maxDanger רמת סכנה מקסימלית
+     * @return רשימת מיקומים בטווח
+     */
+    public ArrayList<GameLocation> getLocationsInDangerRange(int minDanger, int maxDanger) {
+        ArrayList<GameLocation> result = new ArrayList<>();
+        if (minDanger > maxDanger) {
+            return result;
+        }
+        for (ArrayList<String> bucket :
+                locationIdsByDanger.subMap(minDanger, true, maxDanger, true).values()) {
+            result.addAll(resolve(bucket));
+        }
+        trimToBudget();
+        return result;
+    }
+
+    /**
+     * מחזיר מיקומים בטווח סכנה שנמצאים עד maxHops צעדים ממיקום מסוים.
+     * לדוגמה: "כל החדרים עם סכנה 3-5 במרחק עד 4 צעדים מכאן".
+     * סורק BFS רק את הסביבה הקרובה, ומוותר מראש אם אין אף מיקום בטווח הסכנה.
+     *
+     * @param fromLocationId מיקום המוצא
+     * @param minDanger רמת סכנה מינימלית
+     * @param maxDanger רמת סכנה מקסימלית
+     * @param maxHops מספר הצעדים המקסימלי
+     * @return רשימת מיקומים לפי סדר המרחק
+     * @throws InvalidActionException אם מיקום המוצא לא קיים
+     */
+    public ArrayList<GameLocation> getLocationsInDangerRange(String fromLocationId,
+                                                             int minDanger, int maxDanger,
+                                                             int maxHops)
+            throws InvalidActionException {
+        GameLocation from = lookup(fromLocationId);
+        if (from == null) {
+            throw new InvalidActionException("getLocationsInDangerRange", "location doesnt exist");
+        }
+        ArrayList<GameLocation> result = new ArrayList<>();
+        if (minDanger > maxDanger || maxHops < 0
+                || locationIdsByDanger.subMap(minDanger, true, maxDanger, true).isEmpty()) {
+            trimToBudget();
+            return result;
+        }
+
+        // BFS שכבה אחרי שכבה עד maxHops
+        HashSet<String> seen = new HashSet<>();
+        ArrayDeque<GameLocation> frontier = new ArrayDeque<>();
+        seen.add(fromLocationId);
+        frontier.add(from);
+        for (int hop = 0; hop <= maxHops && !frontier.isEmpty(); hop++) {
+            int layerSize = frontier.size();
+            for (int i = 0; i < layerSize; i++) {
+                GameLocation location = frontier.poll();
+                int danger = location.getDangerLevel();
+                if (danger >= minDanger && danger <= maxDanger) {
+                    result.add(location);
+                }
+                if (hop == maxHops) {
+                    continue;
+                }
+                for (String id : location.getConnectionsView()) {
+                    if (!seen.add(id)) {
+                        continue;
+                    }
+                    GameLocation next = lookupTransient(id);
+                    if (next != null) {
+                        frontier.add(next);
+                    }
+                }
+            }
+        }
+        trimToBudget();
+        return result;
+    }
+
+    // ============================================================
+    //  שחקנים מרובים
+    // ============================================================
+
+    /**
+     * מציב שחקן במיקום (כניסה לעולם או השתגרות), בלי בדיקת חיבור.
+     *
+     * @param playerId מזהה השחקן
+     * @param locationId מזהה המיקום
+     * @throws InvalidActionException אם המיקום לא קיים
+     */
+    public void placePlayer(String playerId, String locationId) throws InvalidActionException {
+        validateMove(null, locationId);
+        playerPositions.compute(playerId, (id, previous) -> {
+            if (previous != null) {
+                leaveRoom(id, previous);
+            }
+            enterRoom(id, locationId);
+            return locationId;
+        });
+    }
+
+    /**
+     * מזיז שחקן מסוים למיקום מחובר.
+     * בטוח לקריאה מכמה threads: הבדיקה ועדכון התפוסה נעשים בתוך compute על השחקן,
+     * כך שמהלכים של אותו שחקן (או placePlayer מקביל) לא משאירים אותו בשני חדרים.
+     *
+     * @param playerId מזהה השחקן
+     * @param locationId מזהה המיקום החדש
+     * @throws InvalidActionException אם השחקן לא במפה, או שהמיקום לא קיים או לא מחובר
+     */
+    public void moveTo(String playerId, String locationId) throws InvalidActionException {
+        InvalidActionException[] failure = new InvalidActionException[1];
+        String position = playerPositions.computeIfPresent(playerId, (id, from) -> {
+            try {
+                validateMove(from, locationId);
+            } catch (InvalidActionException e) {
+                failure[0] = e;
+                return from;
+            }
+            leaveRoom(id, from);
+            enterRoom(id, locationId);
+            return locationId;
+        });
+        if (position == null) {
+            throw new InvalidActionException("moveTo", "player is not on the map");
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    /**
+     * מוציא שחקן מהעולם.
+     *
+     * @param playerId מזהה השחקן
+     */
+    public void removePlayer(String playerId) {
+        playerPositions.computeIfPresent(playerId, (id, previous) -> {
+            leaveRoom(id, previous);
+            return null;
+        });
+    }
+
+    /**
+     * @return מזהה המיקום של השחקן, או null אם הוא לא במפה
+     */
+    public String getPlayerLocationId(String playerId) {
+        return playerPositions.get(playerId);
+    }
+
+    /**
+     * מחזיר את השחקנים שנמצאים בחדר, בלי נעילה.
+     *
+     * @param locationId מזהה המיקום
+     * @return עותק של השחקנים בחדר ברגע הקריאה
+     */
+    public Set<String> getPlayersAt(String locationId) {
+        Set<String> players = occupants.get(locationId);
+        if (players == null) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(players);
+    }
+
+    /**
+     * @return מספר השחקנים בחדר
+     */
+    public int getOccupancy(String locationId) {
+        Set<String> players = occupants.get(locationId);
+        return players == null ? 0 : players.size();
+    }
+
+    /**
+     * @return מספר השחקנים בעולם
+     */
+    public int getPlayerCount() {
+        return playerPositions.size();
+    }
+
+    private void enterRoom(String playerId, String locationId) {
+        occupants.compute(locationId, (id, players) -> {
+            if (players == null) {
+                players = ConcurrentHashMap.newKeySet();
+            }
+            players.add(playerId);
+            return players;
+        });
+    }
+
+    // חדר שהתרוקן יוצא מהמפה, כדי שחדרים שעברו בהם פעם לא יצטברו
+    private void leaveRoom(String playerId, String locationId) {
+        occupants.computeIfPresent(locationId, (id, players) -> {
+            players.remove(playerId);
+            return players.isEmpty() ? null : players;
+        });
+    }
+
+    /**
+     * בודק שהיעד קיים ושהוא מחובר למוצא (אם יש מוצא).
+     * במצב הזרמה טעינת אזורים משנה מבנים פנימיים, ולכן הבדיקה מסונכרנת.
+     */
+    private void validateMove(String fromId, String toId) throws InvalidActionException {
+        if (chunkFile == null) {
+            checkMove(fromId, toId);
+            return;
+        }
+        synchronized (this) {
+            try {
+                checkMove(fromId, toId);
+            } finally {
+                trimToBudget();
+            }
+        }
+    }
+
+    private void checkMove(String fromId, String toId) throws InvalidActionException {
+        if (!containsLocation(toId)) {
+            throw new InvalidActionException("moveTo", " target doesnt exits");
+        }
+        if (fromId == null) {
+            return;
+        }
+        GameLocation from = lookup(fromId);
+        if (from == null || !from.isConnectedTo(toId)) {
+            throw new InvalidActionException("moveTo", "the locations doesnt connected");
+        }
+    }
+
+    // ============================================================
+    //  נגישות ושכונות
+    // ============================================================
+
+    /**
+     * בודק אם אפשר להגיע ממיקום אחד לאחר (בכל מספר צעדים).
+     * נענה מרכיבי הקשירות, בלי סריקה.
+     * הערה: חיבורים צריכים לעבור דרך connectLocations כדי להיספר כאן.
+     *
+     * @param fromLocationId מיקום המוצא
+     * @param toLocationId מיקום היעד
+     * @return true אם המיקומים באותו רכיב
+     */
+    public boolean isReachable(String fromLocationId, String toLocationId) {
+        return components.isConnected(fromLocationId, toLocationId);
+    }
+
+    /**
+     * @return מספר רכיבי הקשירות במפה
+     */
+    public int getComponentCount() {
+        return components.getComponentCount();
+    }
+
+    /**
+     * @return מספר המיקומים ברכיב של המיקום (0 אם לא קיים)
+     */
+    public int getComponentSize(String locationId) {
+        return components.getComponentSize(locationId);
+    }
+
+    /**
+     * מחזיר את מזהי כל המיקומים שנמצאים עד hops צעדים ממיקום (כולל המיקום עצמו).
+     * התוצאה נשמרת במטמון עד לשינוי הבא בחיבורים, כך שקריאה חוזרת היא O(1).
+     *
+     * @param fromLocationId מיקום המוצא
+     * @param hops מספר הצעדים המקסימלי
+     * @return קבוצה לקריאה בלבד של מזהי מיקומים
+     * @throws InvalidActionException אם המיקום לא קיים או ש-hops שלילי
+     */
+    public Set<String> getLocationIdsWithinHops(String fromLocationId, int hops)
+            throws InvalidActionException {
+        if (hops < 0 || !containsLocation(fromLocationId)) {
+            throw new InvalidActionException("getLocationIdsWithinHops", "invalid location or hops");
+        }
+        String key = fromLocationId + '\u0000' + hops;
+        Set<String> cached = neighborhoodCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        // BFS עד hops שכבות
+        HashSet<String> result = new HashSet<>();
+        ArrayDeque<String> frontier = new ArrayDeque<>();
+        result.add(fromLocationId);
+        frontier.add(fromLocationId);
+        for (int hop = 0; hop < hops && !frontier.isEmpty(); hop++) {
+            int layerSize = frontier.size();
+            for (int i = 0; i < layerSize; i++) {
+                GameLocation location = lookupTransient(frontier.poll());
+                if (location == null) {
+                    continue;
+                }
+                for (String id : location.getConnectionsView()) {
+                    if (result.add(id)) {
+                        frontier.add(id);
+                    }
+                }
+            }
+        }
+        trimToBudget();
+
+        Set<String> neighborhood = Collections.unmodifiableSet(result);
+        cacheNeighborhood(key, neighborhood);
+        return neighborhood;
+    }
+
+    /**
+     * קובע את מספר המזהים המקסימלי שנשמרים במטמון השכונות.
+     *
+     * @param maxEntries סך המזהים בכל השכונות השמורות (0 מבטל את המטמון)
+     */
+    public void setNeighborhoodCacheLimit(int maxEntries) {
+        this.neighborhoodCacheLimit = Math.max(0, maxEntries);
+        evictNeighborhoods();
+    }
+
+    private void cacheNeighborhood(String key, Set<String> neighborhood) {
+        if (neighborhood.size() > neighborhoodCacheLimit) {
+            return;
+        }
+        neighborhoodCache.put(key, neighborhood);
+        neighborhoodCacheEntries += neighborhood.size();
+        evictNeighborhoods();
+    }
+
+    private void evictNeighborhoods() {
+        Iterator<Set<String>> it = neighborhoodCache.values().iterator();
+        while (neighborhoodCacheEntries > neighborhoodCacheLimit && it.hasNext()) {
+            neighborhoodCacheEntries -= it.next().size();
+            it.remove();
+        }
+    }
+
+    private void clearNeighborhoodCache() {
+        neighborhoodCache.clear();
+        neighborhoodCacheEntries = 0;
+    }
+
+    // ============================================================
+    //  חיפוש שלל
+    // ============================================================
+
+    /**
+     * מוצא את המיקום הקרוב ביותר למיקום הנוכחי שיש בו שלל מתאים.
+     * לדוגמה: "החדר הקרוב ביותר עם נשק RARE ומעלה".
+     *
+     * @param category סוג הפריט (null = כל סוג)
+     * @param minRarity הנדירות המינימלית
+     * @return המיקום הקרוב ביותר, או null אם אין שלל כזה שניתן להגיע אליו
+     */
+    public GameLocation findNearestLoot(Item.ItemCategory category, Item.ItemRarity minRarity) {
+        if (currentLocationId == null) {
+            return null;
+        }
+        return findNearestLoot(Collections.singletonList(currentLocationId), category, minRarity);
+    }
+
+    /**
+     * מוצא את המיקום הקרוב ביותר לאחד ממיקומי המוצא שיש בו שלל מתאים.
+     * BFS מכמה מקורות במקביל, שבודק כל מיקום מול אינדקס השלל ב-O(1).
+     * אם אין בעולם בכלל שלל מתאים, חוזר מיד בלי לסרוק את המפה.
+     *
+     * @param sourceIds מזהי מיקומי המוצא (למשל המיקומים של כל חברי הקבוצה)
+     * @param category סוג הפריט (null = כל סוג)
+     * @param minRarity הנדירות המינימלית
+     * @return המיקום הקרוב ביותר, או null אם אין שלל כזה שניתן להגיע אליו
+     */
+    public GameLocation findNearestLoot(Collection<String> sourceIds,
+                                        Item.ItemCategory category, Item.ItemRarity minRarity) {
+        if (lootIndex.countLoot(category, minRarity) == 0) {
+            return null;
+        }
+        HashSet<String> seen = new HashSet<>();
+        ArrayDeque<String> queue = new ArrayDeque<>();
+        for (String id : sourceIds) {
+            if (seen.add(id)) {
+                queue.add(id);
+            }
+        }
+
+        GameLocation found = null;
+        while (!queue.isEmpty()) {
+            String id = queue.poll();
+            if (lootIndex.hasLoot(id, category, minRarity)) {
+                found = lookup(id);
+                break;
+            }
+            GameLocation location = lookupTransient(id);
+            if (location == null) {
+                continue;
+            }
+            for (String next : location.getConnectionsView()) {
+                if (seen.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+        trimToBudget();
+        return found;
+    }
+
+    public LootIndex getLootIndex() {
+        return lootIndex;
     }
 
     /**
@@ -190,16 +835,17 @@ public class DungeonMap {
      */
     public double getExplorationProgress() {
         // מספר מיקומים מבוקרים / סך כל המיקומים
-        if (locations.isEmpty()) {
+        int total = getTotalLocations();
+        if (total == 0) {
             return 0.0;
         }
-        int visited = 0;
-        for (GameLocation location : locations.values()) {
+        int[] visited = new int[1];
+        forEachLocation(location -> {
             if (location.isVisited()) {
-                visited++;
+                visited[0]++;
             }
-        }
-        return (double) visited / locations.size();
+        });
+        return (double) visited[0] / total;
 
     }
 
@@ -207,16 +853,48 @@ public class DungeonMap {
     public void setStartLocation(String locationId) {
         this.startLocationId = locationId;
         this.currentLocationId = locationId;
-        if (locations.containsKey(locationId)) {
-            locations.get(locationId).markAsVisited();
+        GameLocation location = lookup(locationId);
+        if (location != null) {
+            location.markAsVisited();
         }
+        trimToBudget();
+    }
+
+    /**
+     * משחזר את המיקומים המיוחדים בטעינה מקובץ, בלי תופעות לוואי על המיקומים.
+     */
+    void restoreSpecialLocations(String startLocationId, String bossLocationId,
+                                 String currentLocationId) {
+        this.startLocationId = startLocationId;
+        this.bossLocationId = bossLocationId;
+        this.currentLocationId = currentLocationId != null ? currentLocationId : startLocationId;
     }
 
     public void setBossLocation(String locationId) {
         this.bossLocationId = locationId;
-        if (locations.containsKey(locationId)) {
-            locations.get(locationId).setHasMaster(true);
+        GameLocation location = lookup(locationId);
+        if (location != null) {
+            location.setHasMaster(true);
         }
+        trimToBudget();
+    }
+
+    // ============================================================
+    //  מעקב שינויים (לשמירה מצטברת)
+    // ============================================================
+
+    /**
+     * מחזיר את המיקומים שהשתנו מאז הקריאה הקודמת ומאפס את הרשימה.
+     * אם השמירה נכשלת, יש להחזיר אותם ב-restoreDirtyLocationIds.
+     */
+    ArrayList<String> takeDirtyLocationIds() {
+        ArrayList<String> ids = new ArrayList<>(dirtyLocationIds);
+        dirtyLocationIds.clear();
+        return ids;
+    }
+
+    void restoreDirtyLocationIds(Collection<String> ids) {
+        dirtyLocationIds.addAll(ids);
     }
 
     // Getters
@@ -233,10 +911,316 @@ public class DungeonMap {
     }
 
     public int getTotalLocations() {
-        return locations.size();
+        if (chunkFile == null) {
+            return locations.size();
+        }
+        return locations.size() - residentChunkLocations + chunkOfLocation.size();
     }
 
+    /**
+     * מחזיר עותק של כל המיקומים.
+     * במצב הזרמה, מיקומים מאזורים שאינם בזיכרון מפוענחים זמנית -
+     * שינויים בהם לא נשמרים במפה.
+     */
     public HashMap<String, GameLocation> getAllLocations() {
-        return new HashMap<>(locations);
+        if (chunkFile == null) {
+            return new HashMap<>(locations);
+        }
+        HashMap<String, GameLocation> all = new HashMap<>();
+        forEachLocation(location -> all.put(location.getId(), location));
+        return all;
+    }
+
+    // ============================================================
+    //  עזרי אינדקס וטעינת אזורים
+    // ============================================================
+
+    private void addToDangerIndex(String locationId, int dangerLevel) {
+        locationIdsByDanger.computeIfAbsent(dangerLevel, k -> new ArrayList<>()).add(locationId);
+    }
+
+    private void removeFromDangerIndex(String locationId, int dangerLevel) {
+        ArrayList<String> bucket = locationIdsByDanger.get(dangerLevel);
+        if (bucket == null) {
+            return;
+        }
+        bucket.remove(locationId);
+        if (bucket.isEmpty()) {
+            locationIdsByDanger.remove(dangerLevel);
+        }
+    }
+
+    private boolean containsLocation(String locationId) {
+        return locations.containsKey(locationId)
+                || (chunkFile != null && chunkOfLocation.containsKey(locationId));
+    }
+
+    private ArrayList<GameLocation> resolve(ArrayList<String> ids) {
+        ArrayList<GameLocation> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            GameLocation location = lookupTransient(id);
+            if (location != null) {
+                result.add(location);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * מחזיר מיקום לפי מזהה, וטוען את האזור שלו אם צריך.
+     * האזור ננעץ עד סוף הפעולה (trimToBudget), כך שמיקום שהתקבל באמצע פעולה
+     * ועוד ישתנה בה (ביקור, חיבור) לא נפלט לפני שהשינוי נשמר.
+     */
+    private GameLocation lookup(String locationId) {
+        return lookup(locationId, true);
+    }
+
+    /**
+     * כמו lookup, בלי לנעוץ את האזור - לסריקות (BFS) שרק קוראות מהמיקום
+     * וממשיכות הלאה, כך שהתקציב מגביל גם אותן.
+     */
+    private GameLocation lookupTransient(String locationId) {
+        return lookup(locationId, false);
+    }
+
+    /**
+     * במצב הזרמה טעינה ופליטה משנות מבנים פנימיים, ולכן הכל תחת נעילת המפה
+     * (כמו validateMove בתנועת שחקנים מרובים). אחרי טעינת אזור נפלטים מיד
+     * אזורים ישנים אם הזיכרון עבר את התקציב.
+     */
+    private GameLocation lookup(String locationId, boolean pin) {
+        if (chunkFile == null) {
+            return locations.get(locationId);
+        }
+        synchronized (this) {
+            GameLocation location = locations.get(locationId);
+            Integer chunk = chunkOfLocation.get(locationId);
+            if (chunk == null) {
+                return location; // מיקום שנוסף ב-addLocation
+            }
+            if (location != null) {
+                residentChunks.get(chunk); // עדכן סדר LRU
+            } else {
+                pageIn(chunk);
+                location = locations.get(locationId);
+                evictOverBudget();
+            }
+            if (pin) {
+                pinCounts.merge(chunk, 1, Integer::sum);
+                ownPins.get().add(chunk);
+            }
+            return location;
+        }
+    }
+
+    private void pageIn(int chunk) {
+        byte[] bytes = chunkBytes(chunk);
+        ArrayList<String> ids = new ArrayList<>();
+        try {
+            for (GameLocation location : MapChunkFile.decodeChunk(bytes)) {
+                if (!isOwnedBy(location.getId(), chunk)) {
+                    continue;
+                }
+                location.attach(lootIndex, dirtyLocationIds);
+                locations.put(location.getId(), location);
+                ids.add(location.getId());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode map chunk " + chunk, e);
+        }
+        residentChunks.put(chunk, new ResidentChunk(ids, bytes.length));
+        residentBytes += bytes.length;
+        peakResidentBytes = Math.max(peakResidentBytes, residentBytes);
+        residentChunkLocations += ids.size();
+    }
+
+    /**
+     * סוף פעולה ציבורית: משחרר את האזורים שהפעולה נעצה ופולט עד התקציב.
+     */
+    private void trimToBudget() {
+        if (chunkFile == null) {
+            return;
+        }
+        synchronized (this) {
+            ArrayList<Integer> pins = ownPins.get();
+            for (Integer chunk : pins) {
+                pinCounts.computeIfPresent(chunk, (k, count) -> count == 1 ? null : count - 1);
+            }
+            pins.clear();
+            evictOverBudget();
+        }
+    }
+
+    /**
+     * פולט אזורים לפי LRU עד שהזיכרון בתוך התקציב. לא פולט את האזור של
+     * המיקום הנוכחי, אזורים נעוצים, ואת האזור האחרון שבשימוש (זה שנטען עכשיו).
+     */
+    private void evictOverBudget() {
+        if (residentBytes <= memoryBudgetBytes) {
+            return;
+        }
+        Integer current = currentLocationId == null ? null : chunkOfLocation.get(currentLocationId);
+        int remaining = residentChunks.size();
+        Iterator<Map.Entry<Integer, ResidentChunk>> it = residentChunks.entrySet().iterator();
+        while (residentBytes > memoryBudgetBytes && remaining > 1 && it.hasNext()) {
+            Map.Entry<Integer, ResidentChunk> entry = it.next();
+            remaining--;
+            int chunk = entry.getKey();
+            if ((current != null && chunk == current) || pinCounts.containsKey(chunk)) {
+                continue;
+            }
+            writeBack(chunk, entry.getValue());
+            it.remove();
+        }
+    }
+
+    /**
+     * מוציא אזור מהזיכרון. אם המצב שלו השתנה מאז שנטען (ביקור, שלל, חיבורים),
+     * הקידוד החדש נכתב לקובץ הזמני כדי שהטעינה הבאה תראה אותו.
+     */
+    private void writeBack(int chunk, ResidentChunk resident) {
+        ArrayList<GameLocation> chunkLocations = new ArrayList<>(resident.locationIds.size());
+        for (String id : resident.locationIds) {
+            GameLocation location = locations.remove(id);
+            if (location != null) {
+                location.attach(null, null);
+                chunkLocations.add(location);
+            }
+        }
+        residentBytes -= resident.bytes;
+        residentChunkLocations -= resident.locationIds.size();
+
+        try {
+            byte[] encoded = MapChunkFile.encodeChunk(chunkLocations);
+            if (!Arrays.equals(encoded, chunkBytes(chunk))) {
+                spill(chunk, encoded);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode map chunk " + chunk, e);
+        }
+    }
+
+    /**
+     * כותב קידוד של אזור לקובץ הזמני. אם המקום הקודם של האזור מספיק -
+     * כותבים עליו, אחרת מוסיפים בסוף הקובץ.
+     */
+    private void spill(int chunk, byte[] encoded) throws IOException {
+        if (spillFile == null) {
+            spillPath = File.createTempFile("dungeon", ".spill");
+            spillPath.deleteOnExit();
+            spillFile = FileChannel.open(spillPath.toPath(),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        SpilledChunk previous = modifiedChunks.get(chunk);
+        long offset;
+        int capacity;
+        if (previous != null && previous.capacity >= encoded.length) {
+            offset = previous.offset;
+            capacity = previous.capacity;
+        } else {
+            offset = spillFile.size();
+            capacity = encoded.length;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        while (buffer.hasRemaining()) {
+            spillFile.write(buffer, offset + buffer.position());
+        }
+        modifiedChunks.put(chunk, new SpilledChunk(offset, encoded.length, capacity));
+    }
+
+    private byte[] chunkBytes(int chunk) {
+        SpilledChunk modified = modifiedChunks.get(chunk);
+        if (modified == null) {
+            return chunkFile.readChunkBytes(chunk);
+        }
+        // קריאה לפי מיקום - לא תלויה במצב של הערוץ
+        ByteBuffer buffer = ByteBuffer.allocate(modified.length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (spillFile.read(buffer, modified.offset + buffer.position()) < 0) {
+                    throw new IOException("Spill file truncated");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read spilled map chunk " + chunk, e);
+        }
+        return buffer.array();
+    }
+
+    private boolean isOwnedBy(String locationId, int chunk) {
+        Integer owner = chunkOfLocation.get(locationId);
+        return owner != null && owner == chunk;
+    }
+
+    /**
+     * מנתק מיקום מהאזור שלו (כשמיקום עם אותו מזהה נוסף ב-addLocation).
+     */
+    private void detachFromChunk(String locationId) {
+        if (chunkFile == null) {
+            return;
+        }
+        Integer chunk = chunkOfLocation.remove(locationId);
+        if (chunk == null) {
+            return;
+        }
+        ResidentChunk resident = residentChunks.get(chunk);
+        if (resident != null && resident.locationIds.remove(locationId)) {
+            residentChunkLocations--;
+        }
+    }
+
+    /**
+     * עובר על כל המיקומים במפה.
+     * במצב הזרמה, אזורים שלא בזיכרון מפוענחים זמנית ולא נטענים לזיכרון.
+     */
+    private void forEachLocation(Consumer<GameLocation> visitor) {
+        for (GameLocation location : locations.values()) {
+            visitor.accept(location);
+        }
+        if (chunkFile == null) {
+            return;
+        }
+        for (int chunk = 0; chunk < chunkFile.getChunkCount(); chunk++) {
+            if (residentChunks.containsKey(chunk)) {
+                continue;
+            }
+            try {
+                for (GameLocation location : MapChunkFile.decodeChunk(chunkBytes(chunk))) {
+                    if (isOwnedBy(location.getId(), chunk)) {
+                        visitor.accept(location);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to decode map chunk " + chunk, e);
+            }
+        }
+    }
+
+    /**
+     * מיקום של אזור ששונה בקובץ הזמני.
+     */
+    private static class SpilledChunk {
+        private final long offset;
+        private final int length;
+        private final int capacity; // המקום השמור בקובץ (לכתיבה חוזרת במקום)
+
+        SpilledChunk(long offset, int length, int capacity) {
+            this.offset = offset;
+            this.length = length;
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * אזור שנמצא כרגע בזיכרון.
+     */
+    private static class ResidentChunk {
+        private final ArrayList<String> locationIds;
+        private final int bytes;
+
+        ResidentChunk(ArrayList<String> locationIds, int bytes) {
+            this.locationIds = locationIds;
+            this.bytes = bytes;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,420 @@
+package game;
+
+import model.economy.EconomyEvent;
+import model.economy.EconomyListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * יומן אירועים כלכליים: קובץ של רשומות בגודל קבוע שנכתב רק בסופו,
+ * דרך מיפוי זיכרון.
+ *
+ * מבנה הקובץ:
+ * - כותרת (64 בתים): magic, גרסה, גודל רשומה
+ * - רשומות של 64 בתים: מספר רץ, סוג, מזהי שמות, כמות, ערך ו-CRC32.
+ *   שמות (דמויות, חנויות, פריטים) נכתבים פעם אחת ברשומת שם, ומאז רק המזהה.
+ *   שם ארוך מ-MAX_NAME_BYTES ממשיך ברשומות שם נוספות עם אותו מזהה,
+ *   והבתים מחוברים לפני הפענוח - כך שם לא נחתך באמצע תו.
+ *
+ * כתיבה היא העתקה של 64 בתים לזיכרון הממופה. ההורדה לדיסק (force) מקובצת:
+ * sync() מוריד את כל מה שנכתב עד עכשיו בפעולה אחת, וכותבים שמחכים
+ * במקביל נהנים מאותה הורדה.
+ *
+ * שחזור אחרי קריסה: בפתיחה היומן נסרק עד הרשומה הראשונה שה-CRC או המספר
+ * הרץ שלה לא תקינים, והכתיבה ממשיכה משם.
+ *
+ * כמאזין, היומן נקרא אחרי שהעסקה כבר בוצעה - ולכן כתיבה שנכשלה לא נזרקת
+ * משם. היומן מסומן ככושל, מפסיק לכתוב, והשגיאה נזרקת ב-sync/close הבאים.
+ */
+public class EconomyJournal implements EconomyListener, Closeable {
+
+    private static final int MAGIC = 0x45434A4C; // "ECJL"
+    private static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+    public static final int RECORD_SIZE = 64;
+    // בתי שם ברשומה אחת; שם ארוך יותר ממשיך ברשומה הבאה
+    static final int MAX_NAME_BYTES = 44;
+    private static final byte NAME_CONTINUES = 1;
+    private static final int GROW_RECORDS = 16 * 1024; // 1MB בכל הגדלה
+
+    private static final byte TYPE_NAME = 0; // סוגי אירועים: ordinal + 1
+    private static final EconomyEvent.Type[] TYPES = EconomyEvent.Type.values();
+
+    private final FileChannel channel;
+    private final boolean writable;
+    private MappedByteBuffer buffer;
+    private long capacity;        // מספר הרשומות שממופות
+    private long nextSequence;    // הרשומה הבאה (וגם מספר הרשומות)
+    private long durableSequence; // רשומות [0, durable) ירדו לדיסק
+    private boolean flushing;
+    private volatile IOException failure; // כתיבה שנכשלה במאזין (הראשונה)
+
+    private final HashMap<String, Integer> nameIds;
+    private final ArrayList<String> names;
+    private final byte[] scratch;
+    private final CRC32 crc;
+
+    private EconomyJournal(FileChannel channel, boolean writable) {
+        this.channel = channel;
+        this.writable = writable;
+        this.nameIds = new HashMap<>();
+        this.names = new ArrayList<>();
+        this.scratch = new byte[RECORD_SIZE];
+        this.crc = new CRC32();
+    }
+
+    // ============================================================
+    //  פתיחה ושחזור
+    // ============================================================
+
+    /**
+     * פותח יומן לכתיבה (יוצר אותו אם לא קיים) ומשחזר את הרשומות התקינות.
+     *
+     * @param file קובץ היומן
+     * @return היומן, מוכן להוספת רשומות אחרי האחרונה התקינה
+     * @throws IOException אם הקובץ לא יומן או שלא ניתן לפתוח אותו
+     */
+    public static EconomyJournal open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        EconomyJournal journal = new EconomyJournal(channel, true);
+        try {
+            if (channel.size() == 0) {
+                journal.map(GROW_RECORDS);
+                journal.buffer.putInt(0, MAGIC);
+                journal.buffer.putInt(4, VERSION);
+                journal.buffer.putInt(8, RECORD_SIZE);
+                journal.buffer.force(0, HEADER_SIZE);
+            } else {
+                journal.map(Math.max(recordsIn(channel.size()), 1));
+                journal.checkHeader(file);
+                journal.recover();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * קורא את כל האירועים התקינים ביומן לפי הסדר, בלי לשנות את הקובץ.
+     *
+     * @param file קובץ היומן
+     * @param consumer מקבל כל אירוע
+     * @return מספר האירועים שנקראו
+     * @throws IOException אם הקובץ לא יומן או שלא ניתן לקרוא אותו
+     */
+    public static long replay(File file, Consumer<EconomyEvent> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            EconomyJournal journal = new EconomyJournal(channel, false);
+            journal.map(recordsIn(channel.size()));
+            journal.checkHeader(file);
+            journal.recover();
+            return journal.replay(consumer);
+        }
+    }
+
+    private static long recordsIn(long fileSize) {
+        return Math.max(0, (fileSize - HEADER_SIZE) / RECORD_SIZE);
+    }
+
+    private void map(long records) throws IOException {
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE
+                : FileChannel.MapMode.READ_ONLY;
+        long size = HEADER_SIZE + records * RECORD_SIZE;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Journal is full: " + records + " records");
+        }
+        buffer = channel.map(mode, 0, size);
+        capacity = records;
+    }
+
+    private void checkHeader(File file) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an economy journal: " + file);
+        }
+        if (buffer.getInt(4) != VERSION || buffer.getInt(8) != RECORD_SIZE) {
+            throw new IOException("Unsupported journal version " + buffer.getInt(4) + ": " + file);
+        }
+    }
+
+    /**
+     * סורק את הרשומות עד הראשונה שלא תקינה (כתיבה חלקית בזמן קריסה)
+     * ובונה מחדש את טבלת השמות.
+     */
+    private void recover() {
+        long sequence = 0;
+        long nameStart = -1; // תחילת שם שעוד לא הסתיים
+        ByteArrayOutputStream nameBytes = new ByteArrayOutputStream();
+        while (sequence < capacity && isValid(sequence)) {
+            int pos = position(sequence);
+            if (buffer.get(pos + 8) == TYPE_NAME) {
+                if (nameStart < 0) {
+                    nameStart = sequence;
+                }
+                byte[] chunk = new byte[buffer.get(pos + 9) & 0xFF];
+                buffer.get(pos + 16, chunk);
+                nameBytes.write(chunk, 0, chunk.length);
+                if (buffer.get(pos + 10) != NAME_CONTINUES) {
+                    registerName(new String(nameBytes.toByteArray(), StandardCharsets.UTF_8));
+                    nameBytes.reset();
+                    nameStart = -1;
+                }
+            }
+            sequence++;
+        }
+        // שם שנקטע באמצע נכתב מחדש מההתחלה, אז הכתיבה ממשיכה מתחילתו
+        if (nameStart >= 0) {
+            sequence = nameStart;
+        }
+        nextSequence = sequence;
+        durableSequence = sequence;
+        // מחק שאריות אחרי הרשומה התקינה האחרונה, כדי שלא "יחזרו לחיים"
+        if (writable && sequence < capacity) {
+            byte[] zeros = new byte[RECORD_SIZE];
+            // (הרשומה הראשונה נמחקת תמיד - המספר הרץ שלה יכול להיות 0)
+            for (long i = sequence; i < capacity
+                    && (i == sequence || buffer.getLong(position(i)) != 0); i++) {
+                buffer.put(position(i), zeros);
+            }
+        }
+    }
+
+    private boolean isValid(long sequence) {
+        int pos = position(sequence);
+        if (buffer.getLong(pos) != sequence) {
+            return false;
+        }
+        buffer.get(pos, scratch);
+        crc.reset();
+        crc.update(scratch, 0, RECORD_SIZE - 4);
+        return (int) crc.getValue() == buffer.getInt(pos + RECORD_SIZE - 4);
+    }
+
+    // ============================================================
+    //  כתיבה
+    // ============================================================
+
+    /**
+     * מוסיף אירוע לסוף היומן (בזיכרון הממופה; לדיסק ב-sync).
+     *
+     * @return המספר הרץ של האירוע
+     * @throws IOException אם לא ניתן להגדיל את הקובץ
+     */
+    public synchronized long append(EconomyEvent.Type type, String actor, String itemName,
+                                    int amount, long value) throws IOException {
+        int actorId = nameId(actor);
+        int itemId = itemName == null ? -1 : nameId(itemName);
+        Arrays.fill(scratch, (byte) 0);
+        ByteBuffer record = ByteBuffer.wrap(scratch);
+        record.put(8, (byte) (type.ordinal() + 1));
+        record.putInt(12, actorId);
+        record.putInt(16, itemId);
+        record.putInt(20, amount);
+        record.putLong(24, value);
+        return write(record);
+    }
+
+    /**
+     * מימוש EconomyListener - כותב את האירוע ליומן.
+     * כישלון לא נזרק (העסקה כבר בוצעה) אלא נשמר ל-sync/close.
+     */
+    @Override
+    public void onEconomyEvent(EconomyEvent.Type type, String actor, String itemName,
+                               int amount, long value) {
+        if (failure != null) {
+            return; // אירוע כבר חסר - המשך כתיבה היה יוצר יומן עם חור
+        }
+        try {
+            append(type, actor, itemName, amount, value);
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private int nameId(String name) throws IOException {
+        Integer id = nameIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        int newId = names.size();
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int offset = 0;
+        do {
+            int length = Math.min(bytes.length - offset, MAX_NAME_BYTES);
+            Arrays.fill(scratch, (byte) 0);
+            ByteBuffer record = ByteBuffer.wrap(scratch);
+            record.put(8, TYPE_NAME);
+            record.put(9, (byte) length);
+            if (offset + length < bytes.length) {
+                record.put(10, NAME_CONTINUES);
+            }
+            record.putInt(12, newId);
+            record.put(16, bytes, offset, length);
+            write(record);
+            offset += length;
+        } while (offset < bytes.length);
+        names.add(name);
+        nameIds.put(name, newId);
+        return newId;
+    }
+
+    /**
+     * משלים מספר רץ ו-CRC לרשומה שב-scratch ומעתיק אותה לקובץ.
+     */
+    private long write(ByteBuffer record) throws IOException {
+        if (nextSequence == capacity) {
+            map(capacity + GROW_RECORDS);
+        }
+        long sequence = nextSequence;
+        record.putLong(0, sequence);
+        crc.reset();
+        crc.update(scratch, 0, RECORD_SIZE - 4);
+        record.putInt(RECORD_SIZE - 4, (int) crc.getValue());
+        buffer.put(position(sequence), scratch);
+        nextSequence++;
+        return sequence;
+    }
+
+    // ============================================================
+    //  הורדה לדיסק (group commit)
+    // ============================================================
+
+    /**
+     * מוריד לדיסק את כל האירועים שנכתבו עד עכשיו.
+     * אם הורדה אחרת כבר רצה, מחכה לה ובודק אם היא כיסתה גם את האירועים שלנו -
+     * כך כמה threads שקוראים ל-sync יחד גורמים להורדה אחת או שתיים.
+     *
+     * @throws UncheckedIOException אם כתיבה של אירוע מהמאזין נכשלה (אחרי ההורדה)
+     */
+    public void sync() {
+        flush();
+        if (failure != null) {
+            throw new UncheckedIOException("Economy journal lost an event", failure);
+        }
+    }
+
+    private void flush() {
+        MappedByteBuffer target;
+        long from;
+        long to;
+        synchronized (this) {
+            long wanted = nextSequence;
+            while (flushing && durableSequence < wanted) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (durableSequence >= wanted) {
+                return;
+            }
+            flushing = true;
+            target = buffer;
+            from = durableSequence;
+            to = nextSequence;
+        }
+        try {
+            // מחוץ לנעילה - הוספת אירועים ממשיכה בזמן ההורדה
+            target.force(position(from), (int) ((to - from) * RECORD_SIZE));
+        } finally {
+            synchronized (this) {
+                durableSequence = Math.max(durableSequence, to);
+                flushing = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * מתזמן sync תקופתי על executor קיים.
+     *
+     * @return המשימה המתוזמנת (לביטול)
+     */
+    public ScheduledFuture<?> schedule(ScheduledExecutorService executor, long period, TimeUnit unit) {
+        return executor.scheduleWithFixedDelay(this::sync, period, period, unit);
+    }
+
+    // ============================================================
+    //  קריאה
+    // ============================================================
+
+    /**
+     * מעביר את כל האירועים ביומן לפי הסדר (בלי רשומות השמות).
+     *
+     * @param consumer מקבל כל אירוע
+     * @return מספר האירועים
+     */
+    public synchronized long replay(Consumer<EconomyEvent> consumer) {
+        long count = 0;
+        for (long sequence = 0; sequence < nextSequence; sequence++) {
+            int pos = position(sequence);
+            byte type = buffer.get(pos + 8);
+            if (type == TYPE_NAME) {
+                continue;
+            }
+            int itemId = buffer.getInt(pos + 16);
+            consumer.accept(new EconomyEvent(sequence, TYPES[type - 1],
+                    names.get(buffer.getInt(pos + 12)),
+                    itemId < 0 ? null : names.get(itemId),
+                    buffer.getInt(pos + 20), buffer.getLong(pos + 24)));
+            count++;
+        }
+        return count;
+    }
+
+    private void registerName(String name) {
+        nameIds.putIfAbsent(name, names.size());
+        names.add(name);
+    }
+
+    private static int position(long sequence) {
+        return (int) (HEADER_SIZE + sequence * RECORD_SIZE);
+    }
+
+    // Getters
+    public synchronized long getRecordCount() {
+        return nextSequence;
+    }
+
+    public synchronized long getDurableCount() {
+        return durableSequence;
+    }
+
+    /**
+     * @throws IOException אם כתיבה של אירוע מהמאזין נכשלה (היומן נסגר בכל מקרה)
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (writable) {
+                flush();
+            }
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw new IOException("Economy journal lost an event", failure);
+        }
+    }
+}
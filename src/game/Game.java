@@ -6,8 +6,11 @@ import model.characters.Character;
 import model.items.*;
 import model.exceptions.*;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 /**
  * המחלקה הראשית של המשחק.
@@ -20,6 +23,21 @@ public class Game {
     private Shop shop;
     private Scanner scanner;
     private boolean gameRunning;
+    private EconomyJournal journal;
+    private RestockScheduler restockScheduler;
+    private CatalogReloader catalogReloader;
+    private SaveGame saveGame;
+
+    // קובץ המפה - נטען בהפעלה אם קיים, ונכתב אחרי בנייה בקוד
+    private static final File MAP_FILE = new File("dungeon.map");
+    // יומן כל תנועות הזהב והפריטים
+    private static final File JOURNAL_FILE = new File("economy.journal");
+    private static final int SHOP_STOCK_CAP = 10;
+    // קטלוג הפריטים (טקסט או מקומפל) - אם קיים, החנות נבנית ממנו ונטענת מחדש כשהוא משתנה
+    private static final File CATALOG_FILE = new File("items.catalog");
+    private static final int CATALOG_START_STOCK = 3;
+    // שמירת המשחק - נכתבת אחרי כל פעולה (רק מה שהשתנה) ובמלואה ביציאה
+    private static final File SAVE_FILE = new File("savegame.dat");
 
     public Game() {
         this.scanner = new Scanner(System.in);
@@ -34,12 +52,80 @@ public class Game {
         System.out.println("  Welcome to Dungeon Adventure!");
         System.out.println("=================================\n");
 
-        createCharacter();
         initializeMap();
         initializeShop();
+        loadOrCreateCharacter();
+        openJournal();
 
         gameRunning = true;
         gameLoop();
+        restockScheduler.shutdown();
+        closeJournal();
+    }
+
+    /**
+     * פותח את היומן הכלכלי ומחבר אליו את השחקן והחנות.
+     * המשחק ממשיך גם בלי יומן אם לא ניתן לפתוח אותו.
+     */
+    private void openJournal() {
+        try {
+            journal = EconomyJournal.open(JOURNAL_FILE);
+            player.setEconomyListener(journal);
+            shop.setEconomyListener(journal);
+            journal.schedule(restockScheduler.getExecutor(), 1, TimeUnit.SECONDS);
+        } catch (IOException e) {
+            System.out.println("Could not open economy journal: " + e.getMessage());
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("Could not close economy journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * ממשיך משחק שמור אם יש ושהשחקן בחר בכך, אחרת יוצר דמות חדשה.
+     * המפה והחנות כבר בנויות - השמירה מוחלת עליהן.
+     */
+    private void loadOrCreateCharacter() {
+        saveGame = new SaveGame(SAVE_FILE);
+        if (saveGame.exists()) {
+            System.out.print("Continue saved game? (y/n): ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("y")) {
+                try {
+                    player = saveGame.load(map, shop);
+                    System.out.println("Welcome back, " + player.getName() + "!");
+                    return;
+                } catch (IOException e) {
+                    System.out.println("Could not load saved game: " + e.getMessage());
+                }
+            }
+        }
+        createCharacter();
+        saveGame.begin(map, shop);
+    }
+
+    /**
+     * שומר את המשחק. מלא - תמונת מצב שלמה; אחרת רק מה שהשתנה.
+     * המשחק ממשיך גם אם השמירה נכשלה.
+     */
+    private void saveProgress(boolean full) {
+        try {
+            if (full) {
+                saveGame.save(player, map, shop);
+                System.out.println("Game saved.");
+            } else {
+                saveGame.autosave(player, map, shop);
+            }
+        } catch (IOException e) {
+            System.out.println("Could not save game: " + e.getMessage());
+        }
     }
 
     /**
@@ -76,9 +162,29 @@ public class Game {
     }
 
     /**
-     * יוצר את מפת המבוך עם כמה מיקומים.
+     * טוען את מפת המבוך מהקובץ, או בונה אותה בקוד אם אין קובץ תקין.
      */
     private void initializeMap() {
+        if (MAP_FILE.exists()) {
+            try {
+                map = DungeonMap.load(MAP_FILE);
+                return;
+            } catch (IOException e) {
+                System.out.println("Could not load map file, rebuilding: " + e.getMessage());
+            }
+        }
+        buildDefaultMap();
+        try {
+            map.save(MAP_FILE);
+        } catch (IOException e) {
+            System.out.println("Could not save map file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * יוצר את מפת המבוך עם כמה מיקומים.
+     */
+    private void buildDefaultMap() {
         // 1. צור DungeonMap חדש
         map = new DungeonMap();
         // 2. הוסף לפחות 5 מיקומים
@@ -117,19 +223,15 @@ public class Game {
         map.addLocation(armory);
         map.addLocation(dungeon);
         map.addLocation(bossRoom);
-        // 3. חבר ביניהם
-        entrance.addConnection("hall");
-
-        hall.addConnection("entrance");
-        hall.addConnection("armory");
-        hall.addConnection("dungeon");
-
-        armory.addConnection("hall");
-
-        dungeon.addConnection("hall");
-        dungeon.addConnection("boss");
-
-        bossRoom.addConnection("dungeon");
+        // 3. חבר ביניהם (דרך המפה, כדי שרכיבי הקשירות יתעדכנו)
+        try {
+            map.connectLocations("entrance", "hall");
+            map.connectLocations("hall", "armory");
+            map.connectLocations("hall", "dungeon");
+            map.connectLocations("dungeon", "boss");
+        } catch (InvalidActionException e) {
+            throw new RuntimeException(e);
+        }
 
         // 4. הגדר נקודת התחלה ומיקום הבוס
         bossRoom.setHasMaster(true);
@@ -144,7 +246,56 @@ public class Game {
     private void initializeShop() {
         // 1. צור Shop חדש
         shop = new Shop("Village Shop");
-        // 2. הוסף כמה נשקים, שריונים ושיקויים
+        // 2. הוסף כמה נשקים, שריונים ושיקויים - מהקטלוג אם יש, אחרת ברירת המחדל
+        if (!stockFromCatalog()) {
+            stockDefaultItems();
+        }
+        // 3. חידוש מלאי ותמחור מחדש ברקע, על אותו מתזמן
+        restockScheduler = new RestockScheduler(1);
+        restockScheduler.setFailureListener((registration, e) ->
+                System.out.println("Restock failed: " + e.getMessage()));
+        restockScheduler.scheduleShop(shop,
+                RestockPolicy.capped(RestockPolicy.fixed(1), SHOP_STOCK_CAP), 60, TimeUnit.SECONDS);
+        shop.getPricingEngine().schedule(restockScheduler.getExecutor(), 60, TimeUnit.SECONDS);
+        if (catalogReloader != null) {
+            catalogReloader.schedule(restockScheduler.getExecutor(), 5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * ממלא את החנות מקובץ הקטלוג. פריטים שנוספים לקטלוג בזמן המשחק
+     * נכנסים לחנות בלי מלאי, וחידוש המלאי ממלא אותם.
+     *
+     * @return false אם אין קטלוג או שלא ניתן לטעון אותו
+     */
+    private boolean stockFromCatalog() {
+        if (!CATALOG_FILE.exists()) {
+            return false;
+        }
+        try {
+            catalogReloader = new CatalogReloader(CATALOG_FILE);
+        } catch (IOException e) {
+            System.out.println("Could not load item catalog: " + e.getMessage());
+            return false;
+        }
+        ArrayList<Item> items = new ArrayList<>();
+        for (ItemDefinition definition : catalogReloader.getCatalog().getDefinitions()) {
+            items.add(definition.newInstance());
+        }
+        shop.addItemsToShop(items, CATALOG_START_STOCK);
+        catalogReloader.setReloadListener(catalog -> {
+            ArrayList<Item> added = new ArrayList<>();
+            for (ItemDefinition definition : catalog.getDefinitions()) {
+                if (shop.getEntry(definition.getName()) == null) {
+                    added.add(definition.newInstance());
+                }
+            }
+            shop.addItemsToShop(added, 0);
+        });
+        return true;
+    }
+
+    private void stockDefaultItems() {
         shop.addItemToShop(new Weapon("Sword",
                 "sharp",
                 5,
@@ -152,15 +303,7 @@ public class Game {
                 Item.ItemRarity.COMMON,
                 2,5,
                 Weapon.WeaponType.SWORD),
-                3);
-        shop.addItemToShop(new Weapon("Sword",
-                        "sharp",
-                        5,
-                        10,
-                        Item.ItemRarity.COMMON,
-                        2,5,
-                        Weapon.WeaponType.SWORD),
-                3);
+                6);
         shop.addItemToShop(new Weapon("axe",
                         "sharp",
                         3,
@@ -185,7 +328,6 @@ public class Game {
                         6,7,
                         Weapon.WeaponType.STAFF),
                 1);
-
     }
 
     /**
@@ -196,6 +338,9 @@ public class Game {
             displayMenu();
             int choice = getPlayerChoice();
             handleChoice(choice);
+            if (gameRunning) {
+                saveProgress(false);
+            }
         }
 
         System.out.println("\nThanks for playing Dungeon Adventure!");
@@ -249,6 +394,7 @@ public class Game {
                 startBattle();
                 break;
             case 6:
+                saveProgress(true);
                 gameRunning = false;
                 break;
             default:
@@ -301,9 +447,13 @@ public class Game {
             System.out.println("Invalid location.");
             return;
         }
-        // 3. הזז את השחקן
-        map.setStartLocation(connections.get(choice));
-        map.getCurrentLocation().markAsVisited();
+        // 3. הזז את השחקן (moveTo מסמן את היעד כמבוקר)
+        try {
+            map.moveTo(connections.get(choice));
+        } catch (InvalidActionException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
 
         System.out.println("You moved to: " + map.getCurrentLocation().getName());
     }
@@ -2,6 +2,9 @@ package game;
 
 import model.items.Item;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 /**
  * מחלקה המייצגת מיקום במפת המשחק.
@@ -16,6 +19,8 @@ public class GameLocation {
     private boolean visited;
     private boolean hasMaster;
     private int dangerLevel;
+    private LootIndex lootIndex; // אינדקס השלל של המפה (אם המיקום שייך למפה)
+    private Set<String> dirtyLocationIds; // המיקומים שהשתנו מאז השמירה האחרונה
 
     public GameLocation(String id, String name, String description, int dangerLevel) {
         this.id = id;
@@ -41,6 +46,7 @@ public class GameLocation {
     public void addConnection(String locationId) {
         if (!connectedLocationIds.contains(locationId)) {
             connectedLocationIds.add(locationId);
+            markDirty();
         }
     }
 
@@ -64,6 +70,10 @@ public class GameLocation {
         if (item != null)
         {
             loot.add(item);
+            if (lootIndex != null) {
+                lootIndex.add(id, item);
+            }
+            markDirty();
         }
     }
 
@@ -74,7 +84,14 @@ public class GameLocation {
      */
     public ArrayList<Item> collectAllLoot() {
         ArrayList<Item> collected = new ArrayList<>(loot);
+        if (collected.isEmpty()) {
+            return collected;
+        }
         loot.clear();
+        if (lootIndex != null) {
+            lootIndex.removeAll(id, collected);
+        }
+        markDirty();
         return collected;
     }
 
@@ -82,7 +99,16 @@ public class GameLocation {
      * מסמן את המיקום כמבוקר.
      */
     public void markAsVisited() {
-        this.visited = true;
+        if (!visited) {
+            this.visited = true;
+            markDirty();
+        }
+    }
+
+    private void markDirty() {
+        if (dirtyLocationIds != null) {
+            dirtyLocationIds.add(id);
+        }
     }
 
     // Getters & Setters
@@ -102,6 +128,29 @@ public class GameLocation {
         return new ArrayList<>(connectedLocationIds);
     }
 
+    /**
+     * תצוגה לקריאה בלבד של החיבורים, בלי העתקה (לסריקות בתוך המפה).
+     */
+    List<String> getConnectionsView() {
+        return Collections.unmodifiableList(connectedLocationIds);
+    }
+
+    /**
+     * מחבר את המיקום לאינדקס השלל ולרשימת השינויים של המפה (null לניתוק).
+     * השלל הקיים לא נרשם כאן - המפה אחראית לכך.
+     */
+    void attach(LootIndex lootIndex, Set<String> dirtyLocationIds) {
+        this.lootIndex = lootIndex;
+        this.dirtyLocationIds = dirtyLocationIds;
+    }
+
+    /**
+     * תצוגה לקריאה בלבד של השלל, בלי העתקה (לשמירה בקובץ).
+     */
+    List<Item> getLootView() {
+        return Collections.unmodifiableList(loot);
+    }
+
     public boolean isVisited() {
         return visited;
     }
@@ -111,7 +160,10 @@ public class GameLocation {
     }
 
     public void setHasMaster(boolean hasMaster) {
-        this.hasMaster = hasMaster;
+        if (this.hasMaster != hasMaster) {
+            this.hasMaster = hasMaster;
+            markDirty();
+        }
     }
 
     public int getDangerLevel() {
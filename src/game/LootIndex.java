@@ -0,0 +1,157 @@
+package game;
+
+import model.items.Item;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * אינדקס שלל ברמת העולם.
+ * לכל צירוף של סוג פריט ונדירות שומר אילו מיקומים מכילים שלל כזה, וכמה.
+ * נשמרים מונים ולא הפריטים עצמם, כך שהזיכרון תלוי במספר הצירופים
+ * (מיקום, סוג, נדירות) ולא במספר הפריטים.
+ */
+public class LootIndex {
+
+    private static final int RARITIES = Item.ItemRarity.values().length;
+
+    // דלי לכל (סוג, נדירות): מזהה מיקום -> כמות פריטים
+    private final ArrayList<HashMap<String, Integer>> buckets;
+    private final long[] bucketTotals;
+
+    public LootIndex() {
+        int size = Item.ItemCategory.values().length * RARITIES;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new HashMap<>());
+        }
+        this.bucketTotals = new long[size];
+    }
+
+    // ============================================================
+    //  עדכון
+    // ============================================================
+
+    /**
+     * רושם פריט שנוסף למיקום.
+     *
+     * @param locationId מזהה המיקום
+     * @param item הפריט
+     */
+    public void add(String locationId, Item item) {
+        add(locationId, item.getCategory(), item.getRarity(), 1);
+    }
+
+    /**
+     * רושם כמה פריטים מאותו סוג ונדירות שנוספו למיקום.
+     */
+    void add(String locationId, Item.ItemCategory category, Item.ItemRarity rarity, int count) {
+        int bucket = bucketOf(category, rarity);
+        buckets.get(bucket).merge(locationId, count, Integer::sum);
+        bucketTotals[bucket] += count;
+    }
+
+    /**
+     * מוחק פריט שהוסר ממיקום.
+     *
+     * @param locationId מזהה המיקום
+     * @param item הפריט
+     */
+    public void remove(String locationId, Item item) {
+        int bucket = bucketOf(item.getCategory(), item.getRarity());
+        HashMap<String, Integer> locations = buckets.get(bucket);
+        Integer count = locations.get(locationId);
+        if (count == null) {
+            return;
+        }
+        if (count <= 1) {
+            locations.remove(locationId);
+        } else {
+            locations.put(locationId, count - 1);
+        }
+        bucketTotals[bucket]--;
+    }
+
+    /**
+     * מוחק את כל הפריטים שנאספו ממיקום.
+     *
+     * @param locationId מזהה המיקום
+     * @param items הפריטים שנאספו
+     */
+    public void removeAll(String locationId, Collection<Item> items) {
+        for (Item item : items) {
+            remove(locationId, item);
+        }
+    }
+
+    // ============================================================
+    //  שאילתות
+    // ============================================================
+
+    /**
+     * בודק אם במיקום יש שלל מסוג מסוים בנדירות מינימלית.
+     *
+     * @param locationId מזהה המיקום
+     * @param category סוג הפריט (null = כל סוג)
+     * @param minRarity הנדירות המינימלית
+     * @return true אם יש שלל מתאים
+     */
+    public boolean hasLoot(String locationId, Item.ItemCategory category, Item.ItemRarity minRarity) {
+        for (Item.ItemCategory c : categories(category)) {
+            for (int r = minRarity.ordinal(); r < RARITIES; r++) {
+                if (buckets.get(c.ordinal() * RARITIES + r).containsKey(locationId)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * סופר פריטים בעולם מסוג מסוים בנדירות מינימלית.
+     *
+     * @param category סוג הפריט (null = כל סוג)
+     * @param minRarity הנדירות המינימלית
+     * @return מספר הפריטים
+     */
+    public long countLoot(Item.ItemCategory category, Item.ItemRarity minRarity) {
+        long total = 0;
+        for (Item.ItemCategory c : categories(category)) {
+            for (int r = minRarity.ordinal(); r < RARITIES; r++) {
+                total += bucketTotals[c.ordinal() * RARITIES + r];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * מחזיר את כל המיקומים שיש בהם שלל מסוג מסוים בנדירות מינימלית.
+     *
+     * @param category סוג הפריט (null = כל סוג)
+     * @param minRarity הנדירות המינימלית
+     * @return מזהי המיקומים
+     */
+    public ArrayList<String> getLocationsWithLoot(Item.ItemCategory category,
+                                                  Item.ItemRarity minRarity) {
+        HashSet<String> seen = new HashSet<>();
+        for (Item.ItemCategory c : categories(category)) {
+            for (int r = minRarity.ordinal(); r < RARITIES; r++) {
+                for (String id : buckets.get(c.ordinal() * RARITIES + r).keySet()) {
+                    seen.add(id);
+                }
+            }
+        }
+        return new ArrayList<>(seen);
+    }
+
+    private static int bucketOf(Item.ItemCategory category, Item.ItemRarity rarity) {
+        return category.ordinal() * RARITIES + rarity.ordinal();
+    }
+
+    private static Item.ItemCategory[] categories(Item.ItemCategory category) {
+        return category == null
+                ? Item.ItemCategory.values()
+                : new Item.ItemCategory[]{category};
+    }
+}
@@ -0,0 +1,453 @@
+package game;
+
+import model.items.Item;
+import model.items.ItemCodec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * קובץ מפה המחולק לאזורים (chunks).
+ *
+ * מבנה הקובץ:
+ * - כותרת: לכל מיקום מזהה, רמת סכנה, מספר האזור שלו, רכיב הקשירות שלו
+ *   וסיכום השלל שבו,
+ *   ולכל אזור היסט ואורך
+ * - גוף: האזורים עצמם, כל אזור הוא רצף של מיקומים מקודדים
+ *
+ * הכותרת נטענת כולה בפתיחה, וגוף הקובץ ממופה לזיכרון פעם אחת; כל אזור
+ * נקרא לפי דרישה כחלק מהמיפוי הזה.
+ */
+public class MapChunkFile implements Closeable {
+
+    private static final int MAGIC = 0x444D4346; // "DMCF"
+    // 2: סיכום שלל לכל מיקום בכותרת, 3: רכיב קשירות לכל מיקום
+    private static final int VERSION = 3;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer data; // גוף הקובץ - כל האזורים
+    private final String[] locationIds;
+    private final int[] dangerLevels;
+    private final int[] chunkOfLocation;
+    private final int[] componentOf; // אינדקס נציג הרכיב של כל מיקום
+    // סיכום שלל: לכל מיקום i הרשומות [lootStart[i], lootStart[i+1])
+    private final int[] lootStart;
+    private final byte[] lootKinds;
+    private final int[] lootCounts;
+    private final long[] chunkOffsets;
+    private final int[] chunkLengths;
+    private final String startLocationId;
+    private final String bossLocationId;
+    private final String currentLocationId;
+
+    private MapChunkFile(FileChannel channel, MappedByteBuffer data, String[] locationIds,
+                         int[] dangerLevels, int[] chunkOfLocation, int[] componentOf,
+                         int[] lootStart, byte[] lootKinds, int[] lootCounts,
+                         long[] chunkOffsets, int[] chunkLengths,
+                         String startLocationId, String bossLocationId,
+                         String currentLocationId) {
+        this.channel = channel;
+        this.data = data;
+        this.locationIds = locationIds;
+        this.dangerLevels = dangerLevels;
+        this.chunkOfLocation = chunkOfLocation;
+        this.componentOf = componentOf;
+        this.lootStart = lootStart;
+        this.lootKinds = lootKinds;
+        this.lootCounts = lootCounts;
+        this.chunkOffsets = chunkOffsets;
+        this.chunkLengths = chunkLengths;
+        this.startLocationId = startLocationId;
+        this.bossLocationId = bossLocationId;
+        this.currentLocationId = currentLocationId;
+    }
+
+    // ============================================================
+    //  כתיבה
+    // ============================================================
+
+    /**
+     * כותב מפה לקובץ מחולק לאזורים.
+     * המיקומים מסודרים לפי סריקת BFS מנקודת ההתחלה, כך שמיקומים סמוכים
+     * נופלים לאותו אזור.
+     *
+     * @param map המפה לכתיבה
+     * @param file קובץ היעד
+     * @param locationsPerChunk מספר המיקומים בכל אזור
+     * @throws IOException אם הכתיבה נכשלה
+     */
+    public static void write(DungeonMap map, File file, int locationsPerChunk) throws IOException {
+        if (locationsPerChunk <= 0) {
+            throw new IllegalArgumentException("locationsPerChunk must be positive");
+        }
+        ArrayList<GameLocation> ordered = orderByRegion(map);
+
+        // 1. קודד את האזורים
+        ArrayList<byte[]> chunks = new ArrayList<>();
+        for (int i = 0; i < ordered.size(); i += locationsPerChunk) {
+            chunks.add(encodeChunk(ordered.subList(i, Math.min(i + locationsPerChunk, ordered.size()))));
+        }
+
+        // 2. חשב רכיבי קשירות, כדי שהמפה תוכל לענות על נגישות בלי לטעון אזורים
+        HashMap<String, Integer> indexOf = new HashMap<>();
+        ConnectedComponents components = new ConnectedComponents();
+        for (int i = 0; i < ordered.size(); i++) {
+            indexOf.put(ordered.get(i).getId(), i);
+            components.add(ordered.get(i).getId());
+        }
+        for (GameLocation location : ordered) {
+            for (String id : location.getConnectionsView()) {
+                if (indexOf.containsKey(id)) {
+                    components.union(location.getId(), id);
+                }
+            }
+        }
+
+        // 3. בנה את הכותרת
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(ordered.size());
+        header.writeInt(chunks.size());
+        header.writeUTF(nullToEmpty(map.getStartLocationId()));
+        header.writeUTF(nullToEmpty(map.getBossLocationId()));
+        header.writeUTF(nullToEmpty(map.getCurrentLocationId()));
+        for (int i = 0; i < ordered.size(); i++) {
+            GameLocation location = ordered.get(i);
+            header.writeUTF(location.getId());
+            header.writeInt(location.getDangerLevel());
+            header.writeInt(i / locationsPerChunk);
+            header.writeInt(indexOf.get(components.find(location.getId())));
+            writeLootSummary(header, location);
+        }
+        long offset = 0;
+        for (byte[] chunk : chunks) {
+            header.writeLong(offset);
+            header.writeInt(chunk.length);
+            offset += chunk.length;
+        }
+        header.flush();
+
+        // 4. כתוב הכל לקובץ
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(16L + headerBytes.size());
+            headerBytes.writeTo(out);
+            for (byte[] chunk : chunks) {
+                out.write(chunk);
+            }
+        }
+    }
+
+    /**
+     * כותב סיכום שלל של מיקום: מספר הפריטים לכל צירוף סוג ונדירות.
+     */
+    private static void writeLootSummary(DataOutputStream header, GameLocation location)
+            throws IOException {
+        int rarities = Item.ItemRarity.values().length;
+        int[] counts = new int[Item.ItemCategory.values().length * rarities];
+        int kinds = 0;
+        for (Item item : location.getLootView()) {
+            int kind = item.getCategory().ordinal() * rarities + item.getRarity().ordinal();
+            if (counts[kind]++ == 0) {
+                kinds++;
+            }
+        }
+        header.writeShort(kinds);
+        for (int kind = 0; kind < counts.length; kind++) {
+            if (counts[kind] > 0) {
+                header.writeByte(kind);
+                header.writeInt(counts[kind]);
+            }
+        }
+    }
+
+    /**
+     * מסדר את המיקומים לפי BFS מנקודת ההתחלה, ואחריהם מיקומים שלא נגישים ממנה.
+     */
+    private static ArrayList<GameLocation> orderByRegion(DungeonMap map) {
+        HashMap<String, GameLocation> all = map.getAllLocations();
+        ArrayList<GameLocation> ordered = new ArrayList<>(all.size());
+        HashSet<String> seen = new HashSet<>();
+        ArrayDeque<String> queue = new ArrayDeque<>();
+
+        ArrayList<String> roots = new ArrayList<>();
+        if (map.getStartLocationId() != null) {
+            roots.add(map.getStartLocationId());
+        }
+        roots.addAll(all.keySet());
+
+        for (String root : roots) {
+            if (!all.containsKey(root) || !seen.add(root)) {
+                continue;
+            }
+            queue.add(root);
+            while (!queue.isEmpty()) {
+                GameLocation location = all.get(queue.poll());
+                ordered.add(location);
+                for (String id : location.getConnectionsView()) {
+                    if (all.containsKey(id) && seen.add(id)) {
+                        queue.add(id);
+                    }
+                }
+            }
+        }
+        return ordered;
+    }
+
+    // ============================================================
+    //  קריאה
+    // ============================================================
+
+    /**
+     * פותח קובץ אזורים וטוען את הכותרת בלבד.
+     *
+     * @param file הקובץ
+     * @return קובץ פתוח (יש לסגור עם close)
+     * @throws IOException אם הקובץ פגום או לא קריא
+     */
+    public static MapChunkFile open(File file) throws IOException {
+        long dataStart;
+        String[] ids;
+        int[] danger;
+        int[] chunkOf;
+        int[] componentOf;
+        int[] lootStart;
+        byte[] lootKinds;
+        int[] lootCounts;
+        long[] offsets;
+        int[] lengths;
+        String start;
+        String boss;
+        String current;
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a map chunk file: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported map chunk file version " + version);
+            }
+            dataStart = in.readLong();
+            int locationCount = in.readInt();
+            int chunkCount = in.readInt();
+            start = emptyToNull(in.readUTF());
+            boss = emptyToNull(in.readUTF());
+            current = emptyToNull(in.readUTF());
+
+            ids = new String[locationCount];
+            danger = new int[locationCount];
+            chunkOf = new int[locationCount];
+            componentOf = new int[locationCount];
+            lootStart = new int[locationCount + 1];
+            ArrayList<Byte> kinds = new ArrayList<>();
+            ArrayList<Integer> counts = new ArrayList<>();
+            for (int i = 0; i < locationCount; i++) {
+                ids[i] = in.readUTF();
+                danger[i] = in.readInt();
+                chunkOf[i] = in.readInt();
+                componentOf[i] = in.readInt();
+                lootStart[i] = kinds.size();
+                int lootKindCount = in.readUnsignedShort();
+                for (int k = 0; k < lootKindCount; k++) {
+                    kinds.add(in.readByte());
+                    counts.add(in.readInt());
+                }
+            }
+            lootStart[locationCount] = kinds.size();
+            lootKinds = new byte[kinds.size()];
+            lootCounts = new int[counts.size()];
+            for (int k = 0; k < lootKinds.length; k++) {
+                lootKinds[k] = kinds.get(k);
+                lootCounts[k] = counts.get(k);
+            }
+            offsets = new long[chunkCount];
+            lengths = new int[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                offsets[i] = in.readLong();
+                lengths[i] = in.readInt();
+            }
+        }
+
+        // 1. מיפוי גוף הקובץ פעם אחת, ובדיקה שכל האזורים בתוכו
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long dataLength = channel.size() - dataStart;
+            if (dataStart < 0 || dataLength < 0 || dataLength > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt map chunk file: " + file);
+            }
+            for (int i = 0; i < offsets.length; i++) {
+                if (offsets[i] < 0 || lengths[i] < 0 || offsets[i] + lengths[i] > dataLength) {
+                    throw new IOException("Corrupt map chunk file, chunk " + i + " out of range: " + file);
+                }
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, dataStart, dataLength);
+            return new MapChunkFile(channel, data, ids, danger, chunkOf, componentOf,
+                    lootStart, lootKinds, lootCounts, offsets, lengths, start, boss, current);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * מעתיק את הבתים המקוריים של אזור מהמיפוי (קריאה מוחלטת - בטוחה מכמה threads).
+     *
+     * @param chunk מספר האזור
+     * @return הבתים של האזור
+     */
+    byte[] readChunkBytes(int chunk) {
+        byte[] bytes = new byte[chunkLengths[chunk]];
+        data.get((int) chunkOffsets[chunk], bytes);
+        return bytes;
+    }
+
+    /**
+     * מקודד רשימת מיקומים (כולל מצב: ביקור, בוס ושלל) לבתים.
+     */
+    static byte[] encodeChunk(List<GameLocation> chunkLocations) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(chunkLocations.size());
+        for (GameLocation location : chunkLocations) {
+            out.writeUTF(location.getId());
+            out.writeUTF(location.getName());
+            out.writeUTF(location.getDescription());
+            out.writeInt(location.getDangerLevel());
+            out.writeBoolean(location.isVisited());
+            out.writeBoolean(location.hasMaster());
+
+            List<String> connections = location.getConnectionsView();
+            out.writeInt(connections.size());
+            for (String id : connections) {
+                out.writeUTF(id);
+            }
+            List<Item> loot = location.getLootView();
+            out.writeInt(loot.size());
+            for (Item item : loot) {
+                ItemCodec.write(out, item);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * מפענח בתים של אזור לרשימת מיקומים.
+     */
+    static ArrayList<GameLocation> decodeChunk(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int count = in.readInt();
+        ArrayList<GameLocation> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            GameLocation location = new GameLocation(in.readUTF(), in.readUTF(),
+                    in.readUTF(), in.readInt());
+            if (in.readBoolean()) {
+                location.markAsVisited();
+            }
+            location.setHasMaster(in.readBoolean());
+
+            int connectionCount = in.readInt();
+            for (int c = 0; c < connectionCount; c++) {
+                location.addConnection(in.readUTF());
+            }
+            int lootCount = in.readInt();
+            for (int l = 0; l < lootCount; l++) {
+                location.addLoot(ItemCodec.read(in));
+            }
+            result.add(location);
+        }
+        return result;
+    }
+
+    /**
+     * רושם באינדקס השלל את סיכום השלל של כל המיקומים, בלי לקרוא אזורים.
+     */
+    void registerLoot(LootIndex lootIndex) {
+        Item.ItemCategory[] categories = Item.ItemCategory.values();
+        Item.ItemRarity[] rarities = Item.ItemRarity.values();
+        for (int i = 0; i < locationIds.length; i++) {
+            for (int k = lootStart[i]; k < lootStart[i + 1]; k++) {
+                int kind = lootKinds[k];
+                lootIndex.add(locationIds[i], categories[kind / rarities.length],
+                        rarities[kind % rarities.length], lootCounts[k]);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Getters
+    int getLocationCount() {
+        return locationIds.length;
+    }
+
+    String getLocationId(int index) {
+        return locationIds[index];
+    }
+
+    int getDangerLevel(int index) {
+        return dangerLevels[index];
+    }
+
+    int getChunkOf(int index) {
+        return chunkOfLocation[index];
+    }
+
+    /**
+     * @return האינדקס של נציג רכיב הקשירות של המיקום
+     */
+    int getComponentOf(int index) {
+        return componentOf[index];
+    }
+
+    int getChunkCount() {
+        return chunkLengths.length;
+    }
+
+    int getChunkLength(int chunk) {
+        return chunkLengths[chunk];
+    }
+
+    String getStartLocationId() {
+        return startLocationId;
+    }
+
+    String getBossLocationId() {
+        return bossLocationId;
+    }
+
+    String getCurrentLocationId() {
+        return currentLocationId;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,441 @@
+package game;
+
+import model.items.Item;
+import model.items.ItemCodec;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * פורמט בינארי קומפקטי לשמירה וטעינה של מפה שלמה.
+ *
+ * מבנה הקובץ (גרסה 1), הכל int-ים ברצף:
+ * - כותרת: מספר מיקומים, חיבורים, פריטים, הפניות שלל ומחרוזות,
+ *   ואינדקסי מיקום ההתחלה, הבוס והמיקום הנוכחי (-1 אם אין)
+ * - טבלת מחרוזות: היסטים לתוך בלוק UTF-8 משותף (שמות ותיאורים בלי כפילויות)
+ * - עמודות מיקומים: מזהה, שם, תיאור (אינדקסים לטבלת המחרוזות), סכנה, דגלים
+ * - חיבורים בפורמט CSR: edgeStart[i]..edgeStart[i+1] הם השכנים של מיקום i
+ * - שלל: הפניות לטבלת פריטים, גם היא בפורמט CSR
+ * - טבלת פריטים: פריטים ייחודיים מקודדים ב-ItemCodec
+ *
+ * הטעינה ממפה את הקובץ לזיכרון ומעתיקה כל עמודה ב-get אחד, בלי ניתוח
+ * חיבור-חיבור. לפני בניית המפה, validate בודק שכל החיבורים דו-כיווניים
+ * ושאפשר להגיע לבוס מנקודת ההתחלה.
+ */
+public class MapFile {
+
+    private static final int MAGIC = 0x444D4150; // "DMAP"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 12;
+
+    private static final int FLAG_VISITED = 1;
+    private static final int FLAG_MASTER = 2;
+
+    private MapFile() {
+    }
+
+    // ============================================================
+    //  כתיבה
+    // ============================================================
+
+    /**
+     * כותב מפה לקובץ בינארי.
+     *
+     * @param map המפה לכתיבה
+     * @param file קובץ היעד
+     * @throws IOException אם הכתיבה נכשלה
+     */
+    public static void write(DungeonMap map, File file) throws IOException {
+        ArrayList<GameLocation> all = new ArrayList<>(map.getAllLocations().values());
+        all.sort(Comparator.comparing(GameLocation::getId));
+        int n = all.size();
+
+        HashMap<String, Integer> indexOf = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            indexOf.put(all.get(i).getId(), i);
+        }
+
+        // 1. עמודות מיקומים וטבלת מחרוזות
+        LinkedHashMap<String, Integer> strings = new LinkedHashMap<>();
+        int[] ids = new int[n];
+        int[] names = new int[n];
+        int[] descriptions = new int[n];
+        int[] danger = new int[n];
+        int[] flags = new int[n];
+        for (int i = 0; i < n; i++) {
+            GameLocation location = all.get(i);
+            ids[i] = intern(strings, location.getId());
+            names[i] = intern(strings, location.getName());
+            descriptions[i] = intern(strings, location.getDescription());
+            danger[i] = location.getDangerLevel();
+            flags[i] = (location.isVisited() ? FLAG_VISITED : 0)
+                    | (location.hasMaster() ? FLAG_MASTER : 0);
+        }
+
+        // 2. חיבורים (CSR) - חיבורים למיקומים שלא קיימים נשמטים
+        int[] edgeStart = new int[n + 1];
+        ArrayList<Integer> edgeTargets = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            edgeStart[i] = edgeTargets.size();
+            for (String id : all.get(i).getConnectionsView()) {
+                Integer target = indexOf.get(id);
+                if (target != null) {
+                    edgeTargets.add(target);
+                }
+            }
+        }
+        edgeStart[n] = edgeTargets.size();
+
+        // 3. שלל (CSR) וטבלת פריטים ייחודיים
+        LinkedHashMap<ByteBuffer, Integer> itemTable = new LinkedHashMap<>();
+        int[] lootStart = new int[n + 1];
+        ArrayList<Integer> lootItems = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            lootStart[i] = lootItems.size();
+            for (Item item : all.get(i).getLootView()) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream itemOut = new DataOutputStream(bytes);
+                ItemCodec.write(itemOut, item);
+                itemOut.flush();
+                ByteBuffer key = ByteBuffer.wrap(bytes.toByteArray());
+                Integer itemIndex = itemTable.get(key);
+                if (itemIndex == null) {
+                    itemIndex = itemTable.size();
+                    itemTable.put(key, itemIndex);
+                }
+                lootItems.add(itemIndex);
+            }
+        }
+        lootStart[n] = lootItems.size();
+
+        // 4. בלוקים של בתים
+        ByteArrayOutputStream stringBlob = new ByteArrayOutputStream();
+        int[] stringOffsets = new int[strings.size() + 1];
+        int s = 0;
+        for (String value : strings.keySet()) {
+            stringOffsets[s++] = stringBlob.size();
+            stringBlob.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        stringOffsets[s] = stringBlob.size();
+
+        ByteArrayOutputStream itemBlob = new ByteArrayOutputStream();
+        int[] itemOffsets = new int[itemTable.size() + 1];
+        int it = 0;
+        for (ByteBuffer item : itemTable.keySet()) {
+            itemOffsets[it++] = itemBlob.size();
+            itemBlob.write(item.array());
+        }
+        itemOffsets[it] = itemBlob.size();
+
+        // 5. כתוב הכל
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(edgeTargets.size());
+            out.writeInt(itemTable.size());
+            out.writeInt(lootItems.size());
+            out.writeInt(strings.size());
+            out.writeInt(stringBlob.size());
+            out.writeInt(itemBlob.size());
+            out.writeInt(indexOrMinusOne(indexOf, map.getStartLocationId()));
+            out.writeInt(indexOrMinusOne(indexOf, map.getBossLocationId()));
+            out.writeInt(indexOrMinusOne(indexOf, map.getCurrentLocationId()));
+
+            writeInts(out, stringOffsets);
+            writeInts(out, ids);
+            writeInts(out, names);
+            writeInts(out, descriptions);
+            writeInts(out, danger);
+            writeInts(out, flags);
+            writeInts(out, edgeStart);
+            writeInts(out, edgeTargets);
+            writeInts(out, lootStart);
+            writeInts(out, lootItems);
+            writeInts(out, itemOffsets);
+            stringBlob.writeTo(out);
+            itemBlob.writeTo(out);
+        }
+    }
+
+    // ============================================================
+    //  קריאה
+    // ============================================================
+
+    /**
+     * טוען מפה מקובץ בינארי, אחרי בדיקת תקינות.
+     *
+     * @param file הקובץ
+     * @return המפה שנטענה
+     * @throws IOException אם הקובץ פגום, לא קריא או לא עובר את הבדיקה
+     */
+    public static DungeonMap read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_INTS * 4) {
+                throw new IOException("Truncated map file");
+            }
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a map file: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported map file version " + version);
+            }
+            int n = buffer.getInt();
+            int edgeCount = buffer.getInt();
+            int itemCount = buffer.getInt();
+            int lootCount = buffer.getInt();
+            int stringCount = buffer.getInt();
+            int stringBlobLength = buffer.getInt();
+            int itemBlobLength = buffer.getInt();
+            int start = buffer.getInt();
+            int boss = buffer.getInt();
+            int current = buffer.getInt();
+
+            int[] stringOffsets = readInts(buffer, stringCount + 1);
+            int[] ids = readInts(buffer, n);
+            int[] names = readInts(buffer, n);
+            int[] descriptions = readInts(buffer, n);
+            int[] danger = readInts(buffer, n);
+            int[] flags = readInts(buffer, n);
+            int[] edgeStart = readInts(buffer, n + 1);
+            int[] edgeTargets = readInts(buffer, edgeCount);
+            int[] lootStart = readInts(buffer, n + 1);
+            int[] lootItems = readInts(buffer, lootCount);
+            int[] itemOffsets = readInts(buffer, itemCount + 1);
+            byte[] stringBlob = readBytes(buffer, stringBlobLength);
+            byte[] itemBlob = readBytes(buffer, itemBlobLength);
+
+            // 1. בדיקת תקינות לפני שבונים אובייקטים - כל היסט ואינדקס בתוך הטווח
+            checkOffsets(stringOffsets, stringBlobLength, "string table");
+            checkIndices(ids, stringCount, "location id");
+            checkIndices(names, stringCount, "location name");
+            checkIndices(descriptions, stringCount, "location description");
+            checkOffsets(lootStart, lootCount, "loot index");
+            checkIndices(lootItems, itemCount, "loot item");
+            checkOffsets(itemOffsets, itemBlobLength, "item table");
+            if (current >= n) {
+                throw new IOException("Corrupt map file: current location out of range");
+            }
+            ArrayList<String> problems = validate(n, edgeStart, edgeTargets, start, boss);
+            if (!problems.isEmpty()) {
+                throw new IOException("Invalid map file " + file + ": " + String.join("; ", problems));
+            }
+
+            // 2. בנה את המיקומים
+            String[] stringTable = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                stringTable[i] = new String(stringBlob, stringOffsets[i],
+                        stringOffsets[i + 1] - stringOffsets[i], StandardCharsets.UTF_8);
+            }
+            GameLocation[] locations = new GameLocation[n];
+            for (int i = 0; i < n; i++) {
+                locations[i] = new GameLocation(stringTable[ids[i]], stringTable[names[i]],
+                        stringTable[descriptions[i]], danger[i]);
+                if ((flags[i] & FLAG_VISITED) != 0) {
+                    locations[i].markAsVisited();
+                }
+                locations[i].setHasMaster((flags[i] & FLAG_MASTER) != 0);
+            }
+            for (int i = 0; i < n; i++) {
+                for (int e = edgeStart[i]; e < edgeStart[i + 1]; e++) {
+                    locations[i].addConnection(locations[edgeTargets[e]].getId());
+                }
+                for (int l = lootStart[i]; l < lootStart[i + 1]; l++) {
+                    int item = lootItems[l];
+                    // כל הפניה מקבלת מופע משלה - לפריטים יש מצב (למשל שימושים בשיקוי)
+                    locations[i].addLoot(ItemCodec.read(new DataInputStream(new ByteArrayInputStream(
+                            itemBlob, itemOffsets[item], itemOffsets[item + 1] - itemOffsets[item]))));
+                }
+            }
+
+            // 3. בנה את המפה (המיקומים המיוחדים קודם, כדי ש-addLocation לא יקבע אותם)
+            DungeonMap map = new DungeonMap();
+            map.restoreSpecialLocations(
+                    start < 0 ? null : locations[start].getId(),
+                    boss < 0 ? null : locations[boss].getId(),
+                    current < 0 ? null : locations[current].getId());
+            for (GameLocation location : locations) {
+                map.addLocation(location);
+            }
+            return map;
+        }
+    }
+
+    // ============================================================
+    //  בדיקת תקינות
+    // ============================================================
+
+    /**
+     * בודק את מבנה החיבורים של מפה בפורמט CSR.
+     * - כל יעד חיבור הוא אינדקס מיקום חוקי
+     * - כל חיבור דו-כיווני
+     * - אפשר להגיע לבוס מנקודת ההתחלה
+     *
+     * @return רשימת בעיות (ריקה אם המפה תקינה)
+     */
+    static ArrayList<String> validate(int locationCount, int[] edgeStart, int[] edgeTargets,
+                                      int start, int boss) {
+        ArrayList<String> problems = new ArrayList<>();
+        if (edgeStart.length != locationCount + 1 || edgeStart[0] != 0
+                || edgeStart[locationCount] != edgeTargets.length) {
+            problems.add("corrupt edge index");
+            return problems;
+        }
+        for (int i = 0; i < locationCount; i++) {
+            if (edgeStart[i] > edgeStart[i + 1]) {
+                problems.add("corrupt edge index");
+                return problems;
+            }
+        }
+        if (start >= locationCount || boss >= locationCount) {
+            problems.add("special location out of range");
+            return problems;
+        }
+
+        // 1. יעדים חוקיים ודו-כיווניות
+        HashSet<Long> edges = new HashSet<>();
+        for (int u = 0; u < locationCount; u++) {
+            for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                int v = edgeTargets[e];
+                if (v < 0 || v >= locationCount) {
+                    problems.add("edge target out of range at location " + u);
+                    return problems;
+                }
+                edges.add(((long) u << 32) | v);
+            }
+        }
+        for (int u = 0; u < locationCount; u++) {
+            for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                int v = edgeTargets[e];
+                if (!edges.contains(((long) v << 32) | u)) {
+                    problems.add("one-way connection " + u + " -> " + v);
+                }
+            }
+        }
+
+        // 2. הבוס נגיש מנקודת ההתחלה
+        if (boss >= 0) {
+            if (start < 0) {
+                problems.add("boss location set without a start location");
+            } else if (!isReachable(edgeStart, edgeTargets, start, boss)) {
+                problems.add("boss location is not reachable from the start location");
+            }
+        }
+        return problems;
+    }
+
+    private static boolean isReachable(int[] edgeStart, int[] edgeTargets, int from, int to) {
+        boolean[] seen = new boolean[edgeStart.length - 1];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        seen[from] = true;
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            if (u == to) {
+                return true;
+            }
+            for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                int v = edgeTargets[e];
+                if (!seen[v]) {
+                    seen[v] = true;
+                    queue.add(v);
+                }
+            }
+        }
+        return false;
+    }
+
+    // ============================================================
+    //  עזרים
+    // ============================================================
+
+    private static int intern(LinkedHashMap<String, Integer> strings, String value) {
+        Integer index = strings.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.put(value, index);
+        }
+        return index;
+    }
+
+    private static int indexOrMinusOne(HashMap<String, Integer> indexOf, String id) {
+        Integer index = id == null ? null : indexOf.get(id);
+        return index == null ? -1 : index;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, List<Integer> values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * מעתיק length בתים מהקובץ הממופה למערך חדש ב-get אחד ומקדם את המיקום.
+     * אורך שלילי או ארוך מהנותר בקובץ נחשב לקובץ קטוע.
+     */
+    private static byte[] readBytes(MappedByteBuffer buffer, int length) throws IOException {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Truncated map file");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    // טבלת היסטים: מתחילה ב-0, לא יורדת, ומסתיימת בגבול
+    private static void checkOffsets(int[] offsets, int limit, String what) throws IOException {
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != limit) {
+            throw new IOException("Corrupt map file: " + what + " out of range");
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                throw new IOException("Corrupt map file: " + what + " out of order");
+            }
+        }
+    }
+
+    private static void checkIndices(int[] indices, int count, String what) throws IOException {
+        for (int index : indices) {
+            if (index < 0 || index >= count) {
+                throw new IOException("Corrupt map file: " + what + " index " + index + " out of range");
+            }
+        }
+    }
+
+    private static int[] readInts(MappedByteBuffer buffer, int count) throws IOException {
+        if (count < 0 || (long) count * 4 > buffer.remaining()) {
+            throw new IOException("Truncated map file");
+        }
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * 4);
+        return values;
+    }
+}
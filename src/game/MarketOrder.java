@@ -0,0 +1,101 @@
+package game;
+
+import model.characters.Character;
+import model.items.Item;
+
+import java.util.ArrayDeque;
+
+/**
+ * הזמנה בשוק השחקנים: קנייה או מכירה של כמות מפריט במחיר ליחידה.
+ *
+ * הזמנת מכירה מחזיקה את הפריטים עצמם (נלקחו מהמוכר), והזמנת קנייה מחזיקה
+ * את הזהב (נלקח מהקונה) - כך שכל התאמה תמיד ניתנת לביצוע.
+ */
+public class MarketOrder {
+
+    public enum Side {
+        BUY,
+        SELL
+    }
+
+    private final long id;
+    private final Character trader;
+    private final Side side;
+    private final Item item;
+    private final int price;
+    private final int quantity;
+    private int remaining;
+    private int filled;
+    private boolean cancelled;
+
+    // פריטים שמוחזקים בהזמנת מכירה עד שהיא מתבצעת
+    final ArrayDeque<Item> escrowedItems;
+
+    MarketOrder(long id, Character trader, Side side, Item item, int price, int quantity) {
+        this.id = id;
+        this.trader = trader;
+        this.side = side;
+        this.item = item;
+        this.price = price;
+        this.quantity = quantity;
+        this.remaining = quantity;
+        this.escrowedItems = new ArrayDeque<>();
+    }
+
+    void fill(int amount) {
+        remaining -= amount;
+        filled += amount;
+    }
+
+    void cancel() {
+        cancelled = true;
+        remaining = 0;
+    }
+
+    // Getters
+    public long getId() {
+        return id;
+    }
+
+    public Character getTrader() {
+        return trader;
+    }
+
+    public Side getSide() {
+        return side;
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public int getRemainingQuantity() {
+        return remaining;
+    }
+
+    public int getFilledQuantity() {
+        return filled;
+    }
+
+    public boolean isFilled() {
+        return filled == quantity;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s %s x%d @ %d (remaining %d)",
+                id, side, item.getName(), quantity, price, remaining);
+    }
+}
@@ -0,0 +1,327 @@
+package game;
+
+import model.characters.Character;
+import model.characters.InventoryResult;
+import model.exceptions.InsufficientGoldException;
+import model.exceptions.InvalidActionException;
+import model.exceptions.ItemNotFoundException;
+import model.items.Item;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * שוק בין שחקנים: שחקנים מפרסמים הזמנות קנייה ומכירה, והמנוע מתאים ביניהן
+ * לפי עדיפות מחיר ואז זמן.
+ *
+ * לכל פריט (שם + נדירות, לפי Item.equals) יש ספר הזמנות משלו עם נעילה משלו,
+ * כך שמסחר בפריטים שונים רץ במקביל. סדר הנעילות תמיד: ספר ואז שחקן.
+ *
+ * עסקה מתבצעת במחיר של ההזמנה שחיכתה בספר. קונה שהציע יותר מקבל את ההפרש
+ * בחזרה. פריטים שלא נכנסים למלאי הקונה מחכים לו ב-claimDeliveries.
+ */
+public class Marketplace {
+
+    private final ConcurrentHashMap<Item, OrderBook> books;
+    private final ConcurrentHashMap<Long, MarketOrder> openOrders;
+    // פריטים שמחכים לשחקן (משתנה רק תחת נעילת השחקן)
+    private final ConcurrentHashMap<Character, ArrayDeque<Item>> pendingDeliveries;
+    private final AtomicLong nextOrderId;
+    private final AtomicLong tradeCount;
+
+    public Marketplace() {
+        this.books = new ConcurrentHashMap<>();
+        this.openOrders = new ConcurrentHashMap<>();
+        this.pendingDeliveries = new ConcurrentHashMap<>();
+        this.nextOrderId = new AtomicLong(1);
+        this.tradeCount = new AtomicLong();
+    }
+
+    // ============================================================
+    //  פרסום וביטול הזמנות
+    // ============================================================
+
+    /**
+     * מפרסם הזמנת מכירה. הפריטים יוצאים ממלאי המוכר מיד ומוחזקים בהזמנה.
+     *
+     * @param seller המוכר
+     * @param item הפריט (שם + נדירות)
+     * @param quantity הכמות
+     * @param price מחיר ליחידה
+     * @return ההזמנה (אולי כבר בוצעה, כולה או חלקה)
+     * @throws ItemNotFoundException אם אין למוכר מספיק פריטים כאלה
+     * @throws InvalidActionException אם הכמות/המחיר לא חוקיים או שהפריט לא ניתן למכירה
+     */
+    public MarketOrder placeSellOrder(Character seller, Item item, int quantity, int price)
+            throws ItemNotFoundException, InvalidActionException {
+        validateOrder("placeSellOrder", quantity, price);
+        if (!item.isSellable()) {
+            throw new InvalidActionException("placeSellOrder", "item isnt sellable");
+        }
+        // 1. העבר את הפריטים לנאמנות
+        ArrayList<Item> escrow;
+        synchronized (seller) {
+            escrow = seller.removeMatchingItems(item, quantity);
+            // 2. כל מופע נבדק בנפרד (שיקוי משומש שווה לחדש) - אם אחד נכשל, הכל חוזר למוכר
+            for (Item escrowed : escrow) {
+                if (!escrowed.isSellable()) {
+                    for (int i = escrow.size() - 1; i >= 0; i--) {
+                        seller.tryAddItem(escrow.get(i)); // המקום התפנה זה עתה
+                    }
+                    throw new InvalidActionException("placeSellOrder", "item isnt sellable");
+                }
+            }
+        }
+        MarketOrder order = new MarketOrder(nextOrderId.getAndIncrement(), seller,
+                MarketOrder.Side.SELL, item, price, quantity);
+        order.escrowedItems.addAll(escrow);
+        // 3. התאם מול הספר
+        submit(order);
+        return order;
+    }
+
+    /**
+     * מפרסם הזמנת קנייה. הזהב (מחיר * כמות) יוצא מהקונה מיד ומוחזק בהזמנה.
+     *
+     * @param buyer הקונה
+     * @param item הפריט (שם + נדירות)
+     * @param quantity הכמות
+     * @param price המחיר המקסימלי ליחידה
+     * @return ההזמנה (אולי כבר בוצעה, כולה או חלקה)
+     * @throws InsufficientGoldException אם אין לקונה מספיק זהב
+     * @throws InvalidActionException אם הכמות/המחיר לא חוקיים
+     */
+    public MarketOrder placeBuyOrder(Character buyer, Item item, int quantity, int price)
+            throws InsufficientGoldException, InvalidActionException {
+        validateOrder("placeBuyOrder", quantity, price);
+        // 1. העבר את הזהב לנאמנות
+        int cost = quantity * price;
+        synchronized (buyer) {
+            if (!buyer.spendGold(cost)) {
+                throw new InsufficientGoldException(cost, buyer.getGold());
+            }
+        }
+        MarketOrder order = new MarketOrder(nextOrderId.getAndIncrement(), buyer,
+                MarketOrder.Side.BUY, item, price, quantity);
+        // 2. התאם מול הספר
+        submit(order);
+        return order;
+    }
+
+    /**
+     * מבטל את החלק הפתוח של הזמנה ומחזיר את מה שבנאמנות.
+     *
+     * @param orderId מזהה ההזמנה
+     * @return true אם ההזמנה בוטלה, false אם היא כבר לא פתוחה
+     */
+    public boolean cancelOrder(long orderId) {
+        MarketOrder order = openOrders.get(orderId);
+        if (order == null) {
+            return false;
+        }
+        OrderBook book = books.get(order.getItem());
+        synchronized (book) {
+            int remaining = order.getRemainingQuantity();
+            if (remaining == 0) {
+                return false;
+            }
+            book.reduce(order.getSide(), order.getPrice(), remaining);
+            order.cancel();
+            openOrders.remove(orderId);
+
+            Character trader = order.getTrader();
+            synchronized (trader) {
+                if (order.getSide() == MarketOrder.Side.BUY) {
+                    trader.addGold(remaining * order.getPrice());
+                } else {
+                    while (!order.escrowedItems.isEmpty()) {
+                        deliver(trader, order.escrowedItems.pollFirst());
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * מעביר למלאי השחקן פריטים שחיכו לו (כמה שנכנס).
+     *
+     * @param trader השחקן
+     * @return כמה פריטים הועברו
+     */
+    public int claimDeliveries(Character trader) {
+        synchronized (trader) {
+            ArrayDeque<Item> pending = pendingDeliveries.get(trader);
+            int delivered = 0;
+            while (pending != null && !pending.isEmpty()
+                    && trader.tryAddItem(pending.peekFirst()) == InventoryResult.OK) {
+                pending.pollFirst();
+                delivered++;
+            }
+            return delivered;
+        }
+    }
+
+    // ============================================================
+    //  מנוע ההתאמה
+    // ============================================================
+
+    private void validateOrder(String action, int quantity, int price)
+            throws InvalidActionException {
+        if (quantity <= 0 || price <= 0) {
+            throw new InvalidActionException(action, "quantity and price must be positive");
+        }
+        if ((long) quantity * price > Integer.MAX_VALUE) {
+            throw new InvalidActionException(action, "order value too large");
+        }
+    }
+
+    private void submit(MarketOrder order) {
+        OrderBook book = books.computeIfAbsent(order.getItem(), OrderBook::new);
+        synchronized (book) {
+            match(book, order);
+            if (order.getRemainingQuantity() > 0) {
+                book.rest(order);
+                openOrders.put(order.getId(), order);
+            }
+        }
+    }
+
+    /**
+     * מתאים הזמנה נכנסת מול הצד הנגדי של הספר כל עוד המחירים נחצים.
+     * נקרא תחת נעילת הספר.
+     */
+    private void match(OrderBook book, MarketOrder incoming) {
+        while (incoming.getRemainingQuantity() > 0) {
+            // 1. הרמה הטובה ביותר בצד הנגדי
+            Map.Entry<Integer, OrderBook.PriceLevel> best = book.bestOpposite(incoming.getSide());
+            if (best == null
+                    || !OrderBook.crosses(incoming.getSide(), incoming.getPrice(), best.getKey())) {
+                return;
+            }
+            // 2. ההזמנה הוותיקה ברמה הזו
+            MarketOrder resting = best.getValue().head();
+            int amount = Math.min(incoming.getRemainingQuantity(), resting.getRemainingQuantity());
+            int price = resting.getPrice();
+
+            // 3. עדכן את הספר
+            incoming.fill(amount);
+            resting.fill(amount);
+            book.reduce(resting.getSide(), price, amount);
+            book.recordTrade(price);
+            if (resting.getRemainingQuantity() == 0) {
+                openOrders.remove(resting.getId());
+            }
+
+            // 4. סלוק: זהב למוכר, פריטים (והפרש מחיר) לקונה
+            boolean incomingBuys = incoming.getSide() == MarketOrder.Side.BUY;
+            settle(incomingBuys ? incoming : resting, incomingBuys ? resting : incoming, amount, price);
+            tradeCount.incrementAndGet();
+        }
+    }
+
+    private void settle(MarketOrder buy, MarketOrder sell, int amount, int price) {
+        Character seller = sell.getTrader();
+        synchronized (seller) {
+            seller.addGold(amount * price);
+        }
+        Character buyer = buy.getTrader();
+        synchronized (buyer) {
+            int refund = (buy.getPrice() - price) * amount;
+            if (refund > 0) {
+                buyer.addGold(refund);
+            }
+            for (int i = 0; i < amount; i++) {
+                deliver(buyer, sell.escrowedItems.pollFirst());
+            }
+        }
+    }
+
+    /**
+     * מוסיף פריט למלאי השחקן, או לתור ההמתנה שלו אם המלאי מלא.
+     * נקרא תחת נעילת השחקן.
+     */
+    private void deliver(Character trader, Item item) {
+        if (trader.tryAddItem(item) != InventoryResult.OK) {
+            pendingDeliveries.computeIfAbsent(trader, t -> new ArrayDeque<>()).addLast(item);
+        }
+    }
+
+    // ============================================================
+    //  מידע על השוק
+    // ============================================================
+
+    /**
+     * @return מחיר הקנייה הגבוה ביותר לפריט, או -1 אם אין
+     */
+    public int getBestBid(Item item) {
+        OrderBook book = books.get(item);
+        if (book == null) {
+            return -1;
+        }
+        synchronized (book) {
+            return book.getBestBid();
+        }
+    }
+
+    /**
+     * @return מחיר המכירה הנמוך ביותר לפריט, או -1 אם אין
+     */
+    public int getBestAsk(Item item) {
+        OrderBook book = books.get(item);
+        if (book == null) {
+            return -1;
+        }
+        synchronized (book) {
+            return book.getBestAsk();
+        }
+    }
+
+    /**
+     * @return מחיר העסקה האחרונה בפריט, או -1 אם לא היו עסקאות
+     */
+    public int getLastTradePrice(Item item) {
+        OrderBook book = books.get(item);
+        if (book == null) {
+            return -1;
+        }
+        synchronized (book) {
+            return book.getLastTradePrice();
+        }
+    }
+
+    /**
+     * @return הכמות הפתוחה בפריט במחיר ובצד נתונים
+     */
+    public int getDepth(Item item, MarketOrder.Side side, int price) {
+        OrderBook book = books.get(item);
+        if (book == null) {
+            return 0;
+        }
+        synchronized (book) {
+            return book.getDepth(side, price);
+        }
+    }
+
+    public MarketOrder getOpenOrder(long orderId) {
+        return openOrders.get(orderId);
+    }
+
+    public int getOpenOrderCount() {
+        return openOrders.size();
+    }
+
+    public long getTradeCount() {
+        return tradeCount.get();
+    }
+
+    public int getPendingDeliveryCount(Character trader) {
+        synchronized (trader) {
+            ArrayDeque<Item> pending = pendingDeliveries.get(trader);
+            return pending == null ? 0 : pending.size();
+        }
+    }
+}
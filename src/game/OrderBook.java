@@ -0,0 +1,122 @@
+package game;
+
+import model.items.Item;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ספר הזמנות של פריט אחד (שם + נדירות).
+ *
+ * כל צד הוא TreeMap ממחיר לרמת מחיר, וכל רמה היא תור לפי זמן ההגעה -
+ * כך ההתאמה היא לפי עדיפות מחיר ואז זמן. ההזמנה הטובה ביותר נמצאת
+ * ב-O(log P) כאשר P הוא מספר רמות המחיר, לא מספר ההזמנות.
+ *
+ * לא בטוח ל-threads בעצמו - Marketplace נועל כל ספר בנפרד.
+ */
+class OrderBook {
+
+    /**
+     * רמת מחיר: ההזמנות במחיר הזה לפי סדר הגעה, והכמות הפתוחה הכוללת.
+     */
+    static final class PriceLevel {
+        final ArrayDeque<MarketOrder> orders = new ArrayDeque<>();
+        int totalQuantity;
+
+        /**
+         * @return ההזמנה הוותיקה שעדיין פתוחה (מדלג על הזמנות שבוטלו)
+         */
+        MarketOrder head() {
+            while (!orders.isEmpty() && orders.peekFirst().getRemainingQuantity() == 0) {
+                orders.pollFirst();
+            }
+            return orders.peekFirst();
+        }
+    }
+
+    private final Item item;
+    private final TreeMap<Integer, PriceLevel> bids; // קנייה - המחיר הגבוה ראשון
+    private final TreeMap<Integer, PriceLevel> asks; // מכירה - המחיר הנמוך ראשון
+    private int lastTradePrice;
+
+    OrderBook(Item item) {
+        this.item = item;
+        this.bids = new TreeMap<>(Collections.reverseOrder());
+        this.asks = new TreeMap<>();
+        this.lastTradePrice = -1;
+    }
+
+    /**
+     * @param side הצד של ההזמנה הנכנסת
+     * @return הרמה הטובה ביותר בצד הנגדי, או null אם הוא ריק
+     */
+    Map.Entry<Integer, PriceLevel> bestOpposite(MarketOrder.Side side) {
+        return (side == MarketOrder.Side.BUY ? asks : bids).firstEntry();
+    }
+
+    /**
+     * @return true אם הזמנה במחיר הזה חוצה את הרמה הנגדית
+     */
+    static boolean crosses(MarketOrder.Side side, int price, int oppositePrice) {
+        return side == MarketOrder.Side.BUY ? price >= oppositePrice : price <= oppositePrice;
+    }
+
+    /**
+     * מוסיף הזמנה פתוחה לסוף התור ברמת המחיר שלה.
+     */
+    void rest(MarketOrder order) {
+        TreeMap<Integer, PriceLevel> levels = order.getSide() == MarketOrder.Side.BUY ? bids : asks;
+        PriceLevel level = levels.computeIfAbsent(order.getPrice(), p -> new PriceLevel());
+        level.orders.addLast(order);
+        level.totalQuantity += order.getRemainingQuantity();
+    }
+
+    /**
+     * מוריד כמות מרמת מחיר (אחרי ביצוע או ביטול) ומסיר רמות ריקות.
+     */
+    void reduce(MarketOrder.Side side, int price, int amount) {
+        TreeMap<Integer, PriceLevel> levels = side == MarketOrder.Side.BUY ? bids : asks;
+        PriceLevel level = levels.get(price);
+        level.totalQuantity -= amount;
+        if (level.totalQuantity == 0) {
+            levels.remove(price);
+        }
+    }
+
+    void recordTrade(int price) {
+        lastTradePrice = price;
+    }
+
+    // Getters
+    Item getItem() {
+        return item;
+    }
+
+    /**
+     * @return מחיר הקנייה הגבוה ביותר, או -1 אם אין
+     */
+    int getBestBid() {
+        return bids.isEmpty() ? -1 : bids.firstKey();
+    }
+
+    /**
+     * @return מחיר המכירה הנמוך ביותר, או -1 אם אין
+     */
+    int getBestAsk() {
+        return asks.isEmpty() ? -1 : asks.firstKey();
+    }
+
+    int getLastTradePrice() {
+        return lastTradePrice;
+    }
+
+    /**
+     * @return הכמות הפתוחה במחיר נתון בצד נתון
+     */
+    int getDepth(MarketOrder.Side side, int price) {
+        PriceLevel level = (side == MarketOrder.Side.BUY ? bids : asks).get(price);
+        return level == null ? 0 : level.totalQuantity;
+    }
+}
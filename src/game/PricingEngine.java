@@ -0,0 +1,188 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * מנוע תמחור דינמי (היצע וביקוש) של חנות.
+ *
+ * המחירים של כל פריט (SKU) שמורים בטבלה מחושבת מראש. תמחור מחדש בונה טבלה
+ * חדשה לפי קצב המכירות והמלאי שנשאר, ומפרסם אותה בבת אחת (volatile),
+ * כך שקוראים לא מחשבים מחירים ולא ננעלים - הם תמיד רואים טבלה שלמה.
+ */
+public class PricingEngine {
+
+    public static final double MIN_FACTOR = 0.5;
+    public static final double MAX_FACTOR = 2.0;
+    // קצב מכירה "רגיל": 10% מההיצע בכל תקופה
+    private static final double TARGET_DEMAND = 0.1;
+    // כמה מהר המחיר מגיב לסטייה מהקצב הרגיל
+    private static final double STEP = 0.5;
+    // משקל התקופה האחרונה בממוצע הנע של קצב המכירות
+    private static final double SMOOTHING = 0.5;
+
+    /**
+     * טבלת מחירים - התאים שפורסמו לא משתנים אחרי הפרסום.
+     * למערכים יש קיבולת פנויה: רישום פריט חדש כותב לתא שאחרי האחרונים
+     * ומפרסם טבלה חדשה על אותם מערכים, וההעתקה קורית רק כשהקיבולת נגמרת.
+     */
+    private static final class PriceTable {
+        final int[] buyPrices;
+        final int[] sellPrices;
+        final long version;
+
+        PriceTable(int[] buyPrices, int[] sellPrices, long version) {
+            this.buyPrices = buyPrices;
+            this.sellPrices = sellPrices;
+            this.version = version;
+        }
+    }
+
+    // מצב פנימי - משתנה רק תחת נעילה של המנוע
+    private final ArrayList<ShopEntry> entries;
+    private double[] factors;
+    private double[] velocities;
+
+    private volatile PriceTable table;
+    private Runnable repriceListener; // נקרא אחרי כל פרסום של תמחור מחדש, מחוץ לנעילה
+
+    public PricingEngine() {
+        this.entries = new ArrayList<>();
+        this.factors = new double[0];
+        this.velocities = new double[0];
+        this.table = new PriceTable(new int[0], new int[0], 0);
+    }
+
+    /**
+     * רושם פריט חדש במנוע, במחיר הבסיס שלו.
+     *
+     * @param entry הרשומה בקטלוג
+     */
+    synchronized void register(ShopEntry entry) {
+        registerAll(Collections.singletonList(entry));
+    }
+
+    /**
+     * רושם כמה פריטים חדשים ומפרסם טבלת מחירים אחת לכל האצווה.
+     * המערכים גדלים בהכפלה, כך שטעינה של n פריטים עולה O(n) ולא O(n^2).
+     *
+     * @param batch הרשומות בקטלוג
+     */
+    synchronized void registerAll(List<ShopEntry> batch) {
+        PriceTable current = table;
+        int count = entries.size();
+        int needed = count + batch.size();
+        int[] buy = current.buyPrices;
+        int[] sell = current.sellPrices;
+        if (needed > buy.length) {
+            int capacity = Math.max(needed, Math.max(8, buy.length * 2));
+            buy = Arrays.copyOf(buy, capacity);
+            sell = Arrays.copyOf(sell, capacity);
+            factors = Arrays.copyOf(factors, capacity);
+            velocities = Arrays.copyOf(velocities, capacity);
+        }
+        for (ShopEntry entry : batch) {
+            int index = entries.size();
+            entries.add(entry);
+            factors[index] = 1.0;
+            velocities[index] = 0;
+            // התא עוד לא שייך לאף טבלה שפורסמה - אף קורא לא רואה אותו
+            buy[index] = entry.getBasePrice();
+            sell[index] = entry.getItem().getSellPrice();
+            entry.attach(this, index);
+        }
+        table = new PriceTable(buy, sell, current.version + 1);
+    }
+
+    // ============================================================
+    //  קריאת מחירים (בלי נעילה)
+    // ============================================================
+
+    int getBuyPrice(int index) {
+        return table.buyPrices[index];
+    }
+
+    int getSellPrice(int index) {
+        return table.sellPrices[index];
+    }
+
+    /**
+     * @return מספר הגרסה של טבלת המחירים הנוכחית
+     */
+    public long getVersion() {
+        return table.version;
+    }
+
+    // ============================================================
+    //  תמחור מחדש
+    // ============================================================
+
+    /**
+     * מחשב טבלת מחירים חדשה מקצב המכירות מאז התמחור הקודם ומהמלאי,
+     * ומפרסם אותה בבת אחת.
+     */
+    public void reprice() {
+        Runnable listener;
+        synchronized (this) {
+            repriceLocked();
+            listener = repriceListener;
+        }
+        // אחרי שחרור הנעילה: המאזין (החנות) לא יכול להיתקע מול רישום פריט
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    private void repriceLocked() {
+        int count = entries.size();
+        int[] buy = new int[table.buyPrices.length];
+        int[] sell = new int[buy.length];
+        for (int i = 0; i < count; i++) {
+            ShopEntry entry = entries.get(i);
+            // 1. ממוצע נע של מכירות לתקופה
+            velocities[i] = SMOOTHING * entry.drainSales() + (1 - SMOOTHING) * velocities[i];
+            // 2. ביקוש = החלק מההיצע שנמכר בתקופה (0 עד 1)
+            double supply = entry.getStock() + velocities[i];
+            double demand = supply == 0 ? 0 : velocities[i] / supply;
+            // 3. הזז את המקדם לכיוון הביקוש, בגבולות. בלי מלאי אין מה למכור,
+            //    כך שחוסר מכירות לא מעיד על ביקוש נמוך - המקדם נשאר
+            if (entry.getStock() > 0) {
+                double factor = factors[i] * (1 + STEP * (demand - TARGET_DEMAND));
+                factors[i] = Math.max(MIN_FACTOR, Math.min(MAX_FACTOR, factor));
+            }
+            // 4. מחיר חדש
+            buy[i] = Math.max(1, (int) Math.round(entry.getBasePrice() * factors[i]));
+            sell[i] = (int) Math.ceil(buy[i] * 0.5);
+        }
+        table = new PriceTable(buy, sell, table.version + 1);
+    }
+
+    synchronized void setRepriceListener(Runnable listener) {
+        this.repriceListener = listener;
+    }
+
+    /**
+     * מתזמן תמחור מחדש תקופתי על executor קיים.
+     *
+     * @param executor ה-executor לתזמון
+     * @param period הזמן בין תמחורים
+     * @param unit יחידת הזמן
+     * @return המשימה המתוזמנת (לביטול)
+     */
+    public ScheduledFuture<?> schedule(ScheduledExecutorService executor, long period, TimeUnit unit) {
+        return executor.scheduleAtFixedRate(this::reprice, period, period, unit);
+    }
+
+    /**
+     * @param index האינדקס של הפריט
+     * @return המקדם הנוכחי של המחיר ביחס למחיר הבסיס
+     */
+    synchronized double getFactor(int index) {
+        return factors[index];
+    }
+}
@@ -0,0 +1,62 @@
+package game;
+
+import model.items.Item;
+
+import java.util.Random;
+
+/**
+ * מדיניות חידוש מלאי: כמה להוסיף (או להוריד, בתפוגה) לפריט בכל הפעלה.
+ * ההפעלה עצמה מתוזמנת ב-RestockScheduler.
+ */
+public interface RestockPolicy {
+
+    /**
+     * @param entry הרשומה בקטלוג
+     * @param random מקור אקראיות
+     * @return השינוי בכמות: חיובי להוספה, שלילי לתפוגה, 0 לכלום
+     */
+    int restockAmount(ShopEntry entry, Random random);
+
+    /**
+     * מוסיף כמות קבועה בכל הפעלה.
+     */
+    static RestockPolicy fixed(int amount) {
+        return (entry, random) -> amount;
+    }
+
+    /**
+     * ממלא את המלאי עד תקרה.
+     */
+    static RestockPolicy upToCap(int cap) {
+        return (entry, random) -> Math.max(0, cap - entry.getStock());
+    }
+
+    /**
+     * מגביל מדיניות אחרת כך שהמלאי לא יעבור תקרה.
+     */
+    static RestockPolicy capped(RestockPolicy policy, int cap) {
+        return (entry, random) -> {
+            int amount = policy.restockAmount(entry, random);
+            return amount > 0 ? Math.min(amount, Math.max(0, cap - entry.getStock())) : amount;
+        };
+    }
+
+    /**
+     * מוסיף כמות בהסתברות שיורדת עם הנדירות: לפריט COMMON ההסתברות היא
+     * baseChance, ולפריט נדיר יותר היא מחולקת במכפיל המחיר של הנדירות.
+     */
+    static RestockPolicy rarityWeighted(double baseChance, int amount) {
+        return (entry, random) -> {
+            Item.ItemRarity rarity = entry.getItem().getRarity();
+            double chance = baseChance / rarity.getPriceMultiplier();
+            return random.nextDouble() < chance ? amount : 0;
+        };
+    }
+
+    /**
+     * תפוגה: מוריד עד כמות קבועה בכל הפעלה (למשל שיקויים שמתקלקלים).
+     */
+    static RestockPolicy expire(int amount) {
+        return (entry, random) -> -amount;
+    }
+}
@@ -0,0 +1,217 @@
+package game;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * מתזמן משותף לחידוש מלאי בחנויות.
+ *
+ * כל הרישומים עם אותה תקופה חולקים משימה מתוזמנת אחת שעוברת עליהם,
+ * כך שאלפי חנויות עולות כמה משימות בודדות ולא thread או timer לכל חנות.
+ * ההוספה למלאי אטומית לכל פריט, לכן חידוש לא חוסם קונים.
+ */
+public class RestockScheduler {
+
+    /**
+     * רישום של מדיניות לפריט אחד או לכל החנות. ניתן לבטל.
+     */
+    public final class Registration {
+        private final Shop shop;
+        private final String itemName; // null = כל הפריטים בחנות
+        private final RestockPolicy policy;
+        private final long periodNanos;
+
+        private Registration(Shop shop, String itemName, RestockPolicy policy, long periodNanos) {
+            this.shop = shop;
+            this.itemName = itemName;
+            this.policy = policy;
+            this.periodNanos = periodNanos;
+        }
+
+        private void run() {
+            try {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                if (itemName != null) {
+                    shop.applyRestock(itemName, policy, random);
+                } else {
+                    shop.applyRestockAll(policy, random);
+                }
+            } catch (RuntimeException e) {
+                // רישום אחד שנכשל לא עוצר את השאר (וגם לא את התזמון)
+                BiConsumer<Registration, RuntimeException> listener = failureListener;
+                if (listener != null) {
+                    listener.accept(this, e);
+                }
+            }
+        }
+
+        /**
+         * מבטל את הרישום (ההפעלה הבאה כבר לא תריץ אותו).
+         * אם זה היה הרישום האחרון בתקופה שלו, גם המשימה המתוזמנת מתבטלת.
+         */
+        public void cancel() {
+            buckets.computeIfPresent(periodNanos, (period, bucket) -> {
+                bucket.registrations.remove(this);
+                if (bucket.registrations.isEmpty()) {
+                    bucket.task.cancel(false);
+                    return null;
+                }
+                return bucket;
+            });
+        }
+
+        public Shop getShop() {
+            return shop;
+        }
+
+        /**
+         * @return שם הפריט, או null אם הרישום לכל החנות
+         */
+        public String getItemName() {
+            return itemName;
+        }
+    }
+
+    /**
+     * כל הרישומים עם אותה תקופה, ומשימה מתוזמנת אחת שמריצה אותם.
+     */
+    private static final class Bucket {
+        final CopyOnWriteArrayList<Registration> registrations = new CopyOnWriteArrayList<>();
+        ScheduledFuture<?> task;
+
+        void runAll() {
+            for (Registration registration : registrations) {
+                registration.run();
+            }
+        }
+    }
+
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final ConcurrentHashMap<Long, Bucket> buckets;
+    // מקבל כל חידוש שנכשל, או null
+    private volatile BiConsumer<Registration, RuntimeException> failureListener;
+
+    /**
+     * יוצר מתזמן עם executor משלו (threads מסוג daemon).
+     *
+     * @param threads מספר ה-threads
+     */
+    public RestockScheduler(int threads) {
+        this(Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "restock");
+            thread.setDaemon(true);
+            return thread;
+        }), true);
+    }
+
+    /**
+     * יוצר מתזמן על executor משותף קיים (לא נסגר ב-shutdown).
+     */
+    public RestockScheduler(ScheduledExecutorService executor) {
+        this(executor, false);
+    }
+
+    private RestockScheduler(ScheduledExecutorService executor, boolean ownsExecutor) {
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.buckets = new ConcurrentHashMap<>();
+    }
+
+    // ============================================================
+    //  רישום
+    // ============================================================
+
+    /**
+     * מתזמן מדיניות לפריט אחד בחנות.
+     *
+     * @return הרישום (לביטול)
+     */
+    public Registration schedule(Shop shop, String itemName, RestockPolicy policy,
+                                 long period, TimeUnit unit) {
+        return register(new Registration(shop, itemName, policy, unit.toNanos(period)));
+    }
+
+    /**
+     * מתזמן מדיניות לכל הפריטים בחנות (כולל פריטים שיתווספו אחר כך).
+     *
+     * @return הרישום (לביטול)
+     */
+    public Registration scheduleShop(Shop shop, RestockPolicy policy, long period, TimeUnit unit) {
+        return register(new Registration(shop, null, policy, unit.toNanos(period)));
+    }
+
+    private Registration register(Registration registration) {
+        if (registration.periodNanos <= 0) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+        // הוספה וביטול עוברים דרך אותו compute, כך שרישום לא נוסף לתקופה שמתבטלת
+        buckets.compute(registration.periodNanos, (period, bucket) -> {
+            if (bucket == null) {
+                bucket = new Bucket();
+                bucket.task = executor.scheduleAtFixedRate(bucket::runAll, period, period,
+                        TimeUnit.NANOSECONDS);
+            }
+            bucket.registrations.add(registration);
+            return bucket;
+        });
+        return registration;
+    }
+
+    /**
+     * @param listener נקרא עם הרישום והשגיאה בכל חידוש שנכשל
+     */
+    public void setFailureListener(BiConsumer<Registration, RuntimeException> listener) {
+        this.failureListener = listener;
+    }
+
+    /**
+     * מריץ עכשיו את כל הרישומים פעם אחת (בלי לחכות לתזמון).
+     */
+    public void runNow() {
+        for (Bucket bucket : buckets.values()) {
+            bucket.runAll();
+        }
+    }
+
+    /**
+     * @return מספר המשימות המתוזמנות (אחת לכל תקופה שיש בה רישומים)
+     */
+    public int getScheduledTaskCount() {
+        return buckets.size();
+    }
+
+    public int getRegistrationCount() {
+        int count = 0;
+        for (Bucket bucket : buckets.values()) {
+            count += bucket.registrations.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return ה-executor, כדי שרכיבים אחרים (תמחור, יומן) יחלקו אותו
+     */
+    public ScheduledExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * עוצר את כל התזמונים (ואת ה-executor, אם הוא של המתזמן).
+     */
+    public void shutdown() {
+        for (Bucket bucket : buckets.values()) {
+            bucket.task.cancel(false);
+        }
+        buckets.clear();
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,467 @@
+package game;
+
+import model.characters.Character;
+import model.characters.CharacterCodec;
+import model.items.Item;
+import model.items.ItemCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * שמירת משחק: הדמות (כולל מלאי וציוד), מצב המפה ומלאי החנות בקובץ בינארי.
+ *
+ * הקובץ שומר רק את מה שהשתנה לעומת העולם ההתחלתי (המפה מ-dungeon.map
+ * והחנות מהקטלוג) - מיקומים ופריטים שלא השתנו אף פעם לא נכתבים.
+ *
+ * מבנה הקובץ:
+ * - כותרת: magic, גרסה
+ * - רשומות: אורך, גוף (סוג, מפתח, תוכן) ו-CRC32 של הגוף.
+ *   הרשומה האחרונה לכל (סוג, מפתח) היא הקובעת. פריט שכבר לא בחנות
+ *   נכתב ברשומת הסרה (בלי תוכן), כדי שרשומה ישנה שלו לא תישאר הקובעת.
+ *
+ * save כותב תמונת מצב מלאה לקובץ זמני ומחליף את הקובץ הקיים בבת אחת.
+ * autosave מוסיף לסוף הקובץ רק רשומות של אובייקטים שהשתנו מאז השמירה
+ * הקודמת: הדמות לפי getStateVersion, מיקומים ופריטים לפי רשימות השינויים
+ * של המפה והחנות. כשהתוספות גדלות מעבר לתמונת המצב, autosave כותב
+ * תמונת מצב מלאה במקומן.
+ *
+ * שחזור אחרי קריסה: בטעינה הקובץ נקרא עד הרשומה הראשונה שלא שלמה או שה-CRC
+ * שלה לא תקין, והשארית נחתכת.
+ */
+public class SaveGame {
+
+    private static final int MAGIC = 0x44534156; // "DSAV"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte TYPE_CHARACTER = 1;
+    private static final byte TYPE_MAP_STATE = 2;
+    private static final byte TYPE_LOCATION = 3;
+    private static final byte TYPE_SHOP_ITEM = 4;
+    private static final byte TYPE_SHOP_ITEM_REMOVED = 5;
+
+    // מתחת לגודל זה לא כותבים תמונת מצב מלאה גם אם התוספות גדולות ממנה
+    private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+    private final File file;
+    private final CRC32 crc;
+
+    // מה שכבר בקובץ - לזיהוי שינויים ולכתיבת תמונת מצב מלאה
+    private boolean fileValid;
+    private Character savedPlayer;
+    private long savedPlayerVersion;
+    private String savedCurrentLocationId;
+    private final LinkedHashSet<String> savedLocationIds;
+    private final LinkedHashSet<String> savedItemNames;
+    private long snapshotBytes; // גודל תמונת המצב המלאה האחרונה
+    private long appendedBytes; // מה שנוסף מאז
+
+    // סטטיסטיקה של הכתיבה האחרונה
+    private int lastRecordCount;
+    private long lastBytesWritten;
+
+    public SaveGame(File file) {
+        this.file = file;
+        this.crc = new CRC32();
+        this.savedLocationIds = new LinkedHashSet<>();
+        this.savedItemNames = new LinkedHashSet<>();
+    }
+
+    /**
+     * @return true אם קובץ השמירה קיים
+     */
+    public boolean exists() {
+        return file.exists();
+    }
+
+    // ============================================================
+    //  משחק חדש וטעינה
+    // ============================================================
+
+    /**
+     * מתחיל משחק חדש: העולם הנוכחי הוא נקודת ההתחלה, והשמירה הבאה
+     * כותבת תמונת מצב מלאה במקום קובץ קיים (אם יש).
+     *
+     * @param map המפה
+     * @param shop החנות
+     */
+    public synchronized void begin(DungeonMap map, Shop shop) {
+        map.takeDirtyLocationIds();
+        shop.takeDirtyItemNames();
+        savedLocationIds.clear();
+        savedItemNames.clear();
+        savedPlayer = null;
+        savedCurrentLocationId = null;
+        fileValid = false;
+    }
+
+    /**
+     * טוען משחק שמור על גבי העולם ההתחלתי (מפה וחנות שנבנו כמו בהתחלה).
+     * כל הרשומות נקראות ומפוענחות לפני שמשהו בעולם משתנה, כך שקובץ פגום
+     * לא משאיר עולם טעון בחלקו.
+     *
+     * @param map המפה - מיקומים שמורים מחליפים את המיקומים שבה
+     * @param shop החנות - המלאי של פריטים שמורים נקבע לפי השמירה
+     * @return הדמות השמורה
+     * @throws IOException אם הקובץ לא קריא, לא קובץ שמירה או פגום
+     */
+    public synchronized Character load(DungeonMap map, Shop shop) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a save file: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported save version " + buffer.getInt(4) + ": " + file);
+        }
+
+        // 1. קריאת הרשומות התקינות - האחרונה לכל מפתח קובעת
+        byte[] characterPayload = null;
+        byte[] mapStatePayload = null;
+        LinkedHashMap<String, byte[]> locationPayloads = new LinkedHashMap<>();
+        LinkedHashMap<String, byte[]> itemPayloads = new LinkedHashMap<>();
+        int position = HEADER_SIZE;
+        while (true) {
+            int end = validRecordEnd(buffer, position);
+            if (end < 0) {
+                break;
+            }
+            DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(bytes, position + 4, end - position - 8));
+            byte type = in.readByte();
+            String key = in.readUTF();
+            byte[] payload = in.readAllBytes();
+            switch (type) {
+                case TYPE_CHARACTER:
+                    characterPayload = payload;
+                    break;
+                case TYPE_MAP_STATE:
+                    mapStatePayload = payload;
+                    break;
+                case TYPE_LOCATION:
+                    locationPayloads.put(key, payload);
+                    break;
+                case TYPE_SHOP_ITEM:
+                    itemPayloads.put(key, payload);
+                    break;
+                case TYPE_SHOP_ITEM_REMOVED:
+                    itemPayloads.remove(key);
+                    break;
+                default:
+                    throw new IOException("Corrupt save record, type " + type);
+            }
+            position = end;
+        }
+        if (characterPayload == null) {
+            throw new IOException("Save file has no character: " + file);
+        }
+
+        // 2. פענוח הכל לפני שמשנים את העולם
+        Character player = CharacterCodec.read(payloadInput(characterPayload));
+        ArrayList<GameLocation> restoredLocations = new ArrayList<>(locationPayloads.size());
+        for (byte[] payload : locationPayloads.values()) {
+            restoredLocations.addAll(MapChunkFile.decodeChunk(payload));
+        }
+        ArrayList<Item> restoredItems = new ArrayList<>(itemPayloads.size());
+        int[] restoredStock = new int[itemPayloads.size()];
+        for (byte[] payload : itemPayloads.values()) {
+            DataInputStream in = payloadInput(payload);
+            restoredItems.add(ItemCodec.read(in));
+            int stock = in.readInt();
+            if (stock < 0) {
+                throw new IOException("Corrupt save record, stock " + stock);
+            }
+            restoredStock[restoredItems.size() - 1] = stock;
+        }
+        String currentLocationId = null;
+        if (mapStatePayload != null) {
+            DataInputStream in = payloadInput(mapStatePayload);
+            currentLocationId = in.readBoolean() ? in.readUTF() : null;
+        }
+
+        // 3. החלה על העולם
+        for (GameLocation location : restoredLocations) {
+            map.addLocation(location);
+        }
+        if (currentLocationId != null) {
+            if (map.getLocation(currentLocationId) == null) {
+                throw new IOException("Saved location " + currentLocationId + " is not on the map");
+            }
+            map.restoreSpecialLocations(map.getStartLocationId(), map.getBossLocationId(),
+                    currentLocationId);
+        }
+        shop.loadStock(restoredItems, restoredStock);
+
+        // 4. חיתוך שארית שלא נכתבה עד הסוף, כדי שהתוספות הבאות יהיו אחרי הרשומה התקינה
+        if (position < bytes.length) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(position);
+            }
+        }
+
+        // 5. הטעינה עצמה סימנה שינויים - העולם הטעון הוא נקודת ההתחלה
+        map.takeDirtyLocationIds();
+        shop.takeDirtyItemNames();
+        savedLocationIds.clear();
+        savedLocationIds.addAll(locationPayloads.keySet());
+        savedItemNames.clear();
+        savedItemNames.addAll(itemPayloads.keySet());
+        markSaved(player, player.getStateVersion(), map.getCurrentLocationId());
+        fileValid = true;
+        snapshotBytes = position;
+        appendedBytes = 0;
+        return player;
+    }
+
+    /**
+     * @return סוף הרשומה שמתחילה ב-position, או -1 אם היא לא שלמה או פגומה
+     */
+    private int validRecordEnd(ByteBuffer buffer, int position) {
+        if (buffer.limit() - position < 4) {
+            return -1;
+        }
+        int length = buffer.getInt(position);
+        if (length < 3 || length > buffer.limit() - position - 8) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(buffer.array(), position + 4, length);
+        if ((int) crc.getValue() != buffer.getInt(position + 4 + length)) {
+            return -1;
+        }
+        return position + 8 + length;
+    }
+
+    private static DataInputStream payloadInput(byte[] payload) {
+        return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+
+    // ============================================================
+    //  שמירה
+    // ============================================================
+
+    /**
+     * כותב תמונת מצב מלאה: הדמות, מצב המפה, וכל מיקום ופריט שהשתנו אי פעם.
+     * הקובץ נכתב לקובץ זמני ומחליף את הקיים רק אחרי שירד לדיסק.
+     *
+     * @throws IOException אם הכתיבה נכשלה (הקובץ הקודם נשאר כמו שהיה)
+     */
+    public synchronized void save(Character player, DungeonMap map, Shop shop) throws IOException {
+        ArrayList<String> dirtyLocations = map.takeDirtyLocationIds();
+        ArrayList<String> dirtyItems = shop.takeDirtyItemNames();
+        try {
+            LinkedHashSet<String> locationIds = new LinkedHashSet<>(savedLocationIds);
+            locationIds.addAll(dirtyLocations);
+            LinkedHashSet<String> itemNames = new LinkedHashSet<>(savedItemNames);
+            itemNames.addAll(dirtyItems);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            long playerVersion = player.getStateVersion();
+            ArrayList<String> removedItems = new ArrayList<>();
+            int count = writeRecords(out, player, map, shop, locationIds, itemNames, removedItems, true);
+            out.flush();
+
+            File temp = new File(file.getPath() + ".tmp");
+            try (FileOutputStream stream = new FileOutputStream(temp)) {
+                stream.write(bytes.toByteArray());
+                stream.getChannel().force(true);
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            savedLocationIds.addAll(locationIds);
+            savedItemNames.addAll(itemNames);
+            savedItemNames.removeAll(removedItems);
+            markSaved(player, playerVersion, map.getCurrentLocationId());
+            fileValid = true;
+            snapshotBytes = bytes.size();
+            appendedBytes = 0;
+            lastRecordCount = count;
+            lastBytesWritten = bytes.size();
+        } catch (IOException | RuntimeException e) {
+            map.restoreDirtyLocationIds(dirtyLocations);
+            shop.restoreDirtyItemNames(dirtyItems);
+            throw e;
+        }
+    }
+
+    /**
+     * שמירה מצטברת: מוסיף לקובץ רק את מה שהשתנה מאז השמירה הקודמת.
+     * אם עוד אין קובץ תקין, או שהתוספות כבר גדולות מתמונת המצב,
+     * כותב תמונת מצב מלאה (save) במקום.
+     *
+     * @return מספר הרשומות שנכתבו (0 אם לא השתנה כלום)
+     * @throws IOException אם הכתיבה נכשלה (השינויים יישמרו בפעם הבאה)
+     */
+    public synchronized int autosave(Character player, DungeonMap map, Shop shop) throws IOException {
+        if (!fileValid || appendedBytes > Math.max(snapshotBytes, MIN_COMPACT_BYTES)) {
+            save(player, map, shop);
+            return lastRecordCount;
+        }
+        ArrayList<String> dirtyLocations = map.takeDirtyLocationIds();
+        ArrayList<String> dirtyItems = shop.takeDirtyItemNames();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            long playerVersion = player.getStateVersion();
+            ArrayList<String> removedItems = new ArrayList<>();
+            int count = writeRecords(out, player, map, shop, dirtyLocations, dirtyItems,
+                    removedItems, false);
+            out.flush();
+
+            if (count > 0) {
+                try (FileChannel channel = FileChannel.open(file.toPath(),
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                }
+            }
+
+            savedLocationIds.addAll(dirtyLocations);
+            savedItemNames.addAll(dirtyItems);
+            savedItemNames.removeAll(removedItems);
+            markSaved(player, playerVersion, map.getCurrentLocationId());
+            appendedBytes += bytes.size();
+            lastRecordCount = count;
+            lastBytesWritten = bytes.size();
+            return count;
+        } catch (IOException | RuntimeException e) {
+            map.restoreDirtyLocationIds(dirtyLocations);
+            shop.restoreDirtyItemNames(dirtyItems);
+            throw e;
+        }
+    }
+
+    /**
+     * כותב את הרשומות: הדמות ומצב המפה אם השתנו (או תמיד, בתמונת מצב מלאה),
+     * ואחריהם המיקומים והפריטים שנבחרו.
+     *
+     * @param removedItems מקבל את שמות הפריטים שכבר לא בחנות
+     * @return מספר הרשומות שנכתבו
+     */
+    private int writeRecords(DataOutputStream out, Character player, DungeonMap map, Shop shop,
+                             Collection<String> locationIds, Collection<String> itemNames,
+                             List<String> removedItems, boolean full) throws IOException {
+        int count = 0;
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+
+        // 1. הדמות
+        if (full || player != savedPlayer || player.getStateVersion() != savedPlayerVersion) {
+            CharacterCodec.write(payload, player);
+            count += writeRecord(out, TYPE_CHARACTER, "", payloadBytes);
+        }
+        // 2. מצב המפה (המיקום הנוכחי)
+        String currentLocationId = map.getCurrentLocationId();
+        if (full || !Objects.equals(currentLocationId, savedCurrentLocationId)) {
+            payload.writeBoolean(currentLocationId != null);
+            if (currentLocationId != null) {
+                payload.writeUTF(currentLocationId);
+            }
+            count += writeRecord(out, TYPE_MAP_STATE, "", payloadBytes);
+        }
+        // 3. מיקומים - באותו קידוד כמו אזור בקובץ המפה
+        for (String id : locationIds) {
+            GameLocation location = map.getLocation(id);
+            if (location != null) {
+                payloadBytes.write(MapChunkFile.encodeChunk(List.of(location)));
+                count += writeRecord(out, TYPE_LOCATION, id, payloadBytes);
+            }
+        }
+        // 4. מלאי החנות
+        for (String itemName : itemNames) {
+            ShopEntry entry = shop.getEntry(itemName);
+            if (entry != null) {
+                ItemCodec.write(payload, entry.getItem());
+                payload.writeInt(entry.getStock());
+                count += writeRecord(out, TYPE_SHOP_ITEM, itemName, payloadBytes);
+            } else {
+                // בתמונת מצב מלאה מספיק לא לכתוב אותו; בתוספת - רשומת הסרה
+                if (!full) {
+                    count += writeRecord(out, TYPE_SHOP_ITEM_REMOVED, itemName, payloadBytes);
+                }
+                removedItems.add(itemName);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * כותב רשומה אחת (אורך, גוף, CRC) ומרוקן את מאגר התוכן.
+     *
+     * @return 1 (לספירה)
+     */
+    private int writeRecord(DataOutputStream out, byte type, String key,
+                            ByteArrayOutputStream payload) throws IOException {
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(payload.size() + key.length() + 3);
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        body.writeByte(type);
+        body.writeUTF(key);
+        payload.writeTo(body);
+        body.flush();
+        payload.reset();
+
+        byte[] record = bodyBytes.toByteArray();
+        crc.reset();
+        crc.update(record);
+        out.writeInt(record.length);
+        out.write(record);
+        out.writeInt((int) crc.getValue());
+        return 1;
+    }
+
+    private void markSaved(Character player, long playerVersion, String currentLocationId) {
+        savedPlayer = player;
+        savedPlayerVersion = playerVersion;
+        savedCurrentLocationId = currentLocationId;
+    }
+
+    // Getters
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return מספר הרשומות בשמירה האחרונה (מלאה או מצטברת)
+     */
+    public synchronized int getLastRecordCount() {
+        return lastRecordCount;
+    }
+
+    /**
+     * @return מספר הבתים שנכתבו בשמירה האחרונה
+     */
+    public synchronized long getLastBytesWritten() {
+        return lastBytesWritten;
+    }
+}
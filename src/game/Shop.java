@@ -1,6 +1,7 @@
 package game;
 
 import model.characters.Character;
+import model.characters.InventoryResult;
 import model.exceptions.InvalidActionException;
 import model.items.Item;
 import model.items.Weapon;
@@ -9,23 +10,68 @@ import model.items.Potion;
 import model.exceptions.InventoryFullException;
 import model.exceptions.ItemNotFoundException;
 import model.exceptions.InsufficientGoldException;
+import model.economy.EconomyEvent;
+import model.economy.EconomyListener;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * מחלקה המייצגת חנות במשחק.
  * מאפשרת קנייה ומכירה של פריטים.
+ *
+ * כל פריט בחנות הוא רשומה אחת בקטלוג (ShopEntry) עם הפריט, המחיר והכמות,
+ * ממופתחת לפי שם ולפי קטגוריה.
+ *
+ * החנות בטוחה לשימוש מכמה threads: המלאי נשמר ב-CAS לכל פריט בנפרד,
+ * והזהב והמלאי של הלקוח מתעדכנים תחת נעילה של הלקוח בלבד, כך שלקוחות
+ * שונים לא מחכים זה לזה.
+ *
+ * המחירים מגיעים מ-PricingEngine: טבלה מחושבת מראש שמתעדכנת לפי היצע וביקוש.
  */
 public class Shop {
 
     private String name;
-    private ArrayList<Item> inventory;
-    private HashMap<String, Integer> stock; // מיפוי שם פריט לכמות במלאי
+    private ConcurrentHashMap<String, ShopEntry> catalog; // מיפוי שם פריט לרשומה
+    private volatile EntryTable entryTable;               // לפי סדר ההוספה ולפי קטגוריה
+    // נעילה ליצירת רשומות בלבד. סדר הנעילות: entryLock ואז המנוע (שלא קורא החוצה תחתיה)
+    private final Object entryLock = new Object();
+    private final PricingEngine pricing;
+
+    // סיכומים רצים ודוחות שמורים
+    private final AtomicLong totalStock;
+    private final AtomicLong totalValue;
+    private final AtomicLong version;
+    private volatile CachedReport<Map<String, String>> inventoryReport;
+    private volatile CachedReport<Map<String, int[]>> priceComparison;
+    private volatile PriceSnapshot priceSnapshot;
+    // שמות פריטים שהמלאי שלהם השתנה מאז השמירה האחרונה
+    private final Set<String> dirtyItemNames;
+
+    // מקבל הודעה על כל קנייה, מכירה ושינוי מלאי, או null
+    private volatile EconomyListener economyListener;
 
     public Shop(String name) {
         this.name = name;
-        this.inventory = new ArrayList<>();
-        this.stock = new HashMap<>();
+        this.catalog = new ConcurrentHashMap<>();
+        this.entryTable = new EntryTable(new ShopEntry[0], 0,
+                new ShopEntry[Item.ItemCategory.values().length][0],
+                new int[Item.ItemCategory.values().length]);
+        this.pricing = new PricingEngine();
+        this.pricing.setRepriceListener(this::onPricesChanged);
+        this.totalStock = new AtomicLong();
+        this.totalValue = new AtomicLong();
+        this.version = new AtomicLong();
+        this.dirtyItemNames = ConcurrentHashMap.newKeySet();
     }
 
     // ============================================================
@@ -34,23 +80,236 @@ public class Shop {
 
     /**
      * מוסיף פריט לחנות עם כמות מסוימת.
+     * אם כבר יש פריט באותו שם, רק הכמות שלו גדלה.
      *
      * @param item הפריט להוספה
      * @param quantity הכמות
      */
     public void addItemToShop(Item item, int quantity) {
-        // 1. הוסף את הפריט ל-inventory (אם לא קיים)
-        if (!inventory.contains(item))
-        {
-            inventory.add(item);
+        // 1. פריט חדש - צור רשומה בקטלוג ובאינדקס הקטגוריות
+        ShopEntry entry = entryFor(item);
+        // 2. עדכן את הכמות
+        addStock(entry, quantity);
+    }
+
+    /**
+     * מוסיף כמה פריטים לחנות, כל אחד עם אותה כמות.
+     * הפריטים החדשים נרשמים יחד, כך שטבלת המחירים מתפרסמת פעם אחת לכל האצווה.
+     *
+     * @param items הפריטים להוספה
+     * @param quantity הכמות לכל פריט
+     */
+    public void addItemsToShop(List<Item> items, int quantity) {
+        ArrayList<ShopEntry> itemEntries = entriesFor(items);
+        for (ShopEntry entry : itemEntries) {
+            addStock(entry, quantity);
+        }
+    }
+
+    /**
+     * מחזיר את הרשומה של הפריט, ויוצר אותה אם אין (נדיר, לכן בנעילה של היצירה).
+     */
+    private ShopEntry entryFor(Item item) {
+        ShopEntry entry = catalog.get(item.getName());
+        return entry != null ? entry : entriesFor(Collections.singletonList(item)).get(0);
+    }
+
+    /**
+     * מחזיר את הרשומות של כמה פריטים, ויוצר בבת אחת את אלה שחסרים.
+     */
+    private ArrayList<ShopEntry> entriesFor(List<Item> items) {
+        ArrayList<ShopEntry> result = new ArrayList<>(items.size());
+        synchronized (entryLock) {
+            // 1. מצא או צור (שם שמופיע פעמיים באצווה מקבל אותה רשומה)
+            HashMap<String, ShopEntry> created = new HashMap<>();
+            ArrayList<ShopEntry> newEntries = new ArrayList<>();
+            for (Item item : items) {
+                ShopEntry entry = catalog.get(item.getName());
+                if (entry == null) {
+                    entry = created.get(item.getName());
+                }
+                if (entry == null) {
+                    entry = new ShopEntry(item, this);
+                    created.put(item.getName(), entry);
+                    newEntries.add(entry);
+                }
+                result.add(entry);
+            }
+            // 2. רשום את כל החדשים במנוע התמחור ובאינדקסים
+            if (!newEntries.isEmpty()) {
+                pricing.registerAll(newEntries);
+                entryTable = entryTable.append(newEntries);
+                for (ShopEntry entry : newEntries) {
+                    catalog.put(entry.getName(), entry);
+                    dirtyItemNames.add(entry.getName());
+                }
+                version.incrementAndGet();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * הרשומות לקריאה, לפי סדר ההוספה ולפי קטגוריה - לא משתנה אחרי הפרסום.
+     * כמו טבלת המחירים: למערכים יש קיבולת פנויה, הוספה כותבת לתאים שאחרי
+     * count ומפרסמת טבלה חדשה על אותם מערכים, וההעתקה קורית רק כשהקיבולת
+     * נגמרת. קוראים לא ננעלים אף פעם, וטעינה של n פריטים עולה O(n).
+     */
+    private static final class EntryTable {
+        private final ShopEntry[] all;
+        private final int count;
+        private final ShopEntry[][] byCategory; // לפי ordinal של הקטגוריה
+        private final int[] categoryCounts;
+
+        EntryTable(ShopEntry[] all, int count, ShopEntry[][] byCategory, int[] categoryCounts) {
+            this.all = all;
+            this.count = count;
+            this.byCategory = byCategory;
+            this.categoryCounts = categoryCounts;
+        }
+
+        List<ShopEntry> all() {
+            return Arrays.asList(all).subList(0, count);
+        }
+
+        List<ShopEntry> inCategory(Item.ItemCategory category) {
+            int c = category.ordinal();
+            return Arrays.asList(byCategory[c]).subList(0, categoryCounts[c]);
+        }
+
+        /**
+         * @return טבלה חדשה עם הרשומות הנוספות (נקרא רק תחת entryLock)
+         */
+        EntryTable append(List<ShopEntry> added) {
+            ShopEntry[] newAll = all;
+            if (count + added.size() > newAll.length) {
+                newAll = Arrays.copyOf(all, Math.max(count + added.size(), Math.max(8, all.length * 2)));
+            }
+            ShopEntry[][] newByCategory = byCategory.clone();
+            int[] newCounts = categoryCounts.clone();
+            int newCount = count;
+            for (ShopEntry entry : added) {
+                // התאים האלה עוד לא שייכים לאף טבלה שפורסמה
+                newAll[newCount++] = entry;
+                int c = entry.getItem().getCategory().ordinal();
+                if (newCounts[c] == newByCategory[c].length) {
+                    newByCategory[c] = Arrays.copyOf(newByCategory[c], Math.max(8, newCounts[c] * 2));
+                }
+                newByCategory[c][newCounts[c]++] = entry;
+            }
+            return new EntryTable(newAll, newCount, newByCategory, newCounts);
+        }
+    }
+
+    /**
+     * קובע את המלאי של פריט לפי שמירה (יוצר את הרשומה אם צריך),
+     * בלי אירועים כלכליים - זה שחזור, לא תנועת מלאי.
+     *
+     * @param item הפריט
+     * @param stock הכמות השמורה
+     */
+    void loadStock(Item item, int stock) {
+        loadStock(Collections.singletonList(item), new int[]{stock});
+    }
+
+    /**
+     * קובע את המלאי של כמה פריטים לפי שמירה, עם רישום אחד לכל הפריטים החדשים.
+     *
+     * @param items הפריטים
+     * @param stock הכמות השמורה לכל פריט (לפי אותו סדר)
+     */
+    void loadStock(List<Item> items, int[] stock) {
+        ArrayList<ShopEntry> itemEntries = entriesFor(items);
+        for (int i = 0; i < itemEntries.size(); i++) {
+            ShopEntry entry = itemEntries.get(i);
+            int delta = stock[i] - entry.getStock();
+            if (delta > 0) {
+                entry.addStock(delta);
+            } else if (delta < 0) {
+                entry.removeStock(-delta);
+            }
+        }
+    }
+
+    /**
+     * מוסיף מלאי לפריט שכבר קיים בחנות (בלי נעילה).
+     *
+     * @param itemName שם הפריט
+     * @param quantity הכמות להוספה
+     * @return false אם הפריט לא קיים בחנות
+     */
+    public boolean restock(String itemName, int quantity) {
+        ShopEntry entry = catalog.get(itemName);
+        if (entry == null) {
+            return false;
+        }
+        addStock(entry, quantity);
+        return true;
+    }
+
+    /**
+     * מוריד מלאי שפג תוקפו (בלי לרדת מתחת ל-0, ובלי נעילה).
+     *
+     * @param itemName שם הפריט
+     * @param max הכמות המקסימלית להורדה
+     * @return כמה הורדו בפועל
+     */
+    public int removeStock(String itemName, int max) {
+        ShopEntry entry = catalog.get(itemName);
+        return entry == null ? 0 : removeStock(entry, max);
+    }
+
+    /**
+     * מפעיל מדיניות חידוש על פריט אחד.
+     *
+     * @return השינוי בפועל בכמות
+     */
+    int applyRestock(String itemName, RestockPolicy policy, Random random) {
+        ShopEntry entry = catalog.get(itemName);
+        return entry == null ? 0 : applyRestock(entry, policy, random);
+    }
+
+    /**
+     * מפעיל מדיניות חידוש על כל הפריטים בחנות.
+     */
+    void applyRestockAll(RestockPolicy policy, Random random) {
+        for (ShopEntry entry : entryTable.all()) {
+            applyRestock(entry, policy, random);
+        }
+    }
+
+    private int applyRestock(ShopEntry entry, RestockPolicy policy, Random random) {
+        int amount = policy.restockAmount(entry, random);
+        if (amount > 0) {
+            addStock(entry, amount);
+            return amount;
+        }
+        return amount < 0 ? -removeStock(entry, -amount) : 0;
+    }
+
+    private void addStock(ShopEntry entry, int quantity) {
+        entry.addStock(quantity);
+        record(EconomyEvent.Type.STOCK_CHANGED, name, entry, quantity, entry.getStock());
+    }
+
+    private int removeStock(ShopEntry entry, int max) {
+        int removed = entry.removeStock(max);
+        if (removed > 0) {
+            record(EconomyEvent.Type.STOCK_CHANGED, name, entry, -removed, entry.getStock());
         }
-        // 2. עדכן את הכמות ב-stock (הוסף לכמות הקיימת או צור חדש)
-        if(!stock.containsKey(item.getName()))
-        {
-            stock.put(item.getName(),quantity);
-        } else{
-            stock.put((item.getName()), stock.get(item.getName()) + quantity);
+        return removed;
+    }
+
+    /**
+     * @return שמות כל הפריטים בחנות (כולל כאלה שאזלו), לפי סדר ההוספה
+     */
+    public ArrayList<String> getItemNames() {
+        List<ShopEntry> all = entryTable.all();
+        ArrayList<String> result = new ArrayList<>(all.size());
+        for (ShopEntry entry : all) {
+            result.add(entry.getName());
         }
+        return result;
     }
 
     /**
@@ -61,37 +320,176 @@ public class Shop {
     public ArrayList<Item> getAvailableItems() {
        ArrayList<Item> result = new ArrayList<>();
 
-        for (Item item : inventory) {
-            if (stock.get(item.getName()) > 0 )
+        for (ShopEntry entry : entryTable.all()) {
+            if (entry.isAvailable())
             {
-                result.add(item);
+                result.add(entry.getItem());
             }
         }
        return result;
     }
 
+    // ============================================================
+    //  אינדקס מחירים
+    // ============================================================
+
+    /**
+     * הרשומות ממוינות לפי המחיר הנוכחי, לפי גרסה של טבלת המחירים.
+     * נבנה מחדש רק כשהמחירים משתנים (תמחור מחדש או פריט חדש), לא בכל קנייה.
+     */
+    private static final class PriceSnapshot {
+        final long pricingVersion;
+        final int[] prices;
+        final ShopEntry[] entries;
+
+        PriceSnapshot(long pricingVersion, int[] prices, ShopEntry[] entries) {
+            this.pricingVersion = pricingVersion;
+            this.prices = prices;
+            this.entries = entries;
+        }
+    }
+
+    private PriceSnapshot priceSnapshot() {
+        PriceSnapshot snapshot = priceSnapshot;
+        long current = pricing.getVersion();
+        if (snapshot != null && snapshot.pricingVersion == current) {
+            return snapshot;
+        }
+        ShopEntry[] sorted = entryTable.all().toArray(new ShopEntry[0]);
+        int[] prices = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            prices[i] = sorted[i].getPrice();
+        }
+        // מיון אינדקסים לפי מחיר, ואז סידור שני המערכים לפיהם
+        Integer[] order = new Integer[sorted.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(prices[a], prices[b]));
+        ShopEntry[] byPrice = new ShopEntry[sorted.length];
+        int[] sortedPrices = new int[sorted.length];
+        for (int i = 0; i < order.length; i++) {
+            byPrice[i] = sorted[order[i]];
+            sortedPrices[i] = prices[order[i]];
+        }
+        snapshot = new PriceSnapshot(current, sortedPrices, byPrice);
+        priceSnapshot = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * @return האינדקס הראשון במערך שמחירו גדול מ-price
+     */
+    private static int upperBound(int[] prices, int price) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] <= price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * מחזיר פריטים זמינים בטווח מחירים, מהזול ליקר.
+     * O(log n) למציאת הטווח ועוד מעבר על הפריטים שבו בלבד.
+     *
+     * @param minPrice מחיר מינימלי (כולל)
+     * @param maxPrice מחיר מקסימלי (כולל)
+     * @return רשימת הפריטים
+     */
+    public ArrayList<Item> getItemsInPriceRange(int minPrice, int maxPrice) {
+        return getItemsInPriceRange(minPrice, maxPrice, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * מחזיר פריטים זמינים שהשחקן יכול לקנות, מהזול ליקר.
+     *
+     * @param gold כמות הזהב
+     * @return רשימת הפריטים
+     */
+    public ArrayList<Item> getAffordableItems(int gold) {
+        return getItemsInPriceRange(Integer.MIN_VALUE, gold, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * עמוד אחד מתוך הפריטים הזמינים שהשחקן יכול לקנות.
+     *
+     * @param gold כמות הזהב
+     * @param offset כמה פריטים זמינים לדלג
+     * @param limit גודל העמוד
+     * @return הפריטים בעמוד
+     */
+    public ArrayList<Item> getAffordableItems(int gold, int offset, int limit) {
+        return getItemsInPriceRange(Integer.MIN_VALUE, gold, offset, limit);
+    }
+
+    private ArrayList<Item> getItemsInPriceRange(int minPrice, int maxPrice, int offset, int limit) {
+        ArrayList<Item> result = new ArrayList<>();
+        if (minPrice > maxPrice) {
+            return result;
+        }
+        PriceSnapshot snapshot = priceSnapshot();
+        int from = minPrice == Integer.MIN_VALUE ? 0 : upperBound(snapshot.prices, minPrice - 1);
+        int to = upperBound(snapshot.prices, maxPrice);
+        int skipped = 0;
+        for (int i = from; i < to && result.size() < limit; i++) {
+            ShopEntry entry = snapshot.entries[i];
+            if (!entry.isAvailable()) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            result.add(entry.getItem());
+        }
+        return result;
+    }
+
     /**
      * מחזיר פריטים לפי קטגוריה (Weapon, Armor, Potion).
-     * השתמש ב-instanceof.
      *
      * @param category שם הקטגוריה ("weapon", "armor", "potion")
-     * @return רשימת פריטים מהקטגוריה
+     * @return רשימת פריטים מהקטגוריה (ריקה אם הקטגוריה לא מוכרת)
      */
     public ArrayList<Item> getItemsByCategory(String category) {
-        ArrayList<Item> result = new ArrayList<>();
-        category = category.toLowerCase();
-        for (Item item : inventory) {
-            if (    category.equals("weapon") && item instanceof Weapon ||
-                    category.equals("potion") && item instanceof Potion ||
-                    category.equals("armor") && item instanceof Armor) {
-
-                result.add(item);
-            }
+        try {
+            return getItemsByCategory(Item.ItemCategory.valueOf(category.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return new ArrayList<>();
         }
+    }
 
+    /**
+     * מחזיר פריטים לפי קטגוריה.
+     *
+     * @param category הקטגוריה
+     * @return רשימת פריטים מהקטגוריה
+     */
+    public ArrayList<Item> getItemsByCategory(Item.ItemCategory category) {
+        List<ShopEntry> categoryEntries = entryTable.inCategory(category);
+        ArrayList<Item> result = new ArrayList<>(categoryEntries.size());
+        for (ShopEntry entry : categoryEntries) {
+            result.add(entry.getItem());
+        }
         return result;
     }
 
+    /**
+     * מחזיר את הרשומה בקטלוג של פריט.
+     *
+     * @param itemName שם הפריט
+     * @return הרשומה, או null אם הפריט לא בחנות
+     */
+    public ShopEntry getEntry(String itemName) {
+        return catalog.get(itemName);
+    }
+
     // ============================================================
     //  קנייה ומכירה
     // ============================================================
@@ -110,33 +508,59 @@ public class Shop {
     public Item buyItem(Character customer, String itemName)
             throws ItemNotFoundException, InsufficientGoldException,
             InventoryFullException {
-        Item itemToBuy = null;
-        // 1. חפש את הפריט ב-inventory לפי שם
-        for (Item item : inventory) {
-            if(item.getName().equals(itemName))
-            {
-                itemToBuy = item;
-                break;
-            }
+        TradeResult result = tryBuyItem(customer, itemName);
+        switch (result.getStatus()) {
+            case SUCCESS:
+                return result.getItem();
+            case INSUFFICIENT_GOLD:
+                throw new InsufficientGoldException(catalog.get(itemName).getPrice(), customer.getGold());
+            case INVENTORY_FULL:
+                throw new InventoryFullException(itemName, customer.getMaxInventorySize());
+            default:
+                throw new ItemNotFoundException(itemName);
         }
-        // 2. בדוק שיש מלאי (stock > 0)
-        if (itemToBuy == null || getItemStock(itemName) <= 0) {
-            throw new ItemNotFoundException(itemName);
+    }
+
+    /**
+     * השחקן קונה פריט מהחנות בלי לזרוק Exception.
+     *
+     * @param customer השחקן הקונה
+     * @param itemName שם הפריט לקנייה
+     * @return תוצאת העסקה (בכישלון שום דבר לא משתנה)
+     */
+    public TradeResult tryBuyItem(Character customer, String itemName) {
+        // 1. חפש את הפריט בקטלוג לפי שם ושמור יחידה (שלב ראשון)
+        ShopEntry entry = catalog.get(itemName);
+        if (entry == null) {
+            return TradeResult.ITEM_NOT_FOUND;
         }
-        // 3. בדוק שיש לשחקן מספיק זהב
-        if (customer.getGold() < itemToBuy.getBuyPrice()) {
-            throw new InsufficientGoldException(customer.getGold(),itemToBuy.getBuyPrice());
+        if (!entry.tryReserve()) {
+            return TradeResult.OUT_OF_STOCK;
+        }
+        // מופע חדש לכל קונה - הפריט בקטלוג משמש רק כתבנית
+        Item itemToBuy = entry.getItem().getDefinition().newInstance();
+        int price = entry.getPrice();
+        // 2. שלב שני - תחת נעילת הלקוח: בדוק זהב ומקום, ואז חייב והוסף
+        TradeResult failure;
+        synchronized (customer) {
+            if (!customer.spendGold(price)) {
+                failure = TradeResult.INSUFFICIENT_GOLD;
+            } else if (customer.tryAddItem(itemToBuy) != InventoryResult.OK) {
+                customer.addGold(price); // החזר את הזהב
+                failure = TradeResult.INVENTORY_FULL;
+            } else {
+                entry.recordSale(1);
+                failure = null;
+            }
         }
-        // 4. בדוק שיש מקום במלאי של השחקן
-        if (customer.getInventory().size() >= customer.getMaxInventorySize())
-        {
-            throw new InventoryFullException(itemName, customer.getMaxInventorySize());
+        if (failure == null) {
+            record(EconomyEvent.Type.ITEM_BOUGHT, customer.getName(), entry, 1, price);
+            record(EconomyEvent.Type.STOCK_CHANGED, name, entry, -1, entry.getStock());
+            return TradeResult.success(itemToBuy, price);
         }
-        // 5. בצע את העסקה: הורד זהב, הוסף פריט לשחקן, הפחת מלאי
-        customer.spendGold(itemToBuy.getBuyPrice());
-        customer.addItem(itemToBuy);
-        stock.put(itemName, stock.get(itemName) - 1);
-        return itemToBuy;
+        // 3. העסקה נכשלה - החזר את היחידה השמורה למלאי
+        entry.release();
+        return failure;
     }
 
     /**
@@ -150,29 +574,177 @@ public class Shop {
      */
     public int sellItem(Character seller, String itemName)
             throws ItemNotFoundException, InvalidActionException {
-        Item itemToSell = null;
-        // 1. חפש את הפריט במלאי השחקן
-        for (Item item: seller.getInventory()) {
-            if(item.equals(itemName))
+        TradeResult result = trySellItem(seller, itemName);
+        if (result.getStatus() == TradeResult.Status.NOT_SELLABLE) {
+            throw new InvalidActionException("sellItem" , "item isnt sellable");
+        }
+        if (!result.isSuccess()) {
+            throw new ItemNotFoundException(itemName);
+        }
+        return result.getGold();
+    }
+
+    /**
+     * השחקן מוכר פריט לחנות בלי לזרוק Exception.
+     *
+     * @param seller השחקן המוכר
+     * @param itemName שם הפריט למכירה
+     * @return תוצאת העסקה (בכישלון שום דבר לא משתנה)
+     */
+    public TradeResult trySellItem(Character seller, String itemName) {
+        Item itemToSell;
+        int gold;
+        synchronized (seller) {
+            // 1. חפש את הפריט במלאי השחקן
+            itemToSell = seller.findItem(itemName);
+            if (itemToSell == null)
             {
-                itemToSell = item;
+                return TradeResult.ITEM_NOT_FOUND;
+            }
+            // 2. בדוק שהפריט ניתן למכירה (isSellable)
+            if (!itemToSell.isSellable())
+            {
+                return TradeResult.NOT_SELLABLE;
+            }
+            // 3. הסר מהשחקן ותן לו את הזהב (המחיר הנוכחי בחנות, אם היא מוכרת את הפריט)
+            ShopEntry entry = catalog.get(itemName);
+            gold = entry != null ? entry.getSellPrice() : itemToSell.getSellPrice();
+            seller.removeItemIfPresent(itemName);
+            seller.addGold(gold);
+        }
+        // 4. דווח על המכירה (הפריט לא חוזר למלאי החנות)
+        EconomyListener listener = economyListener;
+        if (listener != null) {
+            listener.onEconomyEvent(EconomyEvent.Type.ITEM_SOLD, seller.getName(), itemName, 1, gold);
+        }
+        return TradeResult.success(itemToSell, gold);
+    }
+
+    /**
+     * קונה את כל העגלה בבת אחת - או הכל או כלום.
+     * המלאי, הזהב והמקום במלאי הלקוח נבדקים פעם אחת לכל העגלה.
+     *
+     * @param customer השחקן הקונה
+     * @param cart העגלה
+     * @return תוצאת הקנייה (בכישלון שום דבר לא משתנה)
+     */
+    public CheckoutResult checkout(Character customer, ShoppingCart cart) {
+        if (cart.isEmpty()) {
+            return CheckoutResult.failure("Cart is empty");
+        }
+        // 1. מצא את כל הרשומות וחשב מחיר כולל (המחיר של כל שורה נקבע כאן)
+        ArrayList<ShopEntry> cartEntries = new ArrayList<>();
+        ArrayList<Integer> quantities = new ArrayList<>();
+        ArrayList<Integer> prices = new ArrayList<>();
+        long total = 0;
+        for (Map.Entry<String, Integer> line : cart.getLines().entrySet()) {
+            ShopEntry entry = catalog.get(line.getKey());
+            if (entry == null) {
+                return CheckoutResult.failure("Item not found: " + line.getKey());
+            }
+            int price = entry.getPrice();
+            cartEntries.add(entry);
+            quantities.add(line.getValue());
+            prices.add(price);
+            total += (long) price * line.getValue();
+        }
+        if (total > Integer.MAX_VALUE) {
+            return CheckoutResult.failure("Cart total too large: " + total);
+        }
+        int totalCost = (int) total;
+        // 2. שמור מלאי לכל השורות; אם שורה נכשלת - שחרר את מה שנשמר
+        int reserved = 0;
+        for (; reserved < cartEntries.size(); reserved++) {
+            if (!cartEntries.get(reserved).tryReserve(quantities.get(reserved))) {
                 break;
             }
         }
-        if (itemToSell == null)
-        {
-            throw new ItemNotFoundException(itemName);
+        boolean committed = false;
+        try {
+            if (reserved < cartEntries.size()) {
+                return CheckoutResult.failure("Not enough stock: "
+                        + cartEntries.get(reserved).getName());
+            }
+            // 3. תחת נעילת הלקוח: בדוק זהב ומקום, חייב והוסף את כל הפריטים
+            ArrayList<Item> bought = new ArrayList<>(cart.getTotalQuantity());
+            for (int i = 0; i < cartEntries.size(); i++) {
+                for (int q = 0; q < quantities.get(i); q++) {
+                    // כל יחידה היא מופע משלה - השימושים בשיקוי לא משותפים
+                    bought.add(cartEntries.get(i).getItem().getDefinition().newInstance());
+                }
+            }
+            synchronized (customer) {
+                if (customer.getGold() < totalCost) {
+                    return CheckoutResult.failure("Insufficient gold: required " + totalCost
+                            + ", available " + customer.getGold());
+                }
+                customer.spendGold(totalCost);
+                try {
+                    customer.addItems(bought);
+                } catch (InventoryFullException e) {
+                    customer.addGold(totalCost); // החזר את הזהב
+                    return CheckoutResult.failure(e.getMessage());
+                }
+            }
+            committed = true;
+            for (int i = 0; i < cartEntries.size(); i++) {
+                ShopEntry entry = cartEntries.get(i);
+                int quantity = quantities.get(i);
+                entry.recordSale(quantity);
+                record(EconomyEvent.Type.ITEM_BOUGHT, customer.getName(), entry,
+                        quantity, (long) prices.get(i) * quantity);
+                record(EconomyEvent.Type.STOCK_CHANGED, name, entry, -quantity, entry.getStock());
+            }
+            return CheckoutResult.success(bought, totalCost);
+        } finally {
+            // 4. אם הקנייה נכשלה - החזר את כל המלאי השמור
+            if (!committed) {
+                for (int i = 0; i < reserved; i++) {
+                    cartEntries.get(i).release(quantities.get(i));
+                }
+            }
         }
-        // 2. בדוק שהפריט ניתן למכירה (isSellable)
-        if (!itemToSell.isSellable())
-        {
-            throw new InvalidActionException("sellItem" , "item isnt sellable");
+    }
+
+    /**
+     * השחקן מוכר כמה פריטים בבת אחת - או כולם או אף אחד.
+     *
+     * @param seller השחקן המוכר
+     * @param itemNames שמות הפריטים (שם שמופיע פעמיים נמכר פעמיים)
+     * @return כמות הזהב הכוללת שהתקבלה
+     * @throws ItemNotFoundException אם אחד הפריטים לא נמצא במלאי השחקן
+     * @throws InvalidActionException אם אחד הפריטים לא ניתן למכירה
+     */
+    public int sellItems(Character seller, Collection<String> itemNames)
+            throws ItemNotFoundException, InvalidActionException {
+        ArrayList<Item> sold;
+        int totalGold = 0;
+        synchronized (seller) {
+            // 1. בדוק שכל הפריטים ניתנים למכירה לפני שמסירים משהו
+            for (String itemName : itemNames) {
+                Item item = seller.findItem(itemName);
+                if (item != null && !item.isSellable()) {
+                    throw new InvalidActionException("sellItems", "item isnt sellable: " + itemName);
+                }
+            }
+            // 2. הסר את כולם (זורק ItemNotFoundException בלי לשנות כלום)
+            sold = seller.removeItems(itemNames);
+            for (Item item : sold) {
+                ShopEntry entry = catalog.get(item.getName());
+                totalGold += entry != null ? entry.getSellPrice() : item.getSellPrice();
+            }
+            seller.addGold(totalGold);
+        }
+        // 3. דווח על המכירות (הפריטים לא חוזרים למלאי החנות)
+        EconomyListener listener = economyListener;
+        if (listener != null) {
+            for (Item item : sold) {
+                ShopEntry entry = catalog.get(item.getName());
+                listener.onEconomyEvent(EconomyEvent.Type.ITEM_SOLD, seller.getName(),
+                        item.getName(), 1, entry != null ? entry.getSellPrice() : item.getSellPrice());
+            }
         }
-        // 3. הסר מהשחקן והוסף לחנות
-        seller.removeItem(itemName);
-        // 4. תן לשחקן את הזהב (getSellPrice)
-        seller.addGold(itemToSell.getSellPrice());
-        return itemToSell.getSellPrice();
+        return totalGold;
     }
 
     /**
@@ -182,61 +754,151 @@ public class Shop {
      * @return הכמות במלאי, או 0 אם לא קיים
      */
     public int getItemStock(String itemName) {
-        if (!stock.containsKey(itemName)){
+        ShopEntry entry = catalog.get(itemName);
+        if (entry == null){
             return 0;
         }
-        return stock.get(itemName);
+        return entry.getStock();
     }
 
     /**
      * מחשב את הערך הכולל של כל הפריטים בחנות.
+     * הסכום מתעדכן בכל שינוי מלאי, כך שהקריאה היא O(1).
      *
      * @return הערך הכול
      */
     public int getTotalValue() {
-        // סכום של (מחיר קנייה * כמות) לכל פריט
-        int total = 0;
-        for (Item item : inventory) {
-            int quantity = getItemStock(item.getName());
-            total += (item.getBuyPrice() * quantity);
+        return (int) totalValue.get();
+    }
+
+    // ============================================================
+    //  סיכומים רצים
+    // ============================================================
+
+    private void record(EconomyEvent.Type type, String actor, ShopEntry entry, int amount, long value) {
+        EconomyListener listener = economyListener;
+        if (listener != null) {
+            listener.onEconomyEvent(type, actor, entry.getName(), amount, value);
+        }
+    }
+
+    /**
+     * נקרא מ-ShopEntry בכל שינוי בכמות.
+     *
+     * @param entry הרשומה שהשתנתה
+     * @param delta השינוי בכמות
+     */
+    void onStockChanged(ShopEntry entry, int delta) {
+        totalStock.addAndGet(delta);
+        totalValue.addAndGet((long) delta * entry.getPrice());
+        dirtyItemNames.add(entry.getName());
+        version.incrementAndGet();
+    }
+
+    /**
+     * מחזיר את הפריטים שהמלאי שלהם השתנה מאז הקריאה הקודמת ומסיר אותם
+     * מהרשימה. כל שם מוסר לפני שהמלאי שלו נקרא, כך ששינוי מקביל (חידוש מלאי
+     * ברקע) מסמן אותו מחדש ולא הולך לאיבוד.
+     */
+    ArrayList<String> takeDirtyItemNames() {
+        ArrayList<String> names = new ArrayList<>(dirtyItemNames.size());
+        for (String itemName : dirtyItemNames) {
+            if (dirtyItemNames.remove(itemName)) {
+                names.add(itemName);
+            }
         }
-        return total;
+        return names;
+    }
+
+    void restoreDirtyItemNames(Collection<String> itemNames) {
+        dirtyItemNames.addAll(itemNames);
+    }
+
+    /**
+     * נקרא אחרי פרסום טבלת מחירים חדשה - מחשב מחדש את הערך הכולל.
+     * עסקאות שרצות בדיוק בזמן התמחור יכולות להזיז את הסכום במעט,
+     * והוא מתיישר שוב בתמחור הבא.
+     */
+    private void onPricesChanged() {
+        long value = 0;
+        for (ShopEntry entry : entryTable.all()) {
+            value += (long) entry.getPrice() * entry.getStock();
+        }
+        totalValue.set(value);
+        version.incrementAndGet();
+    }
+
+    /**
+     * @return מונה גרסה שעולה בכל שינוי מלאי או מחיר
+     */
+    public long getVersion() {
+        return version.get();
     }
 
     // ============================================================
     //  דוחות (שימוש ב-HashMap)
     // ============================================================
 
+    /**
+     * דוח שמור יחד עם הגרסה של החנות שממנה נבנה.
+     */
+    private static final class CachedReport<T> {
+        final long version;
+        final T value;
+
+        CachedReport(long version, T value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+
     /**
      *  מימוש getInventoryReport
-     * מחזיר HashMap עם דוח מלאי: שם פריט -> מידע (מחיר וכמות).
+     * מחזיר דוח מלאי: שם פריט -> מידע (מחיר וכמות).
+     * הדוח נשמר ונבנה מחדש רק אם משהו בחנות השתנה מאז.
      *
-     * @return HashMap של (String -> String) בפורמט "Price: X, Stock: Y"
+     * @return מפה לקריאה בלבד של (String -> String) בפורמט "Price: X, Stock: Y"
      */
-    public HashMap<String, String> getInventoryReport() {
+    public Map<String, String> getInventoryReport() {
+        CachedReport<Map<String, String>> cached = inventoryReport;
+        long current = version.get();
+        if (cached != null && cached.version == current) {
+            return cached.value;
+        }
 
         HashMap<String, String> report = new HashMap<>();
 
-        for (Item item : inventory) {
-            String name = item.getName();
-            int quantity = getItemStock(item.getName());
-            report.put(name, "Price: " + item.getBuyPrice() + ", Stock: " + quantity);
+        for (ShopEntry entry : entryTable.all()) {
+            report.put(entry.getName(),
+                    "Price: " + entry.getPrice() + ", Stock: " + entry.getStock());
         }
-        return report;
+        Map<String, String> result = Collections.unmodifiableMap(report);
+        inventoryReport = new CachedReport<>(current, result);
+        return result;
     }
 
     /**
      * משווה מחירים בין קנייה למכירה.
+     * הדוח נשמר ונבנה מחדש רק אם משהו בחנות השתנה מאז.
      *
-     * @return HashMap של (String -> int[]) כאשר [0]=buyPrice, [1]=sellPrice
+     * @return מפה לקריאה בלבד של (String -> int[]) כאשר [0]=buyPrice, [1]=sellPrice
+     *         (המערכים משותפים בין הקוראים - אין לשנות אותם)
      */
-    public HashMap<String, int[]> getPriceComparison() {
-        HashMap<String, int[]> result = new HashMap<>();
+    public Map<String, int[]> getPriceComparison() {
+        CachedReport<Map<String, int[]>> cached = priceComparison;
+        long current = version.get();
+        if (cached != null && cached.version == current) {
+            return cached.value;
+        }
+
+        HashMap<String, int[]> comparison = new HashMap<>();
 
-        for (Item item : inventory) {
-            result.put(item.getName(),
-                    new int[]{item.getBuyPrice(), item.getSellPrice()});
+        for (ShopEntry entry : entryTable.all()) {
+            comparison.put(entry.getName(),
+                    new int[]{entry.getPrice(), entry.getSellPrice()});
         }
+        Map<String, int[]> result = Collections.unmodifiableMap(comparison);
+        priceComparison = new CachedReport<>(current, result);
         return result;
     }
 
@@ -245,16 +907,20 @@ public class Shop {
         return name;
     }
 
+    public PricingEngine getPricingEngine() {
+        return pricing;
+    }
+
+    public void setEconomyListener(EconomyListener economyListener) {
+        this.economyListener = economyListener;
+    }
+
     public int getUniqueItemCount() {
-        return inventory.size();
+        return catalog.size();
     }
 
     public int getTotalItemCount() {
-        int total = 0;
-        for (int count : stock.values()) {
-            total += count;
-        }
-        return total;
+        return (int) totalStock.get();
     }
 
     @Override
@@ -0,0 +1,169 @@
+package game;
+
+import model.items.Item;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * רשומה בקטלוג החנות: פריט אחד (SKU) עם המחיר והכמות שלו.
+ * הכמות אטומית, כך שכמה קונים במקביל לא יכולים למכור יותר ממה שיש.
+ * המחיר הנוכחי נקרא מטבלת המחירים של PricingEngine.
+ */
+public class ShopEntry {
+
+    private final Item item;
+    private final int basePrice;
+    private final AtomicInteger stock;
+    private final AtomicInteger soldSinceReprice;
+    private final Shop owner; // מקבל עדכון על כל שינוי בכמות
+
+    // נקבעים ברישום במנוע התמחור, לפני שהרשומה נחשפת לקוראים
+    private PricingEngine pricing;
+    private int priceIndex;
+
+    ShopEntry(Item item, Shop owner) {
+        this.item = item;
+        this.basePrice = item.getBuyPrice();
+        this.stock = new AtomicInteger();
+        this.soldSinceReprice = new AtomicInteger();
+        this.owner = owner;
+    }
+
+    void attach(PricingEngine pricing, int priceIndex) {
+        this.pricing = pricing;
+        this.priceIndex = priceIndex;
+    }
+
+    /**
+     * מוסיף כמות למלאי.
+     *
+     * @param quantity הכמות להוספה
+     */
+    void addStock(int quantity) {
+        stock.addAndGet(quantity);
+        owner.onStockChanged(this, quantity);
+    }
+
+    /**
+     * שומר (מוריד) יחידה אחת מהמלאי ב-CAS, בלי נעילה.
+     *
+     * @return true אם היה מלאי והיחידה נשמרה
+     */
+    boolean tryReserve() {
+        return tryReserve(1);
+    }
+
+    /**
+     * שומר כמה יחידות בבת אחת - או כולן או אף אחת.
+     *
+     * @param quantity הכמות לשמירה
+     * @return true אם היה מספיק מלאי והיחידות נשמרו
+     */
+    boolean tryReserve(int quantity) {
+        while (true) {
+            int current = stock.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (stock.compareAndSet(current, current - quantity)) {
+                owner.onStockChanged(this, -quantity);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * מוריד עד כמות נתונה מהמלאי (תפוגה), בלי לרדת מתחת ל-0.
+     *
+     * @param max הכמות המקסימלית להורדה
+     * @return כמה הורדו בפועל
+     */
+    int removeStock(int max) {
+        while (true) {
+            int current = stock.get();
+            int removed = Math.min(current, max);
+            if (removed <= 0) {
+                return 0;
+            }
+            if (stock.compareAndSet(current, current - removed)) {
+                owner.onStockChanged(this, -removed);
+                return removed;
+            }
+        }
+    }
+
+    /**
+     * מחזיר יחידה שנשמרה למלאי (ביטול עסקה).
+     */
+    void release() {
+        release(1);
+    }
+
+    void release(int quantity) {
+        stock.addAndGet(quantity);
+        owner.onStockChanged(this, quantity);
+    }
+
+    /**
+     * רושם מכירה שהושלמה (לחישוב קצב המכירות).
+     *
+     * @param quantity הכמות שנמכרה
+     */
+    void recordSale(int quantity) {
+        soldSinceReprice.addAndGet(quantity);
+    }
+
+    /**
+     * @return המכירות מאז הקריאה הקודמת (ומאפס את המונה)
+     */
+    int drainSales() {
+        return soldSinceReprice.getAndSet(0);
+    }
+
+    // Getters
+    public Item getItem() {
+        return item;
+    }
+
+    public String getName() {
+        return item.getName();
+    }
+
+    public Item.ItemCategory getCategory() {
+        return item.getCategory();
+    }
+
+    /**
+     * @return מחיר הקנייה הנוכחי
+     */
+    public int getPrice() {
+        return pricing == null ? basePrice : pricing.getBuyPrice(priceIndex);
+    }
+
+    /**
+     * @return המחיר שהחנות משלמת על הפריט כרגע
+     */
+    public int getSellPrice() {
+        return pricing == null ? item.getSellPrice() : pricing.getSellPrice(priceIndex);
+    }
+
+    /**
+     * @return מחיר הבסיס (לפני היצע וביקוש)
+     */
+    public int getBasePrice() {
+        return basePrice;
+    }
+
+    public int getStock() {
+        return stock.get();
+    }
+
+    public boolean isAvailable() {
+        return stock.get() > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s | Price: %d | Stock: %d", item.getName(), getPrice(), stock.get());
+    }
+}
@@ -0,0 +1,72 @@
+package game;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * עגלת קניות: שם פריט -> כמות.
+ * העגלה נקנית בבת אחת דרך Shop.checkout - או הכל או כלום.
+ */
+public class ShoppingCart {
+
+    private final LinkedHashMap<String, Integer> lines;
+
+    public ShoppingCart() {
+        this.lines = new LinkedHashMap<>();
+    }
+
+    /**
+     * מוסיף כמות של פריט לעגלה.
+     *
+     * @param itemName שם הפריט
+     * @param quantity הכמות (חייבת להיות חיובית)
+     * @return העגלה עצמה (לשרשור)
+     */
+    public ShoppingCart add(String itemName, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        lines.merge(itemName, quantity, Integer::sum);
+        return this;
+    }
+
+    /**
+     * מוריד פריט מהעגלה לגמרי.
+     *
+     * @param itemName שם הפריט
+     */
+    public void remove(String itemName) {
+        lines.remove(itemName);
+    }
+
+    public void clear() {
+        lines.clear();
+    }
+
+    public int getQuantity(String itemName) {
+        return lines.getOrDefault(itemName, 0);
+    }
+
+    /**
+     * @return מספר הפריטים הכולל בעגלה
+     */
+    public int getTotalQuantity() {
+        int total = 0;
+        for (int quantity : lines.values()) {
+            total += quantity;
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    /**
+     * @return שורות העגלה (לקריאה בלבד)
+     */
+    public Map<String, Integer> getLines() {
+        return Collections.unmodifiableMap(lines);
+    }
+}
@@ -0,0 +1,69 @@
+package game;
+
+import model.items.Item;
+
+/**
+ * תוצאה של קנייה או מכירה בחנות בלי לזרוק Exception.
+ * תוצאות כישלון הן מופעים קבועים, כך שעסקה שנכשלה לא מקצה כלום.
+ */
+public class TradeResult {
+
+    public enum Status {
+        SUCCESS,
+        ITEM_NOT_FOUND,     // הפריט לא קיים בחנות / אצל המוכר
+        OUT_OF_STOCK,       // אין מלאי בחנות
+        INSUFFICIENT_GOLD,  // אין לקונה מספיק זהב
+        INVENTORY_FULL,     // אין מקום במלאי הקונה
+        NOT_SELLABLE        // הפריט לא ניתן למכירה
+    }
+
+    static final TradeResult ITEM_NOT_FOUND = new TradeResult(Status.ITEM_NOT_FOUND, null, 0);
+    static final TradeResult OUT_OF_STOCK = new TradeResult(Status.OUT_OF_STOCK, null, 0);
+    static final TradeResult INSUFFICIENT_GOLD = new TradeResult(Status.INSUFFICIENT_GOLD, null, 0);
+    static final TradeResult INVENTORY_FULL = new TradeResult(Status.INVENTORY_FULL, null, 0);
+    static final TradeResult NOT_SELLABLE = new TradeResult(Status.NOT_SELLABLE, null, 0);
+
+    private final Status status;
+    private final Item item;
+    private final int gold;
+
+    private TradeResult(Status status, Item item, int gold) {
+        this.status = status;
+        this.item = item;
+        this.gold = gold;
+    }
+
+    /**
+     * @param item הפריט שעבר ידיים
+     * @param gold הזהב ששולם (בקנייה) או התקבל (במכירה)
+     */
+    static TradeResult success(Item item, int gold) {
+        return new TradeResult(Status.SUCCESS, item, gold);
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    // Getters
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return הפריט שנקנה/נמכר, או null אם העסקה נכשלה
+     */
+    public Item getItem() {
+        return item;
+    }
+
+    public int getGold() {
+        return gold;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "Trade OK: " + item.getName() + " for " + gold + " gold"
+                : "Trade failed: " + status;
+    }
+}
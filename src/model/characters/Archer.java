@@ -1,5 +1,11 @@
     package model.characters;
 
+    import java.io.DataInput;
+    import java.io.DataOutput;
+    import java.io.IOException;
+    import java.util.List;
+    import java.util.random.RandomGenerator;
+
     /**
      * מחלקה המייצגת קשת במשחק.
      * יורשת מ-Character.
@@ -12,6 +18,8 @@
         private int arrows;
         private static final int MAX_ARROWS = 30;
         private static final int MULTISHOT_ARROW_COST = 3;
+        private static final int MULTISHOT_ARROWS = 3;
+        private static final int VOLLEY_ARROW_COST = 5;
 
         public Archer(String name) {
             // קשת: חיים בינוניים, מאנה בינונית, כוח בינוני, הגנה נמוכה
@@ -54,21 +62,16 @@
 
         /**
          * נזק קשת = baseStrength + נזק נשק (אם יש)
-         * יש סיכוי של criticalChance לפגיעה קריטית (נזק * criticalMultiplier)
-         * השתמש ב-Math.random() לקביעת קריטי
-         *
-         * @return נזק ההתקפה (עם או בלי קריטי)
+         * יש סיכוי של criticalChance לפגיעה קריטית (נזק * criticalMultiplier),
+         * לכל מכה בנפרד.
          */
         @Override
-        public int calculateAttackDamage() {
-             int arrowDamage = baseStrength;
-            if (equippedWeapon != null) {
-                arrowDamage += equippedWeapon.calculateDamage();
-            }
-            if (Math.random() < criticalChance) {
-                arrowDamage = (int) (arrowDamage * criticalMultiplier);
+        protected void applyCriticals(int[] damage, int offset, int count, RandomGenerator random) {
+            for (int i = offset, end = offset + count; i < end; i++) {
+                if (random.nextDouble() < criticalChance) {
+                    damage[i] = (int) (damage[i] * criticalMultiplier);
+                }
             }
-            return arrowDamage;
         }
 
         /**
@@ -88,16 +91,45 @@
                 return false;
             }
             arrows -= MULTISHOT_ARROW_COST;
+            markDirty();
 
-            for (int i = 0; i < 3; i++) {
-                int damage = calculateAttackDamage();
-                damage = (int) (damage * 0.7);
-                target.takeDamage(damage);
+            // כל החיצים מוגרלים במעבר אחד
+            int[] volley = rollAttackDamage(MULTISHOT_ARROWS);
+            for (int damage : volley) {
+                target.takeDamage((int) (damage * 0.7));
             }
 
             return true;
         }
 
+        /**
+         * יכולת שטח: מטח חיצים
+         * - עולה VOLLEY_ARROW_COST חיצים
+         * - חץ אחד לכל יעד, 70% מנזק רגיל, כל חץ יכול להיות קריטי בנפרד
+         *
+         * @param targets היעדים
+         * @return true אם היכולת בוצעה
+         */
+        @Override
+        public boolean useAreaAbility(List<? extends Character> targets) {
+            return volley(targets);
+        }
+
+        public boolean volley(List<? extends Character> targets) {
+            if (arrows < VOLLEY_ARROW_COST) {
+                return false;
+            }
+            arrows -= VOLLEY_ARROW_COST;
+            markDirty();
+
+            int[] damage = rollAttackDamage(targets.size());
+            for (int i = 0; i < damage.length; i++) {
+                damage[i] = (int) (damage[i] * 0.7);
+            }
+            AreaDamage.apply(targets, damage);
+            return true;
+        }
+
         // ============================================================
         //  מתודות ייחודיות לקשת
         // ============================================================
@@ -116,6 +148,7 @@
                 return -1;
             }
             arrows--;
+            markDirty();
             int damage = calculateAttackDamage();
             target.takeDamage(damage);
             return damage;
@@ -133,6 +166,7 @@
             if(spendGold(cost))
             {
                 arrows = MAX_ARROWS;
+                markDirty();
                 return true;
             }
             return false;
@@ -153,6 +187,20 @@
             return Math.random() < evadeChance;
         }
 
+        @Override
+        protected void writeClassState(DataOutput out) throws IOException {
+            out.writeDouble(criticalChance);
+            out.writeDouble(criticalMultiplier);
+            out.writeInt(arrows);
+        }
+
+        @Override
+        protected void readClassState(DataInput in) throws IOException {
+            criticalChance = in.readDouble();
+            criticalMultiplier = in.readDouble();
+            arrows = Math.max(0, Math.min(in.readInt(), MAX_ARROWS));
+        }
+
         // Getters
         public double getCriticalChance() {
             return criticalChance;
@@ -0,0 +1,87 @@
+package model.characters;
+
+import model.items.Armor;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * החלת נזק שטח על הרבה יעדים בבת אחת.
+ *
+ * במקום קריאה ל-takeDamage לכל יעד, החיים ומכפילי השריון של כל היעדים
+ * נאספים למערכים פרימיטיביים (המכפילים מועתקים מהמטמון של כל דמות, בלי
+ * לעבור על השריון), והנזק מופחת ומוחסר בלולאה אחת על המערכים.
+ * אחרי הלולאה החיים נכתבים בחזרה ו-onDamageTaken נקרא לכל יעד בנפרד
+ * (למשל זעם של לוחם) - זה השלב היחיד שעובר דרך קריאה וירטואלית.
+ * התוצאה זהה ל-takeDamage: אותה הפחתה (עיגול כלפי מעלה אחרי כל חלק שריון,
+ * באותו סדר), וחיים לא יורדים מתחת ל-0.
+ *
+ * כל יעד צריך להופיע ברשימה פעם אחת בלבד.
+ */
+public final class AreaDamage {
+
+    // מספר חלקי השריון האפשריים - מקומות לכל יעד במערך המכפילים
+    private static final int ARMOR_SLOTS = Armor.ArmorSlot.values().length;
+
+    private AreaDamage() {
+    }
+
+    /**
+     * פוגע בכל היעדים באותו נזק (לפני שריון).
+     *
+     * @param targets היעדים
+     * @param damage הנזק לכל יעד
+     * @return סך החיים שירדו
+     */
+    public static long apply(List<? extends Character> targets, int damage) {
+        int[] damages = new int[targets.size()];
+        Arrays.fill(damages, damage);
+        return apply(targets, damages);
+    }
+
+    /**
+     * פוגע בכל יעד בנזק משלו (לפני שריון).
+     *
+     * @param targets היעדים
+     * @param damage הנזק לכל יעד, לפי אותו סדר; המערך מתעדכן לנזק בפועל
+     * @return סך החיים שירדו
+     */
+    public static long apply(List<? extends Character> targets, int[] damage) {
+        int n = targets.size();
+        if (damage.length < n) {
+            throw new IllegalArgumentException("Need " + n + " damage values, got " + damage.length);
+        }
+        // 1. איסוף: חיים ומכפילי שריון לכל יעד (מקום ריק = 1.0, בלי הפחתה)
+        int[] health = new int[n];
+        double[] mitigation = new double[n * ARMOR_SLOTS];
+        Arrays.fill(mitigation, 1.0);
+        for (int i = 0; i < n; i++) {
+            Character target = targets.get(i);
+            health[i] = target.currentHealth;
+            double[] armor = target.mitigation();
+            System.arraycopy(armor, 0, mitigation, i * ARMOR_SLOTS, armor.length);
+        }
+
+        // 2. לולאה אחת: הפחתה, חיסור וחיתוך ב-0
+        long removed = 0;
+        for (int i = 0; i < n; i++) {
+            int dealt = damage[i];
+            for (int slot = i * ARMOR_SLOTS, end = slot + ARMOR_SLOTS; slot < end; slot++) {
+                dealt = (int) Math.ceil(dealt * mitigation[slot]);
+            }
+            damage[i] = dealt;
+            int after = Math.max(0, health[i] - dealt);
+            removed += health[i] - after;
+            health[i] = after;
+        }
+
+        // 3. כתיבה בחזרה והודעה לכל יעד
+        for (int i = 0; i < n; i++) {
+            Character target = targets.get(i);
+            target.currentHealth = health[i];
+            target.markDirty();
+            target.onDamageTaken(damage[i]);
+        }
+        return removed;
+    }
+}
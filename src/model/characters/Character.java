@@ -3,11 +3,23 @@ package model.characters;
 import model.items.Weapon;
 import model.items.Armor;
 import model.items.Item;
+import model.items.ItemColumns;
+import model.items.PriceIndex;
 import model.exceptions.InventoryFullException;
 import model.exceptions.ItemNotFoundException;
+import model.economy.EconomyEvent;
+import model.economy.EconomyListener;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * מחלקה אבסטרקטית המייצגת דמות במשחק.
@@ -34,12 +46,26 @@ public abstract class Character implements Attackable {
 
     // Equipment - HashMap מ-slot לשריון
     protected HashMap<Armor.ArmorSlot, Armor> equippedArmor;
+    // מכפילי הפחתת הנזק של השריון המצויד, לפי סדר ההחלה; null = לבנות מחדש
+    private double[] mitigation;
     protected Weapon equippedWeapon;
     // Inventory - ArrayList של פריטים + Stack לפריטים אחרונים שהשתמשנו בהם
     protected ArrayList<Item> inventory;
     protected Stack<Item> recentlyUsedItems;
+    // עולה בכל שינוי במלאי - לביטול אינדקס המחירים השמור
+    private int inventoryVersion;
+    private PriceIndex inventoryPriceIndex;
+    private int indexedInventoryVersion = -1;
+    private ItemColumns inventoryColumns;
+    private int columnsInventoryVersion = -1;
     protected final int maxInventorySize;
 
+    // עולה בכל שינוי במצב הדמות (כולל המלאי) - לשמירה מצטברת
+    private long stateVersion;
+
+    // מקבל הודעה על כל שינוי בזהב (למשל יומן כלכלי), או null
+    protected EconomyListener economyListener;
+
     // Constants
     protected static final int EXPERIENCE_PER_LEVEL = 100;
     protected static final int DEFAULT_INVENTORY_SIZE = 20;
@@ -74,25 +100,62 @@ public abstract class Character implements Attackable {
     /**
      * מקבל נזק והופך אותו לנזק בפועל אחרי הפחתת שריון.
      * - חשב את סך הפחתת הנזק מכל חלקי השריון המצוידים
-     * - הפחת את הנזק המופחת מ-currentHealth
+     * - הפחת את הנזק המופחת (לא את הנזק המקורי) מ-currentHealth
      * - currentHealth לא יכול לרדת מתחת ל-0
      */
     @Override
     public void takeDamage(int damage) {
 
         int reduceDamage = damage;
-        for (Armor armor : equippedArmor.values()) {
-            reduceDamage = armor.reduceDamage(reduceDamage);
+        for (double multiplier : mitigation()) {
+            reduceDamage = (int) Math.ceil(reduceDamage * multiplier);
 
             //start: 100
             //אחרי Chest: 100 * 0.7 = 70
             //אחרי Boots: 70 * 0.9 = 63
         }
-        currentHealth = currentHealth - damage;
+        currentHealth = currentHealth - reduceDamage;
         if(currentHealth <= 0){
             currentHealth = 0;
         }
+        markDirty();
+        onDamageTaken(reduceDamage);
+
+    }
+
+    /**
+     * נקרא אחרי כל פגיעה (גם מ-takeDamage וגם מנזק שטח ב-AreaDamage).
+     * מחלקות יורשות יכולות לדרוס, למשל לצבירת זעם.
+     *
+     * @param damage הנזק אחרי הפחתת השריון
+     */
+    protected void onDamageTaken(int damage) {
+    }
+
+    /**
+     * מחזיר את מכפילי הפחתת הנזק של השריון המצויד (1 - הפחתה לכל חלק),
+     * לפי סדר ההחלה. המערך נשמר ונבנה מחדש רק אחרי שינוי בשריון.
+     *
+     * @return המכפילים (משותף - אין לשנות אותו)
+     */
+    final double[] mitigation() {
+        double[] cached = mitigation;
+        if (cached == null) {
+            cached = new double[equippedArmor.size()];
+            int i = 0;
+            for (Armor armor : equippedArmor.values()) {
+                cached[i++] = 1 - armor.calculateDamageReduction();
+            }
+            mitigation = cached;
+        }
+        return cached;
+    }
 
+    /**
+     * נקרא אחרי כל שינוי ב-equippedArmor.
+     */
+    void armorChanged() {
+        mitigation = null;
     }
 
     /**
@@ -124,14 +187,39 @@ public abstract class Character implements Attackable {
      * @throws InventoryFullException אם המלאי מלא
      */
     public void addItem(Item item) throws InventoryFullException {
-        // אם המלאי מלא, זרוק InventoryFullException
-        // אחרת, הוסף את הפריט ל-inventory
+        if (tryAddItem(item) != InventoryResult.OK) {
+            throw new InventoryFullException(item.getName(),maxInventorySize);
+        }
+    }
 
+    /**
+     * מוסיף פריט למלאי בלי לזרוק Exception.
+     *
+     * @param item הפריט להוספה
+     * @return OK, או INVENTORY_FULL אם המלאי מלא
+     */
+    public InventoryResult tryAddItem(Item item) {
         if (inventory.size() >= maxInventorySize) {
-            throw new InventoryFullException(item.getName(),maxInventorySize);
+            return InventoryResult.INVENTORY_FULL;
         }
         inventory.add(item);
+        inventoryChanged();
+        return InventoryResult.OK;
+    }
 
+    /**
+     * מוסיף כמה פריטים בבת אחת - או כולם או אף אחד.
+     *
+     * @param items הפריטים להוספה
+     * @throws InventoryFullException אם אין מקום לכל הפריטים
+     */
+    public void addItems(Collection<? extends Item> items) throws InventoryFullException {
+        if (inventory.size() + items.size() > maxInventorySize) {
+            String first = items.isEmpty() ? "" : items.iterator().next().getName();
+            throw new InventoryFullException(first, maxInventorySize);
+        }
+        inventory.addAll(items);
+        inventoryChanged();
     }
 
     /**
@@ -142,17 +230,123 @@ public abstract class Character implements Attackable {
      * @throws ItemNotFoundException אם הפריט לא נמצא
      */
     public Item removeItem(String itemName) throws ItemNotFoundException {
-        // חפש את הפריט לפי שם
-        // אם לא נמצא, זרוק ItemNotFoundException
-        // אם נמצא, הסר מהמלאי והחזר אותו
-        for (Item  item : inventory) {
-            if(item.getName() == itemName)
-            {
-                inventory.remove(item);
-                return item;
+        Item item = removeItemIfPresent(itemName);
+        if (item == null) {
+            throw new ItemNotFoundException(itemName);
+        }
+        return item;
+    }
+
+    /**
+     * מסיר פריט מהמלאי לפי שם בלי לזרוק Exception.
+     *
+     * @param itemName שם הפריט להסרה
+     * @return OK, או ITEM_NOT_FOUND אם הפריט לא נמצא
+     */
+    public InventoryResult tryRemoveItem(String itemName) {
+        return removeItemIfPresent(itemName) != null ? InventoryResult.OK
+                : InventoryResult.ITEM_NOT_FOUND;
+    }
+
+    /**
+     * מסיר פריט מהמלאי לפי שם.
+     *
+     * @param itemName שם הפריט להסרה
+     * @return הפריט שהוסר, או null אם לא נמצא
+     */
+    public Item removeItemIfPresent(String itemName) {
+        int index = indexOfItem(itemName);
+        if (index < 0) {
+            return null;
+        }
+        inventoryChanged();
+        return inventory.remove(index);
+    }
+
+    /**
+     * מחזיר פריט מהמלאי לפי שם בלי להסיר אותו ובלי להעתיק את המלאי.
+     *
+     * @param itemName שם הפריט
+     * @return הפריט, או null אם לא נמצא
+     */
+    public Item findItem(String itemName) {
+        int index = indexOfItem(itemName);
+        return index < 0 ? null : inventory.get(index);
+    }
+
+    private int indexOfItem(String itemName) {
+        for (int i = 0; i < inventory.size(); i++) {
+            if (inventory.get(i).getName().equals(itemName)) {
+                return i;
             }
         }
-        throw new ItemNotFoundException(itemName);
+        return -1;
+    }
+
+    /**
+     * מסיר כמה פריטים לפי שם בבת אחת - או כולם או אף אחד.
+     * שם שמופיע פעמיים מסיר שני פריטים בשם הזה.
+     *
+     * @param itemNames שמות הפריטים להסרה
+     * @return הפריטים שהוסרו, לפי סדר השמות
+     * @throws ItemNotFoundException אם אחד הפריטים לא נמצא
+     */
+    public ArrayList<Item> removeItems(Collection<String> itemNames) throws ItemNotFoundException {
+        // 1. מצא את כל הפריטים לפני שמשנים משהו
+        ArrayList<Item> found = new ArrayList<>(itemNames.size());
+        boolean[] taken = new boolean[inventory.size()];
+        for (String itemName : itemNames) {
+            int index = -1;
+            for (int i = 0; i < inventory.size(); i++) {
+                if (!taken[i] && inventory.get(i).getName().equals(itemName)) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                throw new ItemNotFoundException(itemName);
+            }
+            taken[index] = true;
+            found.add(inventory.get(index));
+        }
+        // 2. הסר במעבר אחד
+        int write = 0;
+        for (int i = 0; i < inventory.size(); i++) {
+            if (!taken[i]) {
+                inventory.set(write++, inventory.get(i));
+            }
+        }
+        inventory.subList(write, inventory.size()).clear();
+        inventoryChanged();
+        return found;
+    }
+
+    /**
+     * מסיר כמה פריטים ששווים (equals) לפריט נתון - או כולם או אף אחד.
+     *
+     * @param key הפריט לחיפוש (שם ונדירות)
+     * @param count כמה פריטים להסיר
+     * @return הפריטים שהוסרו
+     * @throws ItemNotFoundException אם אין מספיק פריטים כאלה
+     */
+    public ArrayList<Item> removeMatchingItems(Item key, int count) throws ItemNotFoundException {
+        int matching = 0;
+        for (Item item : inventory) {
+            if (item.equals(key)) {
+                matching++;
+            }
+        }
+        if (matching < count) {
+            throw new ItemNotFoundException(key.getName());
+        }
+        ArrayList<Item> removed = new ArrayList<>(count);
+        for (int i = inventory.size() - 1; i >= 0 && removed.size() < count; i--) {
+            if (inventory.get(i).equals(key)) {
+                removed.add(inventory.remove(i));
+            }
+        }
+        inventoryChanged();
+        return removed;
     }
 
     /**
@@ -215,6 +409,7 @@ public abstract class Character implements Attackable {
         }
         // 3. הסר את הנשק החדש מהמלאי
         inventory.remove(weapon);
+        inventoryChanged();
         // 4. ציית את הנשק החדש
         equippedWeapon = weapon;
     }
@@ -238,8 +433,10 @@ public abstract class Character implements Attackable {
         }
         // 3. הסר את השריון החדש מהמלאי
         inventory.remove(armor);
+        inventoryChanged();
         // 4. ציית את השריון ב-HashMap לפי ה-slot שלו
         equippedArmor.put(armor.getSlot(),armor);
+        armorChanged();
 
     }
 
@@ -273,6 +470,7 @@ public abstract class Character implements Attackable {
         if (currentHealth > maxHealth) {
             currentHealth = maxHealth;
         }
+        markDirty();
     }
 
     /**
@@ -286,6 +484,7 @@ public abstract class Character implements Attackable {
         if (currentMana > maxMana) {
             currentMana = maxMana;
         }
+        markDirty();
     }
 
     /**
@@ -296,6 +495,7 @@ public abstract class Character implements Attackable {
     public boolean useMana(int amount) {
         if (currentMana >= amount) {
             currentMana -= amount;
+            markDirty();
             return true;
         }
         return false;
@@ -321,6 +521,7 @@ public abstract class Character implements Attackable {
             level++;
             onLevelUp();
         }
+        markDirty();
     }
 
     /**
@@ -330,12 +531,76 @@ public abstract class Character implements Attackable {
     protected abstract void onLevelUp();
 
     /**
-     * מתודה אבסטרקטית לחישוב נזק התקפה.
-     * כל סוג דמות מחשב נזק בצורה שונה.
+     * מחשב נזק התקפה אחת: baseStrength + נזק נשק (אם יש) + getAttackBonus,
+     * ואז applyCriticals. כל סוג דמות משנה את הנזק דרך שתי המתודות האלה,
+     * כך שיש מימוש אחד גם למכה בודדת וגם ל-rollAttackDamage.
      *
      * @return נזק ההתקפה
      */
-    public abstract int calculateAttackDamage();
+    public int calculateAttackDamage() {
+        int[] damage = new int[1];
+        rollAttackDamage(damage, 0, 1, ThreadLocalRandom.current());
+        return damage[0];
+    }
+
+    /**
+     * מגריל נזק התקפה לכמה מכות בבת אחת: הבסיס מחושב פעם אחת,
+     * נזק הנשק והקריטיים מוגרלים ממחולל אחד במעבר על המערך.
+     *
+     * @param out מערך היעד
+     * @param offset המיקום הראשון למילוי
+     * @param count מספר המכות
+     * @param random המחולל
+     */
+    public void rollAttackDamage(int[] out, int offset, int count, RandomGenerator random) {
+        // 1. נזק הנשק (או 0)
+        if (equippedWeapon != null) {
+            equippedWeapon.rollDamage(out, offset, count, random);
+        } else {
+            Arrays.fill(out, offset, offset + count, 0);
+        }
+        // 2. הבסיס, פעם אחת לכל המכות
+        int base = baseStrength + getAttackBonus();
+        for (int i = offset, end = offset + count; i < end; i++) {
+            out[i] += base;
+        }
+        // 3. קריטיים (אם לסוג הדמות יש)
+        applyCriticals(out, offset, count, random);
+    }
+
+    /**
+     * @param count מספר המכות
+     * @return מערך חדש עם נזק לכל מכה
+     */
+    public int[] rollAttackDamage(int count) {
+        int[] damage = new int[count];
+        rollAttackDamage(damage, 0, count, ThreadLocalRandom.current());
+        return damage;
+    }
+
+    /**
+     * @return תוספת קבועה לנזק ההתקפה מעבר ל-baseStrength (למשל בונוס זעם)
+     */
+    protected int getAttackBonus() {
+        return 0;
+    }
+
+    /**
+     * מחיל פגיעות קריטיות על נזק שכבר הוגרל. ברירת המחדל: אין קריטיים.
+     */
+    protected void applyCriticals(int[] damage, int offset, int count, RandomGenerator random) {
+    }
+
+    /**
+     * יכולת שטח - פוגעת בכל היעדים בבת אחת (דרך AreaDamage).
+     * ברירת המחדל: לסוג הדמות אין יכולת כזו.
+     *
+     * @param targets היעדים
+     * @return true אם היכולת בוצעה
+     */
+    public boolean useAreaAbility(List<? extends Character> targets) {
+        return false;
+    }
 
     /**
      * מתודה אבסטרקטית לביצוע יכולת מיוחדת.
@@ -380,6 +645,43 @@ public abstract class Character implements Attackable {
         return recentlyUsedItems.peek();
     }
 
+    // ============================================================
+    //  מצב לשמירה
+    // ============================================================
+
+    private void inventoryChanged() {
+        inventoryVersion++;
+        markDirty();
+    }
+
+    /**
+     * מסמן שמצב הדמות השתנה (נקרא מכל פעולה שמשנה שדה נשמר).
+     * מחלקות יורשות קוראות לזה כשהן משנות מצב משלהן (זעם, חיצים).
+     */
+    protected void markDirty() {
+        stateVersion++;
+    }
+
+    /**
+     * @return מונה שעולה בכל שינוי במצב הדמות; שמירה מצטברת משווה אותו
+     *         לערך מהשמירה הקודמת כדי לדעת אם צריך לכתוב את הדמות שוב
+     */
+    public long getStateVersion() {
+        return stateVersion;
+    }
+
+    /**
+     * כותב את המצב הייחודי לסוג הדמות (אחרי השדות המשותפים, ב-CharacterCodec).
+     */
+    protected void writeClassState(DataOutput out) throws IOException {
+    }
+
+    /**
+     * קורא את המצב הייחודי לסוג הדמות (בפורמט של writeClassState).
+     */
+    protected void readClassState(DataInput in) throws IOException {
+    }
+
     // ============================================================
     // Getters & Setters
     // ============================================================
@@ -402,11 +704,19 @@ public abstract class Character implements Attackable {
 
     public void addGold(int amount) {
         this.gold += amount;
+        markDirty();
+        if (economyListener != null) {
+            economyListener.onEconomyEvent(EconomyEvent.Type.GOLD_ADDED, name, null, amount, gold);
+        }
     }
 
     public boolean spendGold(int amount) {
         if (gold >= amount) {
             gold -= amount;
+            markDirty();
+            if (economyListener != null) {
+                economyListener.onEconomyEvent(EconomyEvent.Type.GOLD_SPENT, name, null, amount, gold);
+            }
             return true;
         }
         return false;
@@ -440,6 +750,34 @@ public abstract class Character implements Attackable {
         return new ArrayList<>(inventory);
     }
 
+    /**
+     * מחזיר אינדקס של המלאי ממוין לפי מחיר. האינדקס נבנה מחדש רק אחרי
+     * שהמלאי השתנה, כך ששאילתות חוזרות (למשל אחרי כל שינוי בזהב) זולות.
+     *
+     * @return אינדקס המחירים של המלאי
+     */
+    public PriceIndex getInventoryPriceIndex() {
+        if (inventoryPriceIndex == null || indexedInventoryVersion != inventoryVersion) {
+            inventoryPriceIndex = new PriceIndex(inventory);
+            indexedInventoryVersion = inventoryVersion;
+        }
+        return inventoryPriceIndex;
+    }
+
+    /**
+     * מחזיר את המלאי כעמודות פרימיטיביות (מחיר, משקל, נדירות) לסיכומים.
+     * נבנה מחדש רק אחרי שהמלאי השתנה.
+     *
+     * @return עמודות המלאי
+     */
+    public ItemColumns getInventoryColumns() {
+        if (inventoryColumns == null || columnsInventoryVersion != inventoryVersion) {
+            inventoryColumns = new ItemColumns(inventory);
+            columnsInventoryVersion = inventoryVersion;
+        }
+        return inventoryColumns;
+    }
+
     public int getInventorySize() {
         return inventory.size();
     }
@@ -448,6 +786,10 @@ public abstract class Character implements Attackable {
         return maxInventorySize;
     }
 
+    public void setEconomyListener(EconomyListener economyListener) {
+        this.economyListener = economyListener;
+    }
+
     @Override
     public String toString() {
         return String.format("%s (Level %d) - HP: %d/%d, Mana: %d/%d, Gold: %d",
@@ -0,0 +1,137 @@
+package model.characters;
+
+import model.items.Armor;
+import model.items.Item;
+import model.items.ItemCodec;
+import model.items.Weapon;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * קידוד בינארי של דמויות (לשמירת משחק).
+ * כל דמות נכתבת עם בית סוג, השדות המשותפים, המלאי והציוד (דרך ItemCodec),
+ * ובסוף המצב הייחודי לסוג (writeClassState).
+ */
+public class CharacterCodec {
+
+    private static final byte TYPE_WARRIOR = 1;
+    private static final byte TYPE_MAGE = 2;
+    private static final byte TYPE_ARCHER = 3;
+
+    private CharacterCodec() {
+    }
+
+    /**
+     * כותב דמות לזרם בינארי.
+     *
+     * @param out הזרם
+     * @param character הדמות לכתיבה
+     * @throws IOException אם הכתיבה נכשלה או שסוג הדמות לא מוכר
+     */
+    public static void write(DataOutput out, Character character) throws IOException {
+        if (character instanceof Warrior) {
+            out.writeByte(TYPE_WARRIOR);
+        } else if (character instanceof Mage) {
+            out.writeByte(TYPE_MAGE);
+        } else if (character instanceof Archer) {
+            out.writeByte(TYPE_ARCHER);
+        } else {
+            throw new IOException("Unknown character type: " + character.getClass().getName());
+        }
+        out.writeUTF(character.name);
+        out.writeInt(character.level);
+        out.writeInt(character.experience);
+        out.writeInt(character.gold);
+        out.writeInt(character.currentHealth);
+        out.writeInt(character.maxHealth);
+        out.writeInt(character.currentMana);
+        out.writeInt(character.maxMana);
+        out.writeInt(character.baseStrength);
+        out.writeInt(character.baseDefense);
+
+        // 1. מלאי
+        List<Item> inventory = character.inventory;
+        out.writeInt(inventory.size());
+        for (Item item : inventory) {
+            ItemCodec.write(out, item);
+        }
+        // 2. ציוד
+        out.writeBoolean(character.equippedWeapon != null);
+        if (character.equippedWeapon != null) {
+            ItemCodec.write(out, character.equippedWeapon);
+        }
+        out.writeInt(character.equippedArmor.size());
+        for (Armor armor : character.equippedArmor.values()) {
+            ItemCodec.write(out, armor);
+        }
+        // 3. מצב ייחודי לסוג
+        character.writeClassState(out);
+    }
+
+    /**
+     * קורא דמות מזרם בינארי (בפורמט של write).
+     *
+     * @param in הזרם
+     * @return הדמות שנקראה
+     * @throws IOException אם הקריאה נכשלה או שהנתונים פגומים
+     */
+    public static Character read(DataInput in) throws IOException {
+        byte type = in.readByte();
+        String name = in.readUTF();
+        Character character;
+        switch (type) {
+            case TYPE_WARRIOR:
+                character = new Warrior(name);
+                break;
+            case TYPE_MAGE:
+                character = new Mage(name);
+                break;
+            case TYPE_ARCHER:
+                character = new Archer(name);
+                break;
+            default:
+                throw new IOException("Corrupt character record, type " + type);
+        }
+        character.level = in.readInt();
+        character.experience = in.readInt();
+        character.gold = in.readInt();
+        character.currentHealth = in.readInt();
+        character.maxHealth = in.readInt();
+        character.currentMana = in.readInt();
+        character.maxMana = in.readInt();
+        character.baseStrength = in.readInt();
+        character.baseDefense = in.readInt();
+
+        // 1. מלאי (דמות חדשה - המטמונים של המלאי עוד לא נבנו)
+        int inventorySize = in.readInt();
+        if (inventorySize < 0 || inventorySize > character.maxInventorySize) {
+            throw new IOException("Corrupt character record, inventory size " + inventorySize);
+        }
+        for (int i = 0; i < inventorySize; i++) {
+            character.inventory.add(ItemCodec.read(in));
+        }
+        // 2. ציוד
+        if (in.readBoolean()) {
+            Item weapon = ItemCodec.read(in);
+            if (!(weapon instanceof Weapon)) {
+                throw new IOException("Corrupt character record, equipped weapon is " + weapon.getName());
+            }
+            character.equippedWeapon = (Weapon) weapon;
+        }
+        int armorCount = in.readInt();
+        for (int i = 0; i < armorCount; i++) {
+            Item armor = ItemCodec.read(in);
+            if (!(armor instanceof Armor)) {
+                throw new IOException("Corrupt character record, equipped armor is " + armor.getName());
+            }
+            character.equippedArmor.put(((Armor) armor).getSlot(), (Armor) armor);
+        }
+        character.armorChanged();
+        // 3. מצב ייחודי לסוג
+        character.readClassState(in);
+        return character;
+    }
+}
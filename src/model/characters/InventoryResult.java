@@ -0,0 +1,15 @@
+package model.characters;
+
+/**
+ * תוצאה של פעולת מלאי בלי לזרוק Exception.
+ * משמשת במסלולים חמים שבהם "המלאי מלא" או "הפריט לא נמצא" הם תוצאה רגילה.
+ */
+public enum InventoryResult {
+    OK,
+    INVENTORY_FULL,
+    ITEM_NOT_FOUND;
+
+    public boolean isOk() {
+        return this == OK;
+    }
+}
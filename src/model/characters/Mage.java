@@ -1,5 +1,10 @@
 package model.characters;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
 /**
  * מחלקה המייצגת קוסם במשחק.
  * יורשת מ-Character.
@@ -10,6 +15,7 @@ public class Mage extends Character {
     private int spellPower;
     private static final int FIREBALL_MANA_COST = 25;
     private static final int HEAL_MANA_COST = 30;
+    private static final int FIREBALL_AREA_MANA_COST = 40;
 
     public Mage(String name) {
         // קוסם: מעט חיים, הרבה מאנה, כוח נמוך, הגנה נמוכה
@@ -42,23 +48,6 @@ public class Mage extends Character {
         currentMana = maxMana;
     }
 
-    /**
-     * נזק קוסם בסיסי = baseStrength + נזק נשק (אם יש)
-     * הקוסם מעדיף להשתמש בכישופים אז הנזק הפיזי שלו נמוך
-     *
-     * @return נזק ההתקפה הפיזית
-     */
-    @Override
-    public int calculateAttackDamage() {
-        int damage = baseStrength;
-
-        if (equippedWeapon != null) {
-            damage += equippedWeapon.calculateDamage();
-        }
-
-        return damage;
-    }
-
     /**
      * יכולת מיוחדת: כדור אש
      * - עולה FIREBALL_MANA_COST מאנה
@@ -79,6 +68,27 @@ public class Mage extends Character {
         return true;
     }
 
+    /**
+     * יכולת שטח: כדור אש מתפוצץ
+     * - עולה FIREBALL_AREA_MANA_COST מאנה
+     * - כל יעד מקבל spellPower * 1.2 (עגל כלפי מעלה), לפני שריון
+     *
+     * @param targets היעדים
+     * @return true אם הכישוף בוצע
+     */
+    @Override
+    public boolean useAreaAbility(List<? extends Character> targets) {
+        return castFireball(targets);
+    }
+
+    public boolean castFireball(List<? extends Character> targets) {
+        if (!useMana(FIREBALL_AREA_MANA_COST)) {
+            return false;
+        }
+        AreaDamage.apply(targets, calculateSpellDamage(1.2));
+        return true;
+    }
+
     // ============================================================
     //  מתודות ייחודיות לקוסם
     // ============================================================
@@ -110,6 +120,7 @@ public class Mage extends Character {
         // 1. חשב כמה מאנה צריך לספוג את כל הנזק
         int manaNeeded = (int) Math.ceil(incomingDamage / 2.0);// מעגל למעלה
         // 2. אם יש מספיק מאנה, ספוג הכל והחזר 0
+        markDirty();
         if (currentMana >= manaNeeded) {
             currentMana -= manaNeeded;
             return 0;
@@ -131,6 +142,16 @@ public class Mage extends Character {
         return (int) Math.ceil(spellPower * multiplier);
     }
 
+    @Override
+    protected void writeClassState(DataOutput out) throws IOException {
+        out.writeInt(spellPower);
+    }
+
+    @Override
+    protected void readClassState(DataInput in) throws IOException {
+        spellPower = in.readInt();
+    }
+
     // Getters
     public int getSpellPower() {
         return spellPower;
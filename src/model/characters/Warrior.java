@@ -1,6 +1,11 @@
 
 package model.characters;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
 /**
  * מחלקה המייצגת לוחם במשחק.
  * יורשת מ-Character.
@@ -12,6 +17,7 @@ public class Warrior extends Character {
     private static final int MAX_RAGE = 100;
     private static final int RAGE_PER_HIT = 10;
     private static final int BERSERK_RAGE_COST = 50;
+    private static final int CLEAVE_RAGE_COST = 30;
 
     public Warrior(String name) {
         // לוחם: הרבה חיים, מעט מאנה, כוח גבוה, הגנה גבוהה
@@ -45,21 +51,12 @@ public class Warrior extends Character {
     /**
      * נזק לוחם = baseStrength + נזק נשק (אם יש) + בונוס זעם
      * בונוס זעם = rage / 10 (מספר שלם)
-     * אם אין נשק, נזק הנשק הוא 0
      *
-     * @return נזק ההתקפה
+     * @return בונוס זעם
      */
     @Override
-    public int calculateAttackDamage() {
-        int damage = baseStrength;
-
-        if (equippedWeapon != null) {
-            damage += equippedWeapon.calculateDamage();
-        }
-
-        damage += (rage / 10); // בונוס זעם
-
-        return damage;
+    protected int getAttackBonus() {
+        return rage / 10;
     }
 
     /**
@@ -79,6 +76,7 @@ public class Warrior extends Character {
         }
 
         rage -= BERSERK_RAGE_COST;
+        markDirty();
 
         int damage = calculateAttackDamage() * 2;
         target.takeDamage(damage);
@@ -87,16 +85,36 @@ public class Warrior extends Character {
     }
 
     /**
-     * כאשר הלוחם מקבל נזק, הוא גם צובר זעם.
-     * קודם קרא למימוש של המחלקה הבסיסית (כשתממש אותה)
-     * ואז הוסף RAGE_PER_HIT לזעם (מקסימום MAX_RAGE)
+     * יכולת שטח: חבטה רחבה
+     * - עולה CLEAVE_RAGE_COST זעם
+     * - כל יעד מקבל נזק התקפה רגיל (מוגרל בנפרד לכל יעד)
+     *
+     * @param targets היעדים
+     * @return true אם היכולת בוצעה
      */
     @Override
-    public void takeDamage(int damage) {
+    public boolean useAreaAbility(List<? extends Character> targets) {
+        return cleave(targets);
+    }
+
+    public boolean cleave(List<? extends Character> targets) {
+        if (rage < CLEAVE_RAGE_COST) {
+            return false;
+        }
+        rage -= CLEAVE_RAGE_COST;
+        markDirty();
 
-        // 1. קרא ל-super.takeDamage(damage) (אחרי שתממש אותו)
-        super.takeDamage(damage);
-        // 2. הוסף זעם
+        AreaDamage.apply(targets, rollAttackDamage(targets.size()));
+        return true;
+    }
+
+    /**
+     * כאשר הלוחם מקבל נזק, הוא גם צובר זעם.
+     * נקרא מ-takeDamage ומנזק שטח, אחרי הורדת החיים.
+     * מוסיף RAGE_PER_HIT לזעם (מקסימום MAX_RAGE)
+     */
+    @Override
+    protected void onDamageTaken(int damage) {
         rage += RAGE_PER_HIT;
         if (rage > MAX_RAGE) {
             rage = MAX_RAGE;
@@ -123,6 +141,16 @@ public class Warrior extends Character {
         return true;
     }
 
+    @Override
+    protected void writeClassState(DataOutput out) throws IOException {
+        out.writeInt(rage);
+    }
+
+    @Override
+    protected void readClassState(DataInput in) throws IOException {
+        rage = Math.max(0, Math.min(in.readInt(), MAX_RAGE));
+    }
+
     // Getters
     public int getRage() {
         return rage;
@@ -0,0 +1,63 @@
+package model.economy;
+
+/**
+ * אירוע כלכלי אחד כפי שנקרא מהיומן.
+ */
+public class EconomyEvent {
+
+    public enum Type {
+        GOLD_ADDED,
+        GOLD_SPENT,
+        ITEM_BOUGHT,   // דמות קנתה מחנות
+        ITEM_SOLD,     // דמות מכרה לחנות
+        STOCK_CHANGED  // מלאי החנות השתנה (amount יכול להיות שלילי)
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final String actor;
+    private final String itemName;
+    private final int amount;
+    private final long value;
+
+    public EconomyEvent(long sequence, Type type, String actor, String itemName,
+                        int amount, long value) {
+        this.sequence = sequence;
+        this.type = type;
+        this.actor = actor;
+        this.itemName = itemName;
+        this.amount = amount;
+        this.value = value;
+    }
+
+    // Getters
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getActor() {
+        return actor;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s %s %s amount=%d value=%d",
+                sequence, type, actor, itemName == null ? "-" : itemName, amount, value);
+    }
+}
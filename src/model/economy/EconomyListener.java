@@ -0,0 +1,18 @@
+package model.economy;
+
+/**
+ * מקבל הודעה על כל אירוע כלכלי במשחק (זהב ופריטים שעוברים ידיים).
+ * נקרא מתוך המסלול של העסקה עצמה, לכן המימוש צריך להיות מהיר.
+ */
+public interface EconomyListener {
+
+    /**
+     * @param type סוג האירוע
+     * @param actor מי ביצע (שם הדמות או החנות)
+     * @param itemName שם הפריט, או null באירועי זהב
+     * @param amount זהב: השינוי. פריטים: הכמות
+     * @param value זהב: היתרה אחרי. קנייה/מכירה: הזהב ששולם. מלאי: המלאי אחרי
+     */
+    void onEconomyEvent(EconomyEvent.Type type, String actor, String itemName,
+                        int amount, long value);
+}
@@ -9,7 +9,7 @@ public class InsufficientGoldException extends Exception {
     private final int available;
 
     public InsufficientGoldException(int required, int available) {
-        super("Insufficient gold: required " + required + ", available " + available);
+        super("Insufficient gold: required " + required + ", available " + available, null, false, false);
         this.required = required;
         this.available = available;
     }
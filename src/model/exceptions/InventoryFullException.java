@@ -9,7 +9,7 @@ public class InventoryFullException extends Exception {
     private final String itemName;
 
     public InventoryFullException(String itemName, int maxCapacity) {
-        super("Cannot add item '" + itemName + "' - inventory is full (max: " + maxCapacity + ")");
+        super("Cannot add item '" + itemName + "' - inventory is full (max: " + maxCapacity + ")", null, false, false);
         this.itemName = itemName;
         this.maxCapacity = maxCapacity;
     }
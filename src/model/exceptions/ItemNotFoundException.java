@@ -8,7 +8,7 @@ public class ItemNotFoundException extends Exception {
     private final String itemName;
 
     public ItemNotFoundException(String itemName) {
-        super("Item not found: " + itemName);
+        super("Item not found: " + itemName, null, false, false);
         this.itemName = itemName;
     }
 
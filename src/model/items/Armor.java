@@ -6,9 +6,6 @@ package model.items;
  */
 public class Armor extends Item {
 
-    private int defense;
-    private ArmorSlot slot;
-
     /**
      * חלקי הגוף עליהם ניתן ללבוש שריון
      */
@@ -38,9 +35,11 @@ public class Armor extends Item {
 
     public Armor(String name, String description, int weight, int basePrice,
                  ItemRarity rarity, int defense, ArmorSlot slot) {
-        super(name, description, weight, basePrice, rarity);
-        this.defense = defense;
-        this.slot = slot;
+        this(ItemRegistry.armor(name, description, weight, basePrice, rarity, defense, slot));
+    }
+
+    public Armor(ItemDefinition definition) {
+        super(definition);
     }
 
     // ============================================================
@@ -55,7 +54,8 @@ public class Armor extends Item {
      * @return אחוז הפחתת נזק (בין 0.0 ל-0.75)
      */
     public double calculateDamageReduction() {
-        double reduction = (defense * slot.getDefenseContribution()) / 100.0;
+        double reduction = (definition.getDefense()
+                * definition.getSlot().getDefenseContribution()) / 100.0;
         return Math.min(reduction, 0.75);
     }
 
@@ -72,16 +72,21 @@ public class Armor extends Item {
 
     // Getters
     public int getDefense() {
-        return defense;
+        return definition.getDefense();
     }
 
     public ArmorSlot getSlot() {
-        return slot;
+        return definition.getSlot();
+    }
+
+    @Override
+    public ItemCategory getCategory() {
+        return ItemCategory.ARMOR;
     }
 
     @Override
     public String toString() {
         return String.format("%s | Defense: %d | Slot: %s",
-                super.toString(), defense, slot.getDisplayName());
+                super.toString(), getDefense(), getSlot().getDisplayName());
     }
 }
\ No newline at end of file
@@ -3,14 +3,13 @@ package model.items;
 /**
  * מחלקה בסיסית המייצגת פריט במשחק.
  * כל סוגי הפריטים (נשק, שריון, שיקוי) יורשים ממחלקה זו.
+ *
+ * הנתונים הקבועים נמצאים ב-ItemDefinition משותפת (מהרישום ItemRegistry);
+ * המופע עצמו מחזיק רק מצב משתנה, אם יש כזה.
  */
 public abstract class Item implements Tradeable {
 
-    protected String name;
-    protected String description;
-    protected int weight;
-    protected int basePrice;
-    protected ItemRarity rarity;
+    protected final ItemDefinition definition;
 
     /**
      * enum המייצג את רמת הנדירות של הפריט
@@ -33,31 +32,56 @@ public abstract class Item implements Tradeable {
         }
     }
 
-    public Item(String name, String description, int weight, int basePrice, ItemRarity rarity) {
-        this.name = name;
-        this.description = description;
-        this.weight = weight;
-        this.basePrice = basePrice;
-        this.rarity = rarity;
+    /**
+     * enum המייצג את סוג הפריט (לפי המחלקה היורשת)
+     */
+    public enum ItemCategory {
+        WEAPON,
+        ARMOR,
+        POTION
+    }
+
+    /**
+     * @param definition הגדרה מהרישום; הסוג שלה חייב להתאים למחלקה
+     */
+    protected Item(ItemDefinition definition) {
+        if (definition.getCategory() != getCategory()) {
+            throw new IllegalArgumentException("Definition " + definition
+                    + " is not a " + getCategory());
+        }
+        this.definition = definition;
     }
 
     // Getters
+    public ItemDefinition getDefinition() {
+        return definition;
+    }
+
     public String getName() {
-        return name;
+        return definition.getName();
     }
 
     public String getDescription() {
-        return description;
+        return definition.getDescription();
     }
 
     public int getWeight() {
-        return weight;
+        return definition.getWeight();
+    }
+
+    public int getBasePrice() {
+        return definition.getBasePrice();
     }
 
     public ItemRarity getRarity() {
-        return rarity;
+        return definition.getRarity();
     }
 
+    /**
+     * @return סוג הפריט
+     */
+    public abstract ItemCategory getCategory();
+
     // ============================================================
     //  מימוש ממשק Tradeable
     // ============================================================
@@ -68,8 +92,7 @@ public abstract class Item implements Tradeable {
      */
     @Override
     public int getBuyPrice() {
-
-        return (int) Math.ceil(basePrice * rarity.getPriceMultiplier());
+        return definition.getBuyPrice();
     }
 
     /**
@@ -78,7 +101,7 @@ public abstract class Item implements Tradeable {
      */
     @Override
     public int getSellPrice() {
-        return (int) Math.ceil(getBuyPrice() * 0.5);
+        return definition.getSellPrice();
     }
 
     /**
@@ -93,19 +116,19 @@ public abstract class Item implements Tradeable {
     @Override
     public String toString() {
         return String.format("[%s] %s - %s (Weight: %d)",
-                rarity, name, description, weight);
+                getRarity(), getName(), getDescription(), getWeight());
     }
 
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
-        Item item = (Item) obj;
-        return name.equals(item.name) && rarity == item.rarity;
+        // אותו keyId = אותו שם ואותה נדירות
+        return definition.getKeyId() == ((Item) obj).definition.getKeyId();
     }
 
     @Override
     public int hashCode() {
-        return name.hashCode() * 31 + rarity.hashCode();
+        return definition.getKeyId();
     }
 }
\ No newline at end of file
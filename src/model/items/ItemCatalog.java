@@ -0,0 +1,459 @@
+package model.items;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * קטלוג פריטים שנטען מקובץ: רשימת הגדרות לפי סדר הקובץ ואינדקס לפי שם.
+ * הקטלוג לא משתנה אחרי הטעינה - טעינה מחדש יוצרת קטלוג חדש.
+ *
+ * פורמט טקסט: שורה לכל פריט, שדות מופרדים ב-'|', באותו סדר כמו בבנאים.
+ * שורות ריקות ושורות שמתחילות ב-'#' מדולגות.
+ * <pre>
+ * WEAPON|name|description|weight|basePrice|rarity|minDamage|maxDamage|weaponType
+ * ARMOR|name|description|weight|basePrice|rarity|defense|slot
+ * POTION|name|description|basePrice|rarity|potionType|potency|maxUses
+ * </pre>
+ *
+ * פורמט בינארי (מקומפל, גרסה 1): כותרת, טבלת מחרוזות (היסטים לבלוק UTF-8
+ * בלי כפילויות) ועמודות int לכל שדה. הטעינה ממפה את הקובץ לזיכרון ומעתיקה
+ * כל עמודה ב-get אחד, כמו MapFile.
+ */
+public class ItemCatalog {
+
+    private static final int MAGIC = 0x49544354; // "ITCT"
+    private static final int VERSION = 1;
+
+    private final List<ItemDefinition> definitions;
+    private final HashMap<String, ItemDefinition> byName;
+
+    private ItemCatalog(ArrayList<ItemDefinition> definitions, HashMap<String, ItemDefinition> byName) {
+        this.definitions = Collections.unmodifiableList(definitions);
+        this.byName = byName;
+    }
+
+    // ============================================================
+    //  שאילתות
+    // ============================================================
+
+    /**
+     * @param name שם הפריט
+     * @return ההגדרה, או null אם אין פריט כזה בקטלוג
+     */
+    public ItemDefinition get(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * @param name שם הפריט
+     * @return מופע חדש של הפריט, או null אם אין פריט כזה בקטלוג
+     */
+    public Item newItem(String name) {
+        ItemDefinition definition = byName.get(name);
+        return definition == null ? null : definition.newInstance();
+    }
+
+    /**
+     * @return כל ההגדרות, לפי סדר הקובץ (לקריאה בלבד)
+     */
+    public List<ItemDefinition> getDefinitions() {
+        return definitions;
+    }
+
+    public int size() {
+        return definitions.size();
+    }
+
+    // ============================================================
+    //  טעינה
+    // ============================================================
+
+    /**
+     * טוען קטלוג מקובץ - בינארי אם הוא מתחיל בחתימה, אחרת טקסט.
+     *
+     * @param file הקובץ
+     * @return הקטלוג שנטען
+     * @throws IOException אם הקובץ לא קריא או פגום
+     */
+    public static ItemCatalog load(File file) throws IOException {
+        if (isCompiled(file)) {
+            return readCompiled(file);
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    private static boolean isCompiled(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] head = new byte[4];
+            return in.readNBytes(head, 0, 4) == 4
+                    && ((head[0] & 0xFF) << 24 | (head[1] & 0xFF) << 16
+                    | (head[2] & 0xFF) << 8 | (head[3] & 0xFF)) == MAGIC;
+        }
+    }
+
+    /**
+     * מנתח קטלוג טקסט במעבר אחד. השדות נסרקים בתוך השורה בלי פיצול:
+     * מספרים ו-enum-ים נקראים במקום, ורק שמות ותיאורים הופכים למחרוזות.
+     *
+     * @param reader מקור הטקסט
+     * @return הקטלוג
+     * @throws IOException אם הקריאה נכשלה או ששורה פגומה (עם מספר השורה)
+     */
+    public static ItemCatalog parse(Reader reader) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader
+                ? (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+        ArrayList<ItemDefinition> definitions = new ArrayList<>();
+        HashMap<String, ItemDefinition> byName = new HashMap<>();
+        Fields fields = new Fields();
+
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.charAt(0) == '#') {
+                continue;
+            }
+            fields.reset(line, lineNumber);
+            Item.ItemCategory category = fields.nextEnum(Item.ItemCategory.values());
+            String name = fields.nextString();
+            String description = fields.nextString();
+            ItemDefinition definition;
+            try {
+                switch (category) {
+                    case WEAPON:
+                        definition = ItemRegistry.weapon(name, description, fields.nextInt(),
+                                fields.nextInt(), fields.nextEnum(Item.ItemRarity.values()),
+                                fields.nextInt(), fields.nextInt(),
+                                fields.nextEnum(Weapon.WeaponType.values()));
+                        break;
+                    case ARMOR:
+                        definition = ItemRegistry.armor(name, description, fields.nextInt(),
+                                fields.nextInt(), fields.nextEnum(Item.ItemRarity.values()),
+                                fields.nextInt(), fields.nextEnum(Armor.ArmorSlot.values()));
+                        break;
+                    default:
+                        definition = ItemRegistry.potion(name, description, fields.nextInt(),
+                                fields.nextEnum(Item.ItemRarity.values()),
+                                fields.nextEnum(Potion.PotionType.values()),
+                                fields.nextInt(), fields.nextInt());
+                }
+            } catch (IllegalArgumentException e) {
+                throw fields.error(e.getMessage());
+            }
+            fields.end();
+            add(definitions, byName, definition, "line " + lineNumber);
+        }
+        return new ItemCatalog(definitions, byName);
+    }
+
+    /**
+     * טוען קטלוג מקומפל דרך מיפוי לזיכרון.
+     *
+     * @param file הקובץ
+     * @return הקטלוג
+     * @throws IOException אם הקובץ פגום או לא קריא
+     */
+    public static ItemCatalog readCompiled(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 20 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a compiled catalog: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported catalog version " + version);
+            }
+            int n = buffer.getInt();
+            int stringCount = buffer.getInt();
+            int stringBlobLength = buffer.getInt();
+
+            int[] stringOffsets = readInts(buffer, stringCount + 1);
+            int[] categories = readInts(buffer, n);
+            int[] names = readInts(buffer, n);
+            int[] descriptions = readInts(buffer, n);
+            int[] weights = readInts(buffer, n);
+            int[] basePrices = readInts(buffer, n);
+            int[] rarities = readInts(buffer, n);
+            int[] kinds = readInts(buffer, n);
+            int[] statA = readInts(buffer, n);
+            int[] statB = readInts(buffer, n);
+            if (stringBlobLength < 0 || stringBlobLength > buffer.remaining()) {
+                throw new IOException("Truncated catalog file");
+            }
+            byte[] stringBlob = new byte[stringBlobLength];
+            buffer.get(stringBlob);
+
+            // 1. טבלת המחרוזות
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                int from = stringOffsets[i];
+                int to = stringOffsets[i + 1];
+                if (from < 0 || to < from || to > stringBlobLength) {
+                    throw new IOException("Corrupt catalog string table");
+                }
+                strings[i] = new String(stringBlob, from, to - from, StandardCharsets.UTF_8);
+            }
+
+            // 2. ההגדרות
+            ArrayList<ItemDefinition> definitions = new ArrayList<>(n);
+            HashMap<String, ItemDefinition> byName = new HashMap<>(n * 2);
+            try {
+                for (int i = 0; i < n; i++) {
+                    String name = strings[names[i]];
+                    String description = strings[descriptions[i]];
+                    Item.ItemRarity rarity = Item.ItemRarity.values()[rarities[i]];
+                    ItemDefinition definition;
+                    switch (Item.ItemCategory.values()[categories[i]]) {
+                        case WEAPON:
+                            definition = ItemRegistry.weapon(name, description, weights[i],
+                                    basePrices[i], rarity, statA[i], statB[i],
+                                    Weapon.WeaponType.values()[kinds[i]]);
+                            break;
+                        case ARMOR:
+                            definition = ItemRegistry.armor(name, description, weights[i],
+                                    basePrices[i], rarity, statA[i], Armor.ArmorSlot.values()[kinds[i]]);
+                            break;
+                        default:
+                            definition = ItemRegistry.potion(name, description, basePrices[i],
+                                    rarity, Potion.PotionType.values()[kinds[i]], statA[i], statB[i]);
+                    }
+                    add(definitions, byName, definition, "record " + i);
+                }
+            } catch (ArrayIndexOutOfBoundsException e) {
+                throw new IOException("Corrupt catalog record in " + file);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt catalog record in " + file + ": " + e.getMessage());
+            }
+            return new ItemCatalog(definitions, byName);
+        }
+    }
+
+    private static void add(ArrayList<ItemDefinition> definitions, HashMap<String, ItemDefinition> byName,
+                            ItemDefinition definition, String where) throws IOException {
+        if (byName.putIfAbsent(definition.getName(), definition) != null) {
+            throw new IOException("Duplicate item '" + definition.getName() + "' at " + where);
+        }
+        definitions.add(definition);
+    }
+
+    // ============================================================
+    //  קומפילציה
+    // ============================================================
+
+    /**
+     * כותב את הקטלוג בפורמט הבינארי.
+     *
+     * @param file קובץ היעד
+     * @throws IOException אם הכתיבה נכשלה
+     */
+    public void writeCompiled(File file) throws IOException {
+        int n = definitions.size();
+        LinkedHashMap<String, Integer> strings = new LinkedHashMap<>();
+        int[] categories = new int[n];
+        int[] names = new int[n];
+        int[] descriptions = new int[n];
+        int[] weights = new int[n];
+        int[] basePrices = new int[n];
+        int[] rarities = new int[n];
+        int[] kinds = new int[n];
+        int[] statA = new int[n];
+        int[] statB = new int[n];
+        for (int i = 0; i < n; i++) {
+            ItemDefinition definition = definitions.get(i);
+            categories[i] = definition.getCategory().ordinal();
+            names[i] = intern(strings, definition.getName());
+            descriptions[i] = intern(strings, definition.getDescription());
+            weights[i] = definition.getWeight();
+            basePrices[i] = definition.getBasePrice();
+            rarities[i] = definition.getRarity().ordinal();
+            switch (definition.getCategory()) {
+                case WEAPON:
+                    kinds[i] = definition.getWeaponType().ordinal();
+                    statA[i] = definition.getMinDamage();
+                    statB[i] = definition.getMaxDamage();
+                    break;
+                case ARMOR:
+                    kinds[i] = definition.getSlot().ordinal();
+                    statA[i] = definition.getDefense();
+                    break;
+                default:
+                    kinds[i] = definition.getPotionType().ordinal();
+                    statA[i] = definition.getPotency();
+                    statB[i] = definition.getMaxUses();
+            }
+        }
+
+        ByteArrayOutputStream stringBlob = new ByteArrayOutputStream();
+        int[] stringOffsets = new int[strings.size() + 1];
+        int s = 0;
+        for (String value : strings.keySet()) {
+            stringOffsets[s++] = stringBlob.size();
+            stringBlob.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        stringOffsets[s] = stringBlob.size();
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(strings.size());
+            out.writeInt(stringBlob.size());
+            writeInts(out, stringOffsets);
+            writeInts(out, categories);
+            writeInts(out, names);
+            writeInts(out, descriptions);
+            writeInts(out, weights);
+            writeInts(out, basePrices);
+            writeInts(out, rarities);
+            writeInts(out, kinds);
+            writeInts(out, statA);
+            writeInts(out, statB);
+            stringBlob.writeTo(out);
+        }
+    }
+
+    private static int intern(LinkedHashMap<String, Integer> strings, String value) {
+        Integer index = strings.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.put(value, index);
+        }
+        return index;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * מעתיק בלוק int-ים מהקובץ הממופה ב-get אחד ומקדם את המיקום.
+     */
+    private static int[] readInts(MappedByteBuffer buffer, int count) throws IOException {
+        if (count < 0 || (long) count * 4 > buffer.remaining()) {
+            throw new IOException("Truncated catalog file");
+        }
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * 4);
+        return values;
+    }
+
+    // ============================================================
+    //  סורק שדות לשורת טקסט
+    // ============================================================
+
+    /**
+     * קורא שדות מופרדים ב-'|' מתוך שורה, בלי ליצור תת-מחרוזות למספרים ול-enum-ים.
+     * מופע אחד משמש את כל השורות של הניתוח.
+     */
+    private static final class Fields {
+        private String line;
+        private int lineNumber;
+        private int pos;
+        private int fieldEnd;
+
+        void reset(String line, int lineNumber) {
+            this.line = line;
+            this.lineNumber = lineNumber;
+            this.pos = 0;
+        }
+
+        /**
+         * מקדם לשדה הבא ומחזיר את תחילתו; סוף השדה נשמר ב-fieldEnd.
+         */
+        private int advance() throws IOException {
+            if (pos > line.length()) {
+                throw error("missing field");
+            }
+            int start = pos;
+            int separator = line.indexOf('|', start);
+            fieldEnd = separator < 0 ? line.length() : separator;
+            pos = fieldEnd + 1;
+            return start;
+        }
+
+        String nextString() throws IOException {
+            int start = advance();
+            return line.substring(start, fieldEnd).trim();
+        }
+
+        int nextInt() throws IOException {
+            int start = advance();
+            int end = fieldEnd;
+            while (start < end && line.charAt(start) == ' ') {
+                start++;
+            }
+            while (end > start && line.charAt(end - 1) == ' ') {
+                end--;
+            }
+            boolean negative = start < end && line.charAt(start) == '-';
+            int i = negative ? start + 1 : start;
+            if (i == end) {
+                throw error("expected a number");
+            }
+            long value = 0;
+            for (; i < end; i++) {
+                int digit = line.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw error("expected a number");
+                }
+                value = value * 10 + digit;
+                if (value > Integer.MAX_VALUE) {
+                    throw error("number out of range");
+                }
+            }
+            return (int) (negative ? -value : value);
+        }
+
+        <E extends Enum<E>> E nextEnum(E[] values) throws IOException {
+            int start = advance();
+            int end = fieldEnd;
+            while (start < end && line.charAt(start) == ' ') {
+                start++;
+            }
+            while (end > start && line.charAt(end - 1) == ' ') {
+                end--;
+            }
+            int length = end - start;
+            for (E value : values) {
+                String name = value.name();
+                if (name.length() == length && line.regionMatches(true, start, name, 0, length)) {
+                    return value;
+                }
+            }
+            throw error("unknown value '" + line.substring(start, end) + "'");
+        }
+
+        void end() throws IOException {
+            if (pos <= line.length()) {
+                throw error("too many fields");
+            }
+        }
+
+        private IOException error(String reason) {
+            return new IOException("Catalog line " + lineNumber + ": " + reason);
+        }
+    }
+}
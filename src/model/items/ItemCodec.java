@@ -0,0 +1,103 @@
+package model.items;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * קידוד בינארי של פריטים (לשמירה בקבצים).
+ * כל פריט נכתב עם בית סוג ואחריו השדות שלו.
+ */
+public class ItemCodec {
+
+    private static final byte TYPE_WEAPON = 1;
+    private static final byte TYPE_ARMOR = 2;
+    private static final byte TYPE_POTION = 3;
+
+    private ItemCodec() {
+    }
+
+    /**
+     * כותב פריט לזרם בינארי.
+     *
+     * @param out הזרם
+     * @param item הפריט לכתיבה
+     * @throws IOException אם הכתיבה נכשלה או שסוג הפריט לא מוכר
+     */
+    public static void write(DataOutput out, Item item) throws IOException {
+        if (item instanceof Weapon) {
+            out.writeByte(TYPE_WEAPON);
+        } else if (item instanceof Armor) {
+            out.writeByte(TYPE_ARMOR);
+        } else if (item instanceof Potion) {
+            out.writeByte(TYPE_POTION);
+        } else {
+            throw new IOException("Unknown item type: " + item.getClass().getName());
+        }
+        out.writeUTF(item.getName());
+        out.writeUTF(item.getDescription());
+        out.writeInt(item.getWeight());
+        out.writeInt(item.getBasePrice());
+        out.writeByte(item.getRarity().ordinal());
+
+        if (item instanceof Weapon) {
+            Weapon weapon = (Weapon) item;
+            out.writeInt(weapon.getMinDamage());
+            out.writeInt(weapon.getMaxDamage());
+            out.writeByte(weapon.getWeaponType().ordinal());
+        } else if (item instanceof Armor) {
+            Armor armor = (Armor) item;
+            out.writeInt(armor.getDefense());
+            out.writeByte(armor.getSlot().ordinal());
+        } else {
+            Potion potion = (Potion) item;
+            out.writeByte(potion.getPotionType().ordinal());
+            out.writeInt(potion.getPotency());
+            out.writeInt(potion.getMaxUses());
+            out.writeInt(potion.getRemainingUses());
+        }
+    }
+
+    /**
+     * קורא פריט מזרם בינארי (בפורמט של write).
+     *
+     * @param in הזרם
+     * @return הפריט שנקרא
+     * @throws IOException אם הקריאה נכשלה או שהנתונים פגומים
+     */
+    public static Item read(DataInput in) throws IOException {
+        byte type = in.readByte();
+        String name = in.readUTF();
+        String description = in.readUTF();
+        int weight = in.readInt();
+        int basePrice = in.readInt();
+        Item.ItemRarity rarity = Item.ItemRarity.values()[in.readByte()];
+
+        switch (type) {
+            case TYPE_WEAPON: {
+                int minDamage = in.readInt();
+                int maxDamage = in.readInt();
+                Weapon.WeaponType weaponType = Weapon.WeaponType.values()[in.readByte()];
+                return new Weapon(name, description, weight, basePrice, rarity,
+                        minDamage, maxDamage, weaponType);
+            }
+            case TYPE_ARMOR: {
+                int defense = in.readInt();
+                Armor.ArmorSlot slot = Armor.ArmorSlot.values()[in.readByte()];
+                return new Armor(name, description, weight, basePrice, rarity, defense, slot);
+            }
+            case TYPE_POTION: {
+                Potion.PotionType potionType = Potion.PotionType.values()[in.readByte()];
+                int potency = in.readInt();
+                int maxUses = in.readInt();
+                int remainingUses = in.readInt();
+                Potion potion = new Potion(name, description, basePrice, rarity,
+                        potionType, potency, maxUses);
+                potion.setRemainingUses(remainingUses);
+                return potion;
+            }
+            default:
+                throw new IOException("Corrupt item record, type " + type);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package model.items;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * אחסון פריטים בעמודות (struct-of-arrays) לשאילתות סיכום על הרבה פריטים.
+ *
+ * במקום רשימת אובייקטים, כל שדה נשמר במערך פרימיטיבי משלו: מחיר קנייה,
+ * משקל, נדירות ומזהה ההגדרה (ב-ItemRegistry). סכומים והיסטוגרמות רצים
+ * בלולאות צמודות על מערך אחד או שניים, בלי לעקוב אחרי מצביעים.
+ * הלולאות פרושות פי 4 עם מצברים נפרדים ובלי הסתעפויות, כדי שה-JIT יוכל
+ * לבצע אותן בהוראות וקטוריות.
+ *
+ * האחסון הוא תמונת מצב: הוספה בלבד, בלי קשר לרשימה שממנה נבנה.
+ */
+public class ItemColumns {
+
+    private static final int RARITY_COUNT = Item.ItemRarity.values().length;
+
+    private int[] prices;
+    private int[] weights;
+    private byte[] rarities;
+    private int[] definitionIds;
+    private int size;
+
+    public ItemColumns() {
+        this(16);
+    }
+
+    public ItemColumns(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.prices = new int[capacity];
+        this.weights = new int[capacity];
+        this.rarities = new byte[capacity];
+        this.definitionIds = new int[capacity];
+    }
+
+    /**
+     * בונה אחסון מאוסף פריטים.
+     *
+     * @param items הפריטים
+     */
+    public ItemColumns(Collection<? extends Item> items) {
+        this(items.size());
+        addAll(items);
+    }
+
+    // ============================================================
+    //  הוספה
+    // ============================================================
+
+    public void add(Item item) {
+        add(item.getDefinition());
+    }
+
+    /**
+     * מוסיף פריט לפי ההגדרה שלו (בלי ליצור מופע).
+     *
+     * @param definition ההגדרה
+     */
+    public void add(ItemDefinition definition) {
+        if (size == prices.length) {
+            grow(size + 1);
+        }
+        prices[size] = definition.getBuyPrice();
+        weights[size] = definition.getWeight();
+        rarities[size] = (byte) definition.getRarity().ordinal();
+        definitionIds[size] = definition.getId();
+        size++;
+    }
+
+    public void addAll(Collection<? extends Item> items) {
+        if (size + items.size() > prices.length) {
+            grow(size + items.size());
+        }
+        for (Item item : items) {
+            add(item);
+        }
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, prices.length + (prices.length >> 1));
+        prices = Arrays.copyOf(prices, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+        rarities = Arrays.copyOf(rarities, capacity);
+        definitionIds = Arrays.copyOf(definitionIds, capacity);
+    }
+
+    // ============================================================
+    //  גישה לשורה
+    // ============================================================
+
+    public int size() {
+        return size;
+    }
+
+    public int getPrice(int index) {
+        checkIndex(index);
+        return prices[index];
+    }
+
+    public int getWeight(int index) {
+        checkIndex(index);
+        return weights[index];
+    }
+
+    public Item.ItemRarity getRarity(int index) {
+        checkIndex(index);
+        return Item.ItemRarity.values()[rarities[index]];
+    }
+
+    /**
+     * @return ההגדרה של הפריט בשורה (מופע חדש דרך newInstance אם צריך)
+     */
+    public ItemDefinition getDefinition(int index) {
+        checkIndex(index);
+        return ItemRegistry.get(definitionIds[index]);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+    }
+
+    // ============================================================
+    //  סיכומים
+    // ============================================================
+
+    /**
+     * @return סכום מחירי הקנייה (כמו GameUtils.calculateTotalValue)
+     */
+    public long totalValue() {
+        return sum(prices, size);
+    }
+
+    /**
+     * @return סכום המשקלים (כמו GameUtils.calculateTotalWeight)
+     */
+    public long totalWeight() {
+        return sum(weights, size);
+    }
+
+    private static long sum(int[] values, int n) {
+        long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += values[i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    /**
+     * @return מספר הפריטים לכל נדירות, לפי ordinal (כמו גדלי getItemsByRarity)
+     */
+    public int[] rarityHistogram() {
+        int[] histogram = new int[RARITY_COUNT];
+        for (int i = 0; i < size; i++) {
+            histogram[rarities[i]]++;
+        }
+        return histogram;
+    }
+
+    /**
+     * @param gold כמות הזהב
+     * @return מספר הפריטים שמחירם לכל היותר gold
+     */
+    public int countAffordable(int gold) {
+        int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+        int i = 0;
+        // (price - gold - 1) שלילי בדיוק כש-price <= gold; הביט העליון הוא התנאי
+        long limit = (long) gold + 1;
+        for (; i + 3 < size; i += 4) {
+            c0 += (int) ((prices[i] - limit) >>> 63);
+            c1 += (int) ((prices[i + 1] - limit) >>> 63);
+            c2 += (int) ((prices[i + 2] - limit) >>> 63);
+            c3 += (int) ((prices[i + 3] - limit) >>> 63);
+        }
+        for (; i < size; i++) {
+            c0 += (int) ((prices[i] - limit) >>> 63);
+        }
+        return c0 + c1 + c2 + c3;
+    }
+
+    /**
+     * @param minRarity נדירות מינימלית
+     * @return סכום המחירים של פריטים בנדירות minRarity ומעלה
+     */
+    public long totalValue(Item.ItemRarity minRarity) {
+        return sumWhereRarityAtLeast(prices, minRarity.ordinal());
+    }
+
+    /**
+     * @param minRarity נדירות מינימלית
+     * @return סכום המשקלים של פריטים בנדירות minRarity ומעלה
+     */
+    public long totalWeight(Item.ItemRarity minRarity) {
+        return sumWhereRarityAtLeast(weights, minRarity.ordinal());
+    }
+
+    /**
+     * סכום מסונן בלי הסתעפות: מסכה של כל-הביטים (או אפס) לפי הנדירות.
+     */
+    private long sumWhereRarityAtLeast(int[] values, int minOrdinal) {
+        long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < size; i += 4) {
+            s0 += values[i] & ~((rarities[i] - minOrdinal) >> 31);
+            s1 += values[i + 1] & ~((rarities[i + 1] - minOrdinal) >> 31);
+            s2 += values[i + 2] & ~((rarities[i + 2] - minOrdinal) >> 31);
+            s3 += values[i + 3] & ~((rarities[i + 3] - minOrdinal) >> 31);
+        }
+        for (; i < size; i++) {
+            s0 += values[i] & ~((rarities[i] - minOrdinal) >> 31);
+        }
+        return s0 + s1 + s2 + s3;
+    }
+}
@@ -0,0 +1,191 @@
+package model.items;
+
+import java.util.Objects;
+
+/**
+ * הגדרה של פריט: כל הנתונים שלא משתנים (שם, תיאור, מחיר, נדירות ונתוני הסוג).
+ *
+ * הגדרות נוצרות רק דרך ItemRegistry ומשותפות (flyweight): כל הפריטים
+ * עם אותם נתונים מצביעים לאותה הגדרה, ולכל הגדרה יש מזהה מספרי רציף.
+ * הפריט עצמו מחזיק רק מצב משתנה (למשל שימושים שנותרו בשיקוי).
+ */
+public final class ItemDefinition {
+
+    private final int id;    // מזהה רציף של ההגדרה
+    private final int keyId; // מזהה רציף של הזוג (שם, נדירות) - בסיס ל-equals של Item
+    private final Item.ItemCategory category;
+    private final String name;
+    private final String description;
+    private final int weight;
+    private final int basePrice;
+    private final Item.ItemRarity rarity;
+    private final int buyPrice;
+    private final int sellPrice;
+
+    // נתוני נשק
+    private final int minDamage;
+    private final int maxDamage;
+    private final Weapon.WeaponType weaponType;
+    // נתוני שריון
+    private final int defense;
+    private final Armor.ArmorSlot slot;
+    // נתוני שיקוי
+    private final Potion.PotionType potionType;
+    private final int potency;
+    private final int maxUses;
+
+    ItemDefinition(int id, int keyId, Item.ItemCategory category, String name, String description,
+                   int weight, int basePrice, Item.ItemRarity rarity,
+                   int minDamage, int maxDamage, Weapon.WeaponType weaponType,
+                   int defense, Armor.ArmorSlot slot,
+                   Potion.PotionType potionType, int potency, int maxUses) {
+        if (category == Item.ItemCategory.WEAPON && (minDamage < 0 || minDamage > maxDamage)) {
+            throw new IllegalArgumentException("Invalid damage range " + minDamage + "-" + maxDamage
+                    + " for weapon " + name);
+        }
+        this.id = id;
+        this.keyId = keyId;
+        this.category = category;
+        this.name = name;
+        this.description = description;
+        this.weight = weight;
+        this.basePrice = basePrice;
+        this.rarity = rarity;
+        this.buyPrice = (int) Math.ceil(basePrice * rarity.getPriceMultiplier());
+        this.sellPrice = (int) Math.ceil(buyPrice * 0.5);
+        this.minDamage = minDamage;
+        this.maxDamage = maxDamage;
+        this.weaponType = weaponType;
+        this.defense = defense;
+        this.slot = slot;
+        this.potionType = potionType;
+        this.potency = potency;
+        this.maxUses = maxUses;
+    }
+
+    /**
+     * @return עותק של ההגדרה עם המזהים שהרישום הקצה
+     */
+    ItemDefinition withIds(int id, int keyId) {
+        return new ItemDefinition(id, keyId, category, name, description, weight, basePrice,
+                rarity, minDamage, maxDamage, weaponType, defense, slot,
+                potionType, potency, maxUses);
+    }
+
+    /**
+     * יוצר מופע חדש של הפריט לפי ההגדרה (עם מצב משתנה התחלתי משלו).
+     *
+     * @return פריט חדש שמצביע להגדרה הזו
+     */
+    public Item newInstance() {
+        switch (category) {
+            case WEAPON:
+                return new Weapon(this);
+            case ARMOR:
+                return new Armor(this);
+            default:
+                return new Potion(this);
+        }
+    }
+
+    // Getters
+    public int getId() {
+        return id;
+    }
+
+    public int getKeyId() {
+        return keyId;
+    }
+
+    public Item.ItemCategory getCategory() {
+        return category;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public int getBasePrice() {
+        return basePrice;
+    }
+
+    public Item.ItemRarity getRarity() {
+        return rarity;
+    }
+
+    public int getBuyPrice() {
+        return buyPrice;
+    }
+
+    public int getSellPrice() {
+        return sellPrice;
+    }
+
+    public int getMinDamage() {
+        return minDamage;
+    }
+
+    public int getMaxDamage() {
+        return maxDamage;
+    }
+
+    public Weapon.WeaponType getWeaponType() {
+        return weaponType;
+    }
+
+    public int getDefense() {
+        return defense;
+    }
+
+    public Armor.ArmorSlot getSlot() {
+        return slot;
+    }
+
+    public Potion.PotionType getPotionType() {
+        return potionType;
+    }
+
+    public int getPotency() {
+        return potency;
+    }
+
+    public int getMaxUses() {
+        return maxUses;
+    }
+
+    /**
+     * השוואה לפי התוכן בלבד (בלי המזהים) - משמשת את הרישום לאיחוד הגדרות.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof ItemDefinition)) return false;
+        ItemDefinition other = (ItemDefinition) obj;
+        return category == other.category && name.equals(other.name)
+                && description.equals(other.description) && weight == other.weight
+                && basePrice == other.basePrice && rarity == other.rarity
+                && minDamage == other.minDamage && maxDamage == other.maxDamage
+                && weaponType == other.weaponType && defense == other.defense
+                && slot == other.slot && potionType == other.potionType
+                && potency == other.potency && maxUses == other.maxUses;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(category, name, description, weight, basePrice, rarity,
+                minDamage, maxDamage, weaponType, defense, slot, potionType, potency, maxUses);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s [%s] %s", id, category, rarity, name);
+    }
+}
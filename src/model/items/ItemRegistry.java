@@ -0,0 +1,106 @@
+package model.items;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * רישום גלובלי של הגדרות פריטים.
+ *
+ * כל הגדרה נשמרת פעם אחת (interning): בקשה להגדרה עם נתונים זהים מחזירה
+ * את אותו מופע. כל הגדרה מקבלת מזהה רציף, וכל זוג (שם, נדירות) מקבל
+ * מזהה רציף משלו - כך ש-equals ו-hashCode של Item הם השוואת int.
+ */
+public final class ItemRegistry {
+
+    private static final ConcurrentHashMap<ItemDefinition, ItemDefinition> definitions =
+            new ConcurrentHashMap<>();
+    private static final ArrayList<ItemDefinition> byId = new ArrayList<>();
+    private static final ConcurrentHashMap<String, Integer> keyIds = new ConcurrentHashMap<>();
+
+    private ItemRegistry() {
+    }
+
+    // ============================================================
+    //  יצירת הגדרות
+    // ============================================================
+
+    /**
+     * @throws IllegalArgumentException אם הנזק המינימלי שלילי או גדול מהמקסימלי
+     */
+    public static ItemDefinition weapon(String name, String description, int weight, int basePrice,
+                                        Item.ItemRarity rarity, int minDamage, int maxDamage,
+                                        Weapon.WeaponType weaponType) {
+        return intern(new ItemDefinition(-1, -1, Item.ItemCategory.WEAPON, name, description,
+                weight, basePrice, rarity, minDamage, maxDamage, weaponType,
+                0, null, null, 0, 0));
+    }
+
+    public static ItemDefinition armor(String name, String description, int weight, int basePrice,
+                                       Item.ItemRarity rarity, int defense, Armor.ArmorSlot slot) {
+        return intern(new ItemDefinition(-1, -1, Item.ItemCategory.ARMOR, name, description,
+                weight, basePrice, rarity, 0, 0, null, defense, slot, null, 0, 0));
+    }
+
+    public static ItemDefinition potion(String name, String description, int basePrice,
+                                        Item.ItemRarity rarity, Potion.PotionType potionType,
+                                        int potency, int maxUses) {
+        // שיקויים שוקלים 1
+        return intern(new ItemDefinition(-1, -1, Item.ItemCategory.POTION, name, description,
+                1, basePrice, rarity, 0, 0, null, 0, null, potionType, potency, maxUses));
+    }
+
+    private static ItemDefinition intern(ItemDefinition candidate) {
+        ItemDefinition existing = definitions.get(candidate);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (byId) {
+            existing = definitions.get(candidate);
+            if (existing != null) {
+                return existing;
+            }
+            int keyId = keyIdOf(candidate.getName(), candidate.getRarity());
+            ItemDefinition definition = candidate.withIds(byId.size(), keyId);
+            byId.add(definition);
+            definitions.put(definition, definition);
+            return definition;
+        }
+    }
+
+    // ============================================================
+    //  חיפוש
+    // ============================================================
+
+    /**
+     * @return המזהה הרציף של הזוג (שם, נדירות), מוקצה בבקשה הראשונה
+     */
+    public static int keyIdOf(String name, Item.ItemRarity rarity) {
+        String key = rarity.ordinal() + ":" + name;
+        Integer id = keyIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        synchronized (keyIds) {
+            return keyIds.computeIfAbsent(key, k -> keyIds.size());
+        }
+    }
+
+    /**
+     * @param id מזהה ההגדרה
+     * @return ההגדרה
+     */
+    public static ItemDefinition get(int id) {
+        synchronized (byId) {
+            return byId.get(id);
+        }
+    }
+
+    /**
+     * @return מספר ההגדרות השונות ברישום
+     */
+    public static int size() {
+        synchronized (byId) {
+            return byId.size();
+        }
+    }
+}
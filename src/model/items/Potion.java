@@ -9,10 +9,7 @@ import model.characters.Character;
  */
 public class Potion extends Item implements Usable {
 
-    private PotionType potionType;
-    private int potency;
-    private int remainingUses;
-    private final int maxUses;
+    private int remainingUses; // המצב היחיד שלא שייך להגדרה
 
     /**
      * סוגי שיקויים במשחק
@@ -36,11 +33,13 @@ public class Potion extends Item implements Usable {
 
     public Potion(String name, String description, int basePrice, ItemRarity rarity,
                   PotionType potionType, int potency, int maxUses) {
-        super(name, description, 1, basePrice, rarity); // Potions weigh 1
-        this.potionType = potionType;
-        this.potency = potency;
-        this.maxUses = maxUses;
-        this.remainingUses = maxUses;
+        this(ItemRegistry.potion(name, description, basePrice, rarity,
+                potionType, potency, maxUses));
+    }
+
+    public Potion(ItemDefinition definition) {
+        super(definition);
+        this.remainingUses = definition.getMaxUses();
     }
 
     // ============================================================
@@ -63,12 +62,12 @@ public class Potion extends Item implements Usable {
        {
            return false;
        }
-       switch (potionType){
+       switch (definition.getPotionType()){
            case HEALTH -> {
-                target.heal(potency);
+                target.heal(definition.getPotency());
            }
            case MANA -> {
-                target.restoreMana(potency);
+                target.restoreMana(definition.getPotency());
            }
            case DEFENSE -> {
                throw new UnsupportedOperationException("Not implemented yet");
@@ -95,7 +94,7 @@ public class Potion extends Item implements Usable {
     public boolean canUse(Character target) {
         if( remainingUses <= 0)
             return false;
-        switch (potionType) {
+        switch (definition.getPotionType()) {
             case HEALTH:
                 return target.getCurrentHealth() < target.getMaxHealth();
 
@@ -125,25 +124,37 @@ public class Potion extends Item implements Usable {
     @Override
     public boolean isSellable() {
 
-        return remainingUses  == maxUses;
+        return remainingUses  == definition.getMaxUses();
+    }
+
+    /**
+     * משמש רק בטעינה מקובץ (ItemCodec).
+     */
+    void setRemainingUses(int remainingUses) {
+        this.remainingUses = Math.max(0, Math.min(remainingUses, definition.getMaxUses()));
     }
 
     // Getters
     public PotionType getPotionType() {
-        return potionType;
+        return definition.getPotionType();
     }
 
     public int getPotency() {
-        return potency;
+        return definition.getPotency();
     }
 
     public int getMaxUses() {
-        return maxUses;
+        return definition.getMaxUses();
+    }
+
+    @Override
+    public ItemCategory getCategory() {
+        return ItemCategory.POTION;
     }
 
     @Override
     public String toString() {
         return String.format("%s | Type: %s | Potency: %d | Uses: %d/%d",
-                super.toString(), potionType, potency, remainingUses, maxUses);
+                super.toString(), getPotionType(), getPotency(), remainingUses, getMaxUses());
     }
 }
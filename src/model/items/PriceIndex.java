@@ -0,0 +1,129 @@
+package model.items;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * אינדקס פריטים ממוין לפי מחיר קנייה (מערכים ממוינים, לא משתנה אחרי הבנייה).
+ *
+ * שאילתות "מה אפשר לקנות ב-X זהב" ו"פריטים בטווח מחירים" הן חיפוש בינארי
+ * (O(log n)) ומחזירות תצוגה על המערך - בלי להעתיק את התוצאה.
+ */
+public class PriceIndex {
+
+    private final int[] prices;
+    private final Item[] items;
+    private final List<Item> view;
+
+    /**
+     * בונה אינדקס מאוסף פריטים. פריטים באותו מחיר שומרים על הסדר המקורי.
+     *
+     * @param source הפריטים
+     */
+    public PriceIndex(Collection<? extends Item> source) {
+        this.items = source.toArray(new Item[0]);
+        Arrays.sort(items, Comparator.comparingInt(Item::getBuyPrice));
+        this.prices = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            prices[i] = items[i].getBuyPrice();
+        }
+        this.view = Collections.unmodifiableList(Arrays.asList(items));
+    }
+
+    // ============================================================
+    //  שאילתות
+    // ============================================================
+
+    /**
+     * @param gold כמות הזהב
+     * @return הפריטים שמחירם לכל היותר gold, מהזול ליקר (תצוגה לקריאה בלבד)
+     */
+    public List<Item> atMost(int gold) {
+        return view.subList(0, upperBound(gold));
+    }
+
+    /**
+     * @return מספר הפריטים שמחירם לכל היותר gold
+     */
+    public int countAtMost(int gold) {
+        return upperBound(gold);
+    }
+
+    /**
+     * @param minPrice מחיר מינימלי (כולל)
+     * @param maxPrice מחיר מקסימלי (כולל)
+     * @return הפריטים בטווח, מהזול ליקר (תצוגה לקריאה בלבד)
+     */
+    public List<Item> inRange(int minPrice, int maxPrice) {
+        if (minPrice > maxPrice) {
+            return Collections.emptyList();
+        }
+        return view.subList(lowerBound(minPrice), upperBound(maxPrice));
+    }
+
+    /**
+     * עמוד אחד מתוך הפריטים שאפשר לקנות.
+     *
+     * @param gold כמות הזהב
+     * @param offset כמה פריטים לדלג
+     * @param limit גודל העמוד
+     * @return תצוגה על העמוד (ריקה אם offset אחרי הסוף)
+     */
+    public List<Item> page(int gold, int offset, int limit) {
+        int end = upperBound(gold);
+        int from = Math.min(Math.max(offset, 0), end);
+        return view.subList(from, (int) Math.min((long) from + Math.max(limit, 0), end));
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * @return כל הפריטים מהזול ליקר (תצוגה לקריאה בלבד)
+     */
+    public List<Item> asList() {
+        return view;
+    }
+
+    // ============================================================
+    //  חיפוש בינארי
+    // ============================================================
+
+    /**
+     * @return האינדקס הראשון שמחירו גדול מ-price
+     */
+    private int upperBound(int price) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] <= price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return האינדקס הראשון שמחירו לפחות price
+     */
+    private int lowerBound(int price) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -1,15 +1,13 @@
 package model.items;
 
+import java.util.random.RandomGenerator;
+
 /**
  * מחלקה המייצגת נשק במשחק.
  * יורשת מ-Item ומוסיפה מאפייני נזק.
  */
 public class Weapon extends Item {
 
-    private int minDamage;
-    private int maxDamage;
-    private WeaponType weaponType;
-
     /**
      * סוגי נשקים במשחק
      */
@@ -39,10 +37,12 @@ public class Weapon extends Item {
 
     public Weapon(String name, String description, int weight, int basePrice,
                   ItemRarity rarity, int minDamage, int maxDamage, WeaponType weaponType) {
-        super(name, description, weight, basePrice, rarity);
-        this.minDamage = minDamage;
-        this.maxDamage = maxDamage;
-        this.weaponType = weaponType;
+        this(ItemRegistry.weapon(name, description, weight, basePrice, rarity,
+                minDamage, maxDamage, weaponType));
+    }
+
+    public Weapon(ItemDefinition definition) {
+        super(definition);
     }
 
     // ============================================================
@@ -55,8 +55,26 @@ public class Weapon extends Item {
      * @return נזק אקראי
      */
     public int calculateDamage() {
+        int minDamage = definition.getMinDamage();
         return minDamage + (int)
-                (Math.random() * (maxDamage - minDamage + 1));
+                (Math.random() * (definition.getMaxDamage() - minDamage + 1));
+    }
+
+    /**
+     * מגריל נזק לכמה מכות בבת אחת, באותה התפלגות כמו calculateDamage
+     * (אחידה בין minDamage ל-maxDamage, כולל), ממחולל אחד.
+     *
+     * @param out מערך היעד
+     * @param offset המיקום הראשון למילוי
+     * @param count מספר המכות
+     * @param random המחולל (למשל ThreadLocalRandom.current())
+     */
+    public void rollDamage(int[] out, int offset, int count, RandomGenerator random) {
+        int minDamage = definition.getMinDamage();
+        int span = definition.getMaxDamage() - minDamage + 1;
+        for (int i = offset, end = offset + count; i < end; i++) {
+            out[i] = minDamage + random.nextInt(span);
+        }
     }
 
     /**
@@ -64,25 +82,30 @@ public class Weapon extends Item {
      * @return נזק ממוצע (מספר עשרוני)
      */
     public double getAverageDamage() {
-        return (minDamage + maxDamage) / 2.0;
+        return (definition.getMinDamage() + definition.getMaxDamage()) / 2.0;
     }
 
     // Getters
     public int getMinDamage() {
-        return minDamage;
+        return definition.getMinDamage();
     }
 
     public int getMaxDamage() {
-        return maxDamage;
+        return definition.getMaxDamage();
     }
 
     public WeaponType getWeaponType() {
-        return weaponType;
+        return definition.getWeaponType();
+    }
+
+    @Override
+    public ItemCategory getCategory() {
+        return ItemCategory.WEAPON;
     }
 
     @Override
     public String toString() {
         return String.format("%s | Damage: %d-%d | Type: %s",
-                super.toString(), minDamage, maxDamage, weaponType);
+                super.toString(), getMinDamage(), getMaxDamage(), getWeaponType());
     }
 }
\ No newline at end of file
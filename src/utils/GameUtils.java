@@ -2,8 +2,12 @@ package utils;
 
 import model.characters.Character;
 import model.items.Item;
+import model.items.ItemColumns;
+import model.items.PriceIndex;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
 
 /**
  * מחלקת עזר עם פונקציות שימושיות למשחק.
@@ -12,54 +16,41 @@ import java.util.Comparator;
 public class GameUtils {
 
     // ============================================================
-    //  מיון פריטים (שימוש במחלקות אנונימיות)
+    //  מיון פריטים
     // ============================================================
 
+    // המיונים לפי מפתח מספרי עוברים דרך KeySort: המפתח מחושב פעם אחת לכל
+    // פריט (ולא בכל השוואה), ואין השוואות בחיסור שעלולות לגלוש.
+
     /**
      *  מימוש sortItemsByPrice
      * ממיין רשימת פריטים לפי מחיר (מהזול ליקר).
-     * השתמש ב-Comparator כמחלקה אנונימית!
      *
      * @param items רשימת הפריטים למיון
      */
     public static void sortItemsByPrice(ArrayList<Item> items) {
-        items.sort(new Comparator<Item>() {
-            @Override
-            public int compare(Item a, Item b) {
-                return a.getBuyPrice() - b.getBuyPrice();
-            }
-        });
+        KeySort.sortByKey(items, Item::getBuyPrice);
     }
 
     /**
      * ממיין רשימת פריטים לפי מחיר (מהיקר לזול).
-     * השתמש ב-Comparator כמחלקה אנונימית!
      *
      * @param items רשימת הפריטים למיון
      */
     public static void sortItemsByPriceDescending(ArrayList<Item> items) {
-        items.sort(new Comparator<Item>() {
-            @Override
-            public int compare(Item a, Item b) {
-                return b.getBuyPrice() - a.getBuyPrice();
-            }
-        });
+        KeySort.sortByKeyDescending(items, Item::getBuyPrice);
     }
 
     /**
      * ממיין רשימת פריטים לפי נדירות (מהנפוץ לנדיר ביותר).
      * סדר הנדירות: COMMON < UNCOMMON < RARE < EPIC < LEGENDARY
-     * השתמש ב-ordinal() של ה-enum!
+     * יש רק חמש נדירויות, לכן מיון ספירה לפי ordinal() - O(n).
      *
      * @param items רשימת הפריטים למיון
      */
     public static void sortItemsByRarity(ArrayList<Item> items) {
-        items.sort(new Comparator<Item>() {
-            @Override
-            public int compare(Item a, Item b) {
-                return a.getRarity().ordinal() - b.getRarity().ordinal();
-            }
-        });
+        KeySort.sortByOrdinal(items, item -> item.getRarity().ordinal(),
+                Item.ItemRarity.values().length);
     }
 
     /**
@@ -83,12 +74,7 @@ public class GameUtils {
      * @param items רשימת הפריטים למיון
      */
     public static void sortItemsByWeight(ArrayList<Item> items) {
-        items.sort(new Comparator<Item>() {
-            @Override
-            public int compare(Item o1, Item o2) {
-                return o1.getWeight() - o2.getWeight();
-            }
-        });
+        KeySort.sortByKey(items, Item::getWeight);
     }
 
     // ============================================================
@@ -101,13 +87,7 @@ public class GameUtils {
      * @param characters רשימת הדמויות למיון
      */
     public static void sortCharactersByHealth(ArrayList<Character> characters) {
-
-       characters.sort(new Comparator<Character>() {
-           @Override
-           public int compare(Character o1, Character o2) {
-               return o1.getCurrentHealth() - o2.getCurrentHealth();
-           }
-       });
+        KeySort.sortByKey(characters, Character::getCurrentHealth);
     }
 
     /**
@@ -116,12 +96,7 @@ public class GameUtils {
      * @param characters רשימת הדמויות למיון
      */
     public static void sortCharactersByLevel(ArrayList<Character> characters) {
-       characters.sort(new Comparator<Character>() {
-           @Override
-           public int compare(Character o1, Character o2) {
-               return o1.getLevel() - o2.getLevel();
-           }
-       });
+        KeySort.sortByKeyDescending(characters, Character::getLevel);
     }
 
     // ============================================================
@@ -154,22 +129,74 @@ public class GameUtils {
         return  result;
     }
 
+    /**
+     * פותח שאילתה עצלה על רשימת פריטים - כמה תנאים נבדקים במעבר אחד,
+     * בלי רשימות ביניים.
+     *
+     * @param items רשימת הפריטים (לא מועתקת)
+     * @return שאילתה חדשה בלי תנאים
+     */
+    public static ItemQuery query(List<? extends Item> items) {
+        return new ItemQuery(items);
+    }
+
+    /**
+     * @return תנאי: מחיר הקנייה לא עולה על playerGold
+     */
+    public static ItemFilter affordable(int playerGold) {
+        return new ItemFilter() {
+            @Override
+            public boolean accept(Item item) {
+                return item.getBuyPrice() <= playerGold;
+            }
+        };
+    }
+
+    /**
+     * @return תנאי: נדירות minRarity או יותר
+     */
+    public static ItemFilter rarityAtLeast(Item.ItemRarity minRarity) {
+        return new ItemFilter() {
+            @Override
+            public boolean accept(Item item) {
+                return item.getRarity().ordinal() >= minRarity.ordinal();
+            }
+        };
+    }
+
+    /**
+     * @return תנאי: משקל עד maxWeight
+     */
+    public static ItemFilter maxWeight(int maxWeight) {
+        return new ItemFilter() {
+            @Override
+            public boolean accept(Item item) {
+                return item.getWeight() <= maxWeight;
+            }
+        };
+    }
+
     /**
      * מסנן פריטים שהשחקן יכול לקנות.
-     * השתמש ב-filterItems עם מחלקה אנונימית!
      *
      * @param items רשימת הפריטים
      * @param playerGold כמות הזהב של השחקן
      * @return רשימת פריטים שניתן לקנות
      */
     public static ArrayList<Item> filterAffordableItems(ArrayList<Item> items, int playerGold) {
-        return filterItems(items, new ItemFilter() {
-            @Override
-            public boolean accept(Item item) {
-                return item.getBuyPrice() <= playerGold;
-            }
-        });
+        return filterItems(items, affordable(playerGold));
+    }
 
+    /**
+     * מחזיר את הפריטים שהשחקן יכול לקנות מתוך אינדקס מחירים.
+     * חיפוש בינארי במקום סריקה - מתאים לשאילתות חוזרות על אותה רשימה.
+     *
+     * @param index אינדקס המחירים (למשל Character.getInventoryPriceIndex)
+     * @param playerGold כמות הזהב של השחקן
+     * @return תצוגה לקריאה בלבד של הפריטים, מהזול ליקר
+     */
+    public static List<Item> filterAffordableItems(PriceIndex index, int playerGold) {
+        return index.atMost(playerGold);
     }
 
     /**
@@ -181,12 +208,7 @@ public class GameUtils {
      */
     public static ArrayList<Item> filterByRarity(ArrayList<Item> items,
                                                  Item.ItemRarity minRarity) {
-        return filterItems(items, new ItemFilter() {
-            @Override
-            public boolean accept(Item item) {
-                return item.getRarity().ordinal() >= minRarity.ordinal();
-            }
-        });
+        return filterItems(items, rarityAtLeast(minRarity));
     }
 
     /**
@@ -197,12 +219,7 @@ public class GameUtils {
      * @return רשימת פריטים קלים
      */
     public static ArrayList<Item> filterLightItems(ArrayList<Item> items, int maxWeight) {
-        return filterItems(items, new ItemFilter() {
-            @Override
-            public boolean accept(Item item) {
-                return item.getWeight() <= maxWeight;
-            }
-        });
+        return filterItems(items, maxWeight(maxWeight));
     }
 
     // ============================================================
@@ -229,6 +246,50 @@ public class GameUtils {
         return best;
     }
 
+    /**
+     * מחזיר את k הפריטים הטובים ביותר לפי קריטריון, מהטוב ביותר.
+     * ערימה בגודל k - O(n log k) במקום מיון של כל הרשימה.
+     *
+     * @param items רשימת הפריטים
+     * @param k מספר הפריטים
+     * @param comparator הקריטריון להשוואה (הגדול = הטוב)
+     * @return עד k פריטים
+     */
+    public static ArrayList<Item> findTopItems(List<? extends Item> items, int k,
+                                               Comparator<? super Item> comparator) {
+        return query(items).topK(k, comparator);
+    }
+
+    /**
+     * מחזיר את k הפריטים עם הציון הגבוה ביותר, למשל
+     * {@code item -> (double) item.getBuyPrice() / item.getWeight()}.
+     *
+     * @param items רשימת הפריטים
+     * @param k מספר הפריטים
+     * @param score הציון (מחושב פעם אחת לכל פריט)
+     * @return עד k פריטים, מהציון הגבוה
+     */
+    public static ArrayList<Item> findTopItemsByScore(List<? extends Item> items, int k,
+                                                      ToDoubleFunction<? super Item> score) {
+        return query(items).topKByScore(k, score);
+    }
+
+    /**
+     * מחזיר את k הדמויות הטובות ביותר לפי קריטריון, מהטובה ביותר.
+     *
+     * @param characters רשימת הדמויות
+     * @param k מספר הדמויות
+     * @param comparator הקריטריון להשוואה (הגדול = הטוב)
+     * @return עד k דמויות
+     */
+    public static ArrayList<Character> findTopCharacters(List<? extends Character> characters, int k,
+                                                         Comparator<? super Character> comparator) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        return TopK.<Character>of(k, comparator).offerAll(characters).toSortedList();
+    }
+
     /**
      * מחשב את המשקל הכולל של כל הפריטים ברשימה.
      *
@@ -244,6 +305,16 @@ public class GameUtils {
        return calculatedWeight;
     }
 
+    /**
+     * מחשב את המשקל הכולל מאחסון עמודות - לולאה על מערך int אחד.
+     *
+     * @param items עמודות הפריטים
+     * @return המשקל הכולל
+     */
+    public static long calculateTotalWeight(ItemColumns items) {
+        return items.totalWeight();
+    }
+
     /**
      * מחשב את הערך הכולל של כל הפריטים (לפי מחיר מכירה).
      *
@@ -259,4 +330,14 @@ public class GameUtils {
 
        return totalCost;
     }
-}
\ No newline at end of file
+
+    /**
+     * מחשב את הערך הכולל מאחסון עמודות - לולאה על מערך int אחד.
+     *
+     * @param items עמודות הפריטים
+     * @return הערך הכולל
+     */
+    public static long calculateTotalValue(ItemColumns items) {
+        return items.totalValue();
+    }
+}
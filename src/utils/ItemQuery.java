@@ -0,0 +1,240 @@
+package utils;
+
+import model.items.Item;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * שאילתה עצלה על רשימת פריטים: התנאים נצברים ורק פעולת הסיום סורקת.
+ *
+ * כל התנאים נבדקים יחד בכל פריט, במעבר אחד על המקור - בלי רשימות ביניים
+ * כמו בשרשור של filterByRarity / filterLightItems / filterAffordableItems.
+ * מקור גדול (RandomAccess, מעל PARALLEL_THRESHOLD) נסרק במקביל בחלקים,
+ * והתוצאות מתחברות לפי הסדר המקורי; לכן התנאים חייבים להיות בלי מצב.
+ *
+ * <pre>
+ * GameUtils.query(loot)
+ *         .where(GameUtils.rarityAtLeast(Item.ItemRarity.RARE))
+ *         .where(GameUtils.maxWeight(5))
+ *         .limit(10);
+ * </pre>
+ */
+public final class ItemQuery {
+
+    /**
+     * מעל גודל זה (ובמקור עם גישה אקראית) הסריקה מקבילית.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    private static final int CHUNK_SIZE = 1 << 13;
+    private static final GameUtils.ItemFilter[] NO_FILTERS = new GameUtils.ItemFilter[0];
+
+    private final List<? extends Item> source;
+    private GameUtils.ItemFilter[] filters;
+    private boolean parallel;
+
+    ItemQuery(List<? extends Item> source) {
+        this.source = source;
+        this.filters = NO_FILTERS;
+        this.parallel = source instanceof RandomAccess && source.size() >= PARALLEL_THRESHOLD;
+    }
+
+    // ============================================================
+    //  בניית השאילתה
+    // ============================================================
+
+    /**
+     * מוסיף תנאי (כל התנאים חייבים להתקיים).
+     *
+     * @param filter התנאי
+     * @return השאילתה (לשרשור)
+     */
+    public ItemQuery where(GameUtils.ItemFilter filter) {
+        GameUtils.ItemFilter[] next = new GameUtils.ItemFilter[filters.length + 1];
+        System.arraycopy(filters, 0, next, 0, filters.length);
+        next[filters.length] = filter;
+        filters = next;
+        return this;
+    }
+
+    /**
+     * מכריח סריקה סדרתית (למשל לתנאי עם מצב).
+     *
+     * @return השאילתה (לשרשור)
+     */
+    public ItemQuery sequential() {
+        parallel = false;
+        return this;
+    }
+
+    // ============================================================
+    //  פעולות סיום
+    // ============================================================
+
+    /**
+     * @return כל הפריטים שעברו, לפי הסדר המקורי
+     */
+    public ArrayList<Item> toList() {
+        if (!parallel) {
+            ArrayList<Item> result = new ArrayList<>();
+            collect(0, source.size(), result);
+            return result;
+        }
+        List<ArrayList<Item>> parts = IntStream.range(0, chunkCount()).parallel()
+                .mapToObj(chunk -> {
+                    ArrayList<Item> part = new ArrayList<>();
+                    collect(chunk * CHUNK_SIZE, chunkEnd(chunk), part);
+                    return part;
+                })
+                .toList();
+        int total = 0;
+        for (ArrayList<Item> part : parts) {
+            total += part.size();
+        }
+        ArrayList<Item> result = new ArrayList<>(total);
+        for (ArrayList<Item> part : parts) {
+            result.addAll(part);
+        }
+        return result;
+    }
+
+    /**
+     * מחזיר עד max פריטים ראשונים שעוברים. הסריקה נעצרת ברגע שיש מספיק,
+     * לכן היא תמיד סדרתית.
+     *
+     * @param max המספר המקסימלי
+     * @return הפריטים, לפי הסדר המקורי
+     */
+    public ArrayList<Item> limit(int max) {
+        ArrayList<Item> result = new ArrayList<>(Math.min(Math.max(max, 0), 16));
+        if (max <= 0) {
+            return result;
+        }
+        for (int i = 0, n = source.size(); i < n; i++) {
+            Item item = source.get(i);
+            if (accepts(item)) {
+                result.add(item);
+                if (result.size() == max) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return הפריט הראשון שעובר, או null
+     */
+    public Item first() {
+        List<Item> found = limit(1);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * @return מספר הפריטים שעוברים (בלי לאסוף אותם)
+     */
+    public int count() {
+        if (!parallel) {
+            return count(0, source.size());
+        }
+        return IntStream.range(0, chunkCount()).parallel()
+                .map(chunk -> count(chunk * CHUNK_SIZE, chunkEnd(chunk)))
+                .sum();
+    }
+
+    /**
+     * מחזיר את k הפריטים הגדולים ביותר לפי comparator, מהגדול לקטן.
+     * ערימה חסומה בגודל k - O(n log k), בלי למיין את כל הרשימה.
+     *
+     * @param k מספר הפריטים
+     * @param comparator סדר (הגדול ביותר = הטוב ביותר)
+     * @return עד k פריטים, מהטוב ביותר
+     */
+    public ArrayList<Item> topK(int k, Comparator<? super Item> comparator) {
+        return k <= 0 ? new ArrayList<>() : select(() -> TopK.of(k, comparator));
+    }
+
+    /**
+     * כמו topK, לפי ציון פרימיטיבי שמחושב פעם אחת לכל פריט
+     * (למשל מחיר ליחידת משקל).
+     *
+     * @param k מספר הפריטים
+     * @param score הציון (הגבוה ביותר = הטוב ביותר)
+     * @return עד k פריטים, מהטוב ביותר
+     */
+    public ArrayList<Item> topKByScore(int k, ToDoubleFunction<? super Item> score) {
+        return k <= 0 ? new ArrayList<>() : select(() -> TopK.byScore(k, score));
+    }
+
+    private ArrayList<Item> select(Supplier<TopK<Item>> factory) {
+        if (!parallel) {
+            TopK<Item> top = factory.get();
+            offerRange(0, source.size(), top);
+            return top.toSortedList();
+        }
+        return IntStream.range(0, chunkCount()).parallel()
+                .mapToObj(chunk -> {
+                    TopK<Item> part = factory.get();
+                    offerRange(chunk * CHUNK_SIZE, chunkEnd(chunk), part);
+                    return part;
+                })
+                .reduce(TopK::merge)
+                .orElseGet(factory)
+                .toSortedList();
+    }
+
+    // ============================================================
+    //  עזר
+    // ============================================================
+
+    private boolean accepts(Item item) {
+        for (GameUtils.ItemFilter filter : filters) {
+            if (!filter.accept(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void collect(int from, int to, ArrayList<Item> out) {
+        for (int i = from; i < to; i++) {
+            Item item = source.get(i);
+            if (accepts(item)) {
+                out.add(item);
+            }
+        }
+    }
+
+    private int count(int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (accepts(source.get(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void offerRange(int from, int to, TopK<Item> top) {
+        for (int i = from; i < to; i++) {
+            Item item = source.get(i);
+            if (accepts(item)) {
+                top.offer(item);
+            }
+        }
+    }
+
+    private int chunkCount() {
+        return (source.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    private int chunkEnd(int chunk) {
+        return Math.min(source.size(), (chunk + 1) * CHUNK_SIZE);
+    }
+}
@@ -0,0 +1,168 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * מיון רשימות לפי מפתח int שמחושב פעם אחת לכל איבר.
+ *
+ * המפתח והאינדקס המקורי נארזים ל-long אחד (מפתח ב-32 הביטים העליונים,
+ * אינדקס בתחתונים), ממוינים כמערך פרימיטיבי, ואז הרשימה מסודרת מחדש לפי
+ * האינדקסים. האינדקס שובר שוויון, כך שהמיון יציב. בלי Comparator ובלי
+ * חיסור - אין גלישה גם במפתחות קיצוניים.
+ *
+ * כשטווח המפתחות קטן (מחירים, משקלים, ordinal) המערך ממוין ב-radix
+ * (מעבר לכל בית בטווח), אחרת ב-Arrays.sort, ובמקביל מעל סף גודל.
+ */
+public final class KeySort {
+
+    /**
+     * מעל גודל זה ממיינים במקביל (Arrays.parallelSort).
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    /**
+     * טווח מפתחות (max - min) שמתחתיו ממיינים ב-radix - לכל היותר שני מעברים.
+     */
+    private static final long RADIX_RANGE = 1 << 16;
+
+    private KeySort() {
+    }
+
+    /**
+     * ממיין לפי מפתח בסדר עולה (יציב).
+     *
+     * @param list הרשימה למיון (במקום)
+     * @param key מחלץ המפתח
+     */
+    public static <T> void sortByKey(List<T> list, ToIntFunction<? super T> key) {
+        sort(list, key, false);
+    }
+
+    /**
+     * ממיין לפי מפתח בסדר יורד (יציב - שווים שומרים על הסדר המקורי).
+     *
+     * @param list הרשימה למיון (במקום)
+     * @param key מחלץ המפתח
+     */
+    public static <T> void sortByKeyDescending(List<T> list, ToIntFunction<? super T> key) {
+        sort(list, key, true);
+    }
+
+    private static <T> void sort(List<T> list, ToIntFunction<? super T> key, boolean descending) {
+        int n = list.size();
+        if (n < 2) {
+            return;
+        }
+        Object[] source = list.toArray();
+        // 1. חילוץ המפתחות, פעם אחת לכל איבר; ~key הופך את הסדר בלי גלישה
+        int[] keys = new int[n];
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            @SuppressWarnings("unchecked")
+            int k = key.applyAsInt((T) source[i]);
+            if (descending) {
+                k = ~k;
+            }
+            keys[i] = k;
+            min = Math.min(min, k);
+            max = Math.max(max, k);
+        }
+        // 2. מפתח ואינדקס ב-long אחד, ומיון פרימיטיבי
+        long[] packed = new long[n];
+        long range = (long) max - min;
+        if (range < RADIX_RANGE) {
+            for (int i = 0; i < n; i++) {
+                packed[i] = ((long) (keys[i] - min) << 32) | i;
+            }
+            packed = radixSort(packed, range);
+        } else {
+            for (int i = 0; i < n; i++) {
+                packed[i] = ((long) keys[i] << 32) | i;
+            }
+            if (n >= PARALLEL_THRESHOLD) {
+                Arrays.parallelSort(packed);
+            } else {
+                Arrays.sort(packed);
+            }
+        }
+        // 3. סידור מחדש לפי האינדקסים
+        for (int i = 0; i < n; i++) {
+            @SuppressWarnings("unchecked")
+            T element = (T) source[(int) packed[i]];
+            list.set(i, element);
+        }
+    }
+
+    /**
+     * LSD radix על חלק המפתח (מנורמל ל-0..range), בית אחד בכל מעבר.
+     * כל מעבר יציב, והאינדקסים מתחילים בסדר עולה - לכן גם התוצאה יציבה.
+     *
+     * @return המערך הממוין (אחד משני המאגרים)
+     */
+    private static long[] radixSort(long[] values, long range) {
+        int n = values.length;
+        long[] buffer = new long[n];
+        int[] count = new int[257];
+        for (int shift = 32; shift == 32 || (range >>> (shift - 32)) != 0; shift += 8) {
+            Arrays.fill(count, 0);
+            for (long value : values) {
+                count[(int) ((value >>> shift) & 0xFF) + 1]++;
+            }
+            for (int d = 0; d < 256; d++) {
+                count[d + 1] += count[d];
+            }
+            for (long value : values) {
+                buffer[count[(int) ((value >>> shift) & 0xFF)]++] = value;
+            }
+            long[] swap = values;
+            values = buffer;
+            buffer = swap;
+        }
+        return values;
+    }
+
+    /**
+     * מיון ספירה (radix במעבר אחד) למפתחות בתחום קטן, כמו ordinal של enum.
+     * O(n + domain), יציב.
+     *
+     * @param list הרשימה למיון (במקום)
+     * @param ordinal מחלץ המפתח, בין 0 ל-domain-1
+     * @param domain מספר הערכים האפשריים
+     */
+    public static <T> void sortByOrdinal(List<T> list, ToIntFunction<? super T> ordinal, int domain) {
+        int n = list.size();
+        if (n < 2) {
+            return;
+        }
+        Object[] source = list.toArray();
+        int[] keys = new int[n];
+        int[] start = new int[domain + 1];
+        // 1. ספירה
+        for (int i = 0; i < n; i++) {
+            @SuppressWarnings("unchecked")
+            int k = ordinal.applyAsInt((T) source[i]);
+            if (k < 0 || k >= domain) {
+                throw new IllegalArgumentException("Ordinal " + k + " outside 0.." + (domain - 1));
+            }
+            keys[i] = k;
+            start[k + 1]++;
+        }
+        // 2. סכומים מצטברים = מיקום ההתחלה של כל ערך
+        for (int k = 0; k < domain; k++) {
+            start[k + 1] += start[k];
+        }
+        // 3. פיזור לפי הסדר המקורי
+        Object[] sorted = new Object[n];
+        for (int i = 0; i < n; i++) {
+            sorted[start[keys[i]]++] = source[i];
+        }
+        for (int i = 0; i < n; i++) {
+            @SuppressWarnings("unchecked")
+            T element = (T) sorted[i];
+            list.set(i, element);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * בחירת k האיברים הטובים ביותר מזרם, בערימה בגודל קבוע.
+ *
+ * ראש הערימה הוא הגרוע מבין k השמורים; איבר חדש נכנס רק אם הוא טוב ממנו.
+ * כל offer הוא O(log k), בלי הקצאות, כך שאפשר להזין איברים אחד-אחד
+ * (למשל שלל שנופל בקרב) ולקבל את התוצאה בכל רגע.
+ *
+ * שני אופנים: לפי Comparator (הגדול = הטוב), או לפי ציון double שמחושב
+ * פעם אחת לכל איבר ונשמר לצדו. בשוויון האיבר שהגיע קודם נשאר.
+ *
+ * @param <T> סוג האיברים
+ */
+public final class TopK<T> {
+
+    private final int k;
+    private final Comparator<? super T> comparator; // null באופן הציון
+    private final ToDoubleFunction<? super T> score; // null באופן ה-Comparator
+    private final Object[] heap;
+    private final double[] scores;
+    private int size;
+
+    private TopK(int k, Comparator<? super T> comparator, ToDoubleFunction<? super T> score) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.k = k;
+        this.comparator = comparator;
+        this.score = score;
+        this.heap = new Object[k];
+        this.scores = score == null ? null : new double[k];
+    }
+
+    /**
+     * @param k מספר האיברים לשמור
+     * @param comparator סדר - הגדול ביותר הוא הטוב ביותר
+     */
+    public static <T> TopK<T> of(int k, Comparator<? super T> comparator) {
+        return new TopK<>(k, comparator, null);
+    }
+
+    /**
+     * @param k מספר האיברים לשמור
+     * @param score ציון פרימיטיבי - הגבוה ביותר הוא הטוב ביותר
+     */
+    public static <T> TopK<T> byScore(int k, ToDoubleFunction<? super T> score) {
+        return new TopK<>(k, null, score);
+    }
+
+    // ============================================================
+    //  הזנה
+    // ============================================================
+
+    /**
+     * מציע איבר.
+     *
+     * @param element האיבר
+     * @return true אם האיבר נכנס ל-k הטובים (כרגע)
+     */
+    public boolean offer(T element) {
+        double value = score == null ? 0 : score.applyAsDouble(element);
+        if (size < k) {
+            heap[size] = element;
+            if (scores != null) {
+                scores[size] = value;
+            }
+            siftUp(size++);
+            return true;
+        }
+        // 1. לא טוב מהגרוע שבערימה - נדחה
+        if (!better(element, value, 0)) {
+            return false;
+        }
+        // 2. מחליף את הגרוע ומחזיר את הערימה לסדר
+        heap[0] = element;
+        if (scores != null) {
+            scores[0] = value;
+        }
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * מציע את כל האיברים.
+     *
+     * @return this (לשרשור)
+     */
+    public TopK<T> offerAll(Iterable<? extends T> elements) {
+        for (T element : elements) {
+            offer(element);
+        }
+        return this;
+    }
+
+    /**
+     * מציע את כל האיברים של TopK אחר (איחוד תוצאות חלקיות).
+     *
+     * @return this (לשרשור)
+     */
+    public TopK<T> merge(TopK<? extends T> other) {
+        for (int i = 0; i < other.size; i++) {
+            @SuppressWarnings("unchecked")
+            T element = (T) other.heap[i];
+            offer(element);
+        }
+        return this;
+    }
+
+    // ============================================================
+    //  תוצאה
+    // ============================================================
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return הגרוע מבין השמורים (הסף לכניסה), או null אם ריק
+     */
+    @SuppressWarnings("unchecked")
+    public T peekWorst() {
+        return size == 0 ? null : (T) heap[0];
+    }
+
+    /**
+     * @return השמורים, מהטוב ביותר לגרוע (עותק - הערימה לא משתנה)
+     */
+    public ArrayList<T> toSortedList() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        // מיון יציב של k איברים בלבד
+        Arrays.sort(order, (a, b) -> compareSlots(b, a));
+        ArrayList<T> result = new ArrayList<>(size);
+        for (Integer index : order) {
+            @SuppressWarnings("unchecked")
+            T element = (T) heap[index];
+            result.add(element);
+        }
+        return result;
+    }
+
+    // ============================================================
+    //  ערימת מינימום
+    // ============================================================
+
+    @SuppressWarnings("unchecked")
+    private boolean better(T element, double value, int slot) {
+        if (scores != null) {
+            return value > scores[slot];
+        }
+        return comparator.compare(element, (T) heap[slot]) > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compareSlots(int a, int b) {
+        if (scores != null) {
+            return Double.compare(scores[a], scores[b]);
+        }
+        return comparator.compare((T) heap[a], (T) heap[b]);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (compareSlots(index, parent) >= 0) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && compareSlots(child + 1, child) < 0) {
+                child++;
+            }
+            if (compareSlots(child, index) >= 0) {
+                return;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        Object element = heap[a];
+        heap[a] = heap[b];
+        heap[b] = element;
+        if (scores != null) {
+            double value = scores[a];
+            scores[a] = scores[b];
+            scores[b] = value;
+        }
+    }
+}